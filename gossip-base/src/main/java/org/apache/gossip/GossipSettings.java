@@ -46,6 +46,9 @@ public class GossipSettings {
   private String transportManagerClass = "org.apache.gossip.transport.udp.UdpTransportManager";
   private String protocolManagerClass = "org.apache.gossip.protocol.json.JacksonProtocolManager";
 
+  /** chooses the members each gossip round goes to, one instance per group of members */
+  private String partnerSelectorClass = "org.apache.gossip.manager.ShuffledPartnerSelector";
+
   private Map<String, String> activeGossipProperties = new HashMap<>();
 
   private String pathToRingState = "./";
@@ -60,6 +63,15 @@ public class GossipSettings {
 
   private boolean signMessages = false;
 
+  /**
+   * the encoding the Jackson protocol manager writes: json, or one of the binary Jackson formats
+   * smile and cbor. Every member of a cluster must use the same one.
+   */
+  private String protocolEncoding = "json";
+
+  /** the algorithm messages are signed with, SHA1withDSA or Ed25519; see KeyTool for the keys */
+  private String signatureAlgorithm = "SHA1withDSA";
+
   // Settings related to lock manager
   private LockManagerSettings lockManagerSettings =
       LockManagerSettings.getLockManagerDefaultSettings();
@@ -68,6 +80,90 @@ public class GossipSettings {
 
   private int bulkTransferSize = StartupSettings.DEFAULT_BULK_TRANSFER_SIZE;
 
+  /**
+   * exchange digests of the shared data and transfer only the entries that differ, instead of
+   * sending every entry each round; every member of a cluster must support it
+   */
+  private boolean sharedDataDigest = false;
+
+  /**
+   * levels of the hash trees kept over shared and per node data, 0 to keep none; members with trees
+   * compare them before exchanging digests, so only the buckets that differ are listed. Every
+   * member of a cluster must use the same depth
+   */
+  private int dataTreeDepth = 0;
+
+  /**
+   * the number of rounds a change to a CRDT is gossiped as a delta, 0 to always send whole CRDTs.
+   * With deltas the whole state of a CRDT is only sent where digests or trees show the replicas
+   * differ, or without either, every this many rounds
+   */
+  private int crdtDeltaRounds = 0;
+
+  /**
+   * the number of per-node data changes remembered, 0 to keep no change log. With a log each round
+   * sends a member only what changed since it last acknowledged, and everything only when the log
+   * no longer reaches back that far
+   */
+  private int perNodeDataLogSize = 0;
+
+  /**
+   * the largest encoded size in bytes of a combined gossip round, 0 to gossip membership, per node
+   * data and shared data separately. When set each round picks one partner and sends it the
+   * membership list and the recent data updates that fit, most pressing first
+   */
+  private int combinedGossipSize = 0;
+
+  /**
+   * the interval in ms of the separate per node and shared data rounds while combined rounds carry
+   * the recent updates; they only repair what the combined rounds missed
+   */
+  private int antiEntropyInterval = 10000;
+
+  /**
+   * the interval in ms between probes of the SWIM failure detector, 0 to rely on heartbeats alone.
+   * Each interval one member, taken round robin, is pinged directly and, failing that, through
+   * other members; members that answer neither are suspected
+   */
+  private int probeInterval = 0;
+
+  /** the time in ms a direct or indirect probe waits for its acknowledgement */
+  private int probeTimeout = 200;
+
+  /** the number of members asked to probe a member that did not answer a direct ping */
+  private int indirectProbes = 3;
+
+  /**
+   * how long a suspected member has to refute the suspicion before it is declared down, in probe
+   * intervals times the logarithm of the cluster size
+   */
+  private int suspicionMultiplier = 4;
+
+  /**
+   * the highest local health score, 0 to disable it. The score rises while this member looks slow
+   * itself, and the convict threshold and probe timeouts are multiplied by score + 1
+   */
+  private int maxLocalHealth = 0;
+
+  /**
+   * the longest a gossip round is put off while nothing changes, 0 to gossip at the fixed
+   * intervals. Data rounds back off from their interval towards it and return to it on any change;
+   * rounds carrying heartbeats keep their fixed interval so failure detection is not thrown off
+   */
+  private int maxGossipInterval = 0;
+
+  /** the most partners an adaptive gossip round sends to while changes are spreading */
+  private int maxFanout = 3;
+
+  /** the number of workers decoding and dispatching received messages */
+  private int receiveWorkers = 2;
+
+  /** received messages waiting for a worker; messages beyond this are dropped */
+  private int receiveQueueSize = 1024;
+
+  /** run the receive workers on virtual threads instead of platform threads */
+  private boolean receiveVirtualThreads = false;
+
   /** Construct GossipSettings with default settings. */
   public GossipSettings() {}
 
@@ -231,6 +327,22 @@ public class GossipSettings {
     this.signMessages = signMessages;
   }
 
+  public String getSignatureAlgorithm() {
+    return signatureAlgorithm;
+  }
+
+  public void setSignatureAlgorithm(String signatureAlgorithm) {
+    this.signatureAlgorithm = signatureAlgorithm;
+  }
+
+  public String getProtocolEncoding() {
+    return protocolEncoding;
+  }
+
+  public void setProtocolEncoding(String protocolEncoding) {
+    this.protocolEncoding = protocolEncoding;
+  }
+
   public String getTransportManagerClass() {
     return transportManagerClass;
   }
@@ -239,6 +351,14 @@ public class GossipSettings {
     this.transportManagerClass = transportManagerClass;
   }
 
+  public String getPartnerSelectorClass() {
+    return partnerSelectorClass;
+  }
+
+  public void setPartnerSelectorClass(String partnerSelectorClass) {
+    this.partnerSelectorClass = partnerSelectorClass;
+  }
+
   public String getProtocolManagerClass() {
     return protocolManagerClass;
   }
@@ -268,6 +388,110 @@ public class GossipSettings {
     this.bulkTransfer = bulkTransfer;
   }
 
+  public boolean isSharedDataDigest() {
+    return sharedDataDigest;
+  }
+
+  public void setSharedDataDigest(boolean sharedDataDigest) {
+    this.sharedDataDigest = sharedDataDigest;
+  }
+
+  public int getDataTreeDepth() {
+    return dataTreeDepth;
+  }
+
+  public void setDataTreeDepth(int dataTreeDepth) {
+    this.dataTreeDepth = dataTreeDepth;
+  }
+
+  public int getCrdtDeltaRounds() {
+    return crdtDeltaRounds;
+  }
+
+  public void setCrdtDeltaRounds(int crdtDeltaRounds) {
+    this.crdtDeltaRounds = crdtDeltaRounds;
+  }
+
+  public int getPerNodeDataLogSize() {
+    return perNodeDataLogSize;
+  }
+
+  public void setPerNodeDataLogSize(int perNodeDataLogSize) {
+    this.perNodeDataLogSize = perNodeDataLogSize;
+  }
+
+  public int getCombinedGossipSize() {
+    return combinedGossipSize;
+  }
+
+  public void setCombinedGossipSize(int combinedGossipSize) {
+    this.combinedGossipSize = combinedGossipSize;
+  }
+
+  public int getProbeInterval() {
+    return probeInterval;
+  }
+
+  public void setProbeInterval(int probeInterval) {
+    this.probeInterval = probeInterval;
+  }
+
+  public int getProbeTimeout() {
+    return probeTimeout;
+  }
+
+  public void setProbeTimeout(int probeTimeout) {
+    this.probeTimeout = probeTimeout;
+  }
+
+  public int getIndirectProbes() {
+    return indirectProbes;
+  }
+
+  public void setIndirectProbes(int indirectProbes) {
+    this.indirectProbes = indirectProbes;
+  }
+
+  public int getSuspicionMultiplier() {
+    return suspicionMultiplier;
+  }
+
+  public void setSuspicionMultiplier(int suspicionMultiplier) {
+    this.suspicionMultiplier = suspicionMultiplier;
+  }
+
+  public int getMaxLocalHealth() {
+    return maxLocalHealth;
+  }
+
+  public void setMaxLocalHealth(int maxLocalHealth) {
+    this.maxLocalHealth = maxLocalHealth;
+  }
+
+  public int getMaxGossipInterval() {
+    return maxGossipInterval;
+  }
+
+  public void setMaxGossipInterval(int maxGossipInterval) {
+    this.maxGossipInterval = maxGossipInterval;
+  }
+
+  public int getMaxFanout() {
+    return maxFanout;
+  }
+
+  public void setMaxFanout(int maxFanout) {
+    this.maxFanout = maxFanout;
+  }
+
+  public int getAntiEntropyInterval() {
+    return antiEntropyInterval;
+  }
+
+  public void setAntiEntropyInterval(int antiEntropyInterval) {
+    this.antiEntropyInterval = antiEntropyInterval;
+  }
+
   public int getBulkTransferSize() {
     return bulkTransferSize;
   }
@@ -275,4 +499,28 @@ public class GossipSettings {
   public void setBulkTransferSize(int bulkTransferSize) {
     this.bulkTransferSize = bulkTransferSize;
   }
+
+  public int getReceiveWorkers() {
+    return receiveWorkers;
+  }
+
+  public void setReceiveWorkers(int receiveWorkers) {
+    this.receiveWorkers = receiveWorkers;
+  }
+
+  public int getReceiveQueueSize() {
+    return receiveQueueSize;
+  }
+
+  public void setReceiveQueueSize(int receiveQueueSize) {
+    this.receiveQueueSize = receiveQueueSize;
+  }
+
+  public boolean isReceiveVirtualThreads() {
+    return receiveVirtualThreads;
+  }
+
+  public void setReceiveVirtualThreads(boolean receiveVirtualThreads) {
+    this.receiveVirtualThreads = receiveVirtualThreads;
+  }
 }
@@ -20,6 +20,7 @@ package org.apache.gossip;
 import java.net.URI;
 import java.util.Map;
 import org.apache.gossip.accrual.FailureDetector;
+import org.apache.gossip.accrual.PhiThreshold;
 
 /**
  * This object represent a gossip member with the properties known locally. These objects are stored
@@ -57,6 +58,30 @@ public class LocalMember extends Member {
     return detector.computePhiMeasure(now);
   }
 
+  /**
+   * @param now the current time, in the unit of the heartbeats.
+   * @return phi for this member, NaN while too few heartbeats were seen.
+   */
+  public double phi(long now) {
+    return detector.phi(now);
+  }
+
+  /**
+   * @return whether phi is known for this member, see {@link FailureDetector#isKnown()}.
+   */
+  public boolean phiKnown() {
+    return detector.isKnown();
+  }
+
+  /**
+   * @param now the current time, in the unit of the heartbeats.
+   * @param threshold phi to compare with.
+   * @return whether phi for this member is beyond the threshold, false while it is not known.
+   */
+  public boolean phiBeyond(long now, PhiThreshold threshold) {
+    return detector.beyond(now, threshold);
+  }
+
   @Override
   public String toString() {
     Double d = null;
@@ -40,6 +40,9 @@ public abstract class Member implements Comparable<Member> {
   /* properties provided at startup time */
   protected Map<String, String> properties;
 
+  /* host:port, kept once computed since the member map compares members by it */
+  private volatile String address;
+
   /**
    * Constructor.
    *
@@ -73,7 +76,12 @@ public abstract class Member implements Comparable<Member> {
    *     InetSocketAddress}
    */
   public String computeAddress() {
-    return uri.getHost() + ":" + uri.getPort();
+    String result = address;
+    if (result == null) {
+      result = (uri.getHost() + ":" + uri.getPort()).intern();
+      address = result;
+    }
+    return result;
   }
 
   /**
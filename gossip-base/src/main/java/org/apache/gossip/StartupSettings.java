@@ -118,6 +118,53 @@ public class StartupSettings {
         jsonObject.has("bulk_transfer_size")
             ? jsonObject.get("bulk_transfer_size").intValue()
             : DEFAULT_BULK_TRANSFER_SIZE;
+    boolean sharedDataDigest =
+        jsonObject.has("shared_data_digest")
+            ? jsonObject.get("shared_data_digest").booleanValue()
+            : false;
+    int dataTreeDepth =
+        jsonObject.has("data_tree_depth") ? jsonObject.get("data_tree_depth").intValue() : 0;
+    int crdtDeltaRounds =
+        jsonObject.has("crdt_delta_rounds") ? jsonObject.get("crdt_delta_rounds").intValue() : 0;
+    int perNodeDataLogSize =
+        jsonObject.has("per_node_data_log_size")
+            ? jsonObject.get("per_node_data_log_size").intValue()
+            : 0;
+    int combinedGossipSize =
+        jsonObject.has("combined_gossip_size")
+            ? jsonObject.get("combined_gossip_size").intValue()
+            : 0;
+    int antiEntropyInterval =
+        jsonObject.has("anti_entropy_interval")
+            ? jsonObject.get("anti_entropy_interval").intValue()
+            : 10000;
+    int probeInterval =
+        jsonObject.has("probe_interval") ? jsonObject.get("probe_interval").intValue() : 0;
+    int probeTimeout =
+        jsonObject.has("probe_timeout") ? jsonObject.get("probe_timeout").intValue() : 200;
+    int indirectProbes =
+        jsonObject.has("indirect_probes") ? jsonObject.get("indirect_probes").intValue() : 3;
+    int suspicionMultiplier =
+        jsonObject.has("suspicion_multiplier")
+            ? jsonObject.get("suspicion_multiplier").intValue()
+            : 4;
+    int maxLocalHealth =
+        jsonObject.has("max_local_health") ? jsonObject.get("max_local_health").intValue() : 0;
+    int maxGossipInterval =
+        jsonObject.has("max_gossip_interval")
+            ? jsonObject.get("max_gossip_interval").intValue()
+            : 0;
+    int maxFanout = jsonObject.has("max_fanout") ? jsonObject.get("max_fanout").intValue() : 3;
+    int receiveWorkers =
+        jsonObject.has("receive_workers") ? jsonObject.get("receive_workers").intValue() : 2;
+    int receiveQueueSize =
+        jsonObject.has("receive_queue_size")
+            ? jsonObject.get("receive_queue_size").intValue()
+            : 1024;
+    boolean receiveVirtualThreads =
+        jsonObject.has("receive_virtual_threads")
+            ? jsonObject.get("receive_virtual_threads").booleanValue()
+            : false;
     if (cluster == null) {
       throw new IllegalArgumentException("cluster was null. It is required");
     }
@@ -125,10 +172,22 @@ public class StartupSettings {
         jsonObject.has("transport_manager_class")
             ? jsonObject.get("transport_manager_class").textValue()
             : null;
+    String partnerSelectorClass =
+        jsonObject.has("partner_selector_class")
+            ? jsonObject.get("partner_selector_class").textValue()
+            : null;
     String protocolClass =
         jsonObject.has("protocol_manager_class")
             ? jsonObject.get("protocol_manager_class").textValue()
             : null;
+    String protocolEncoding =
+        jsonObject.has("protocol_encoding")
+            ? jsonObject.get("protocol_encoding").textValue()
+            : null;
+    String signatureAlgorithm =
+        jsonObject.has("signature_algorithm")
+            ? jsonObject.get("signature_algorithm").textValue()
+            : null;
     URI uri2 = new URI(uri);
     GossipSettings gossipSettings =
         new GossipSettings(
@@ -140,12 +199,37 @@ public class StartupSettings {
             distribution,
             bulkTransfer);
     gossipSettings.setBulkTransferSize(bulkTransferSize);
+    gossipSettings.setSharedDataDigest(sharedDataDigest);
+    gossipSettings.setDataTreeDepth(dataTreeDepth);
+    gossipSettings.setCrdtDeltaRounds(crdtDeltaRounds);
+    gossipSettings.setPerNodeDataLogSize(perNodeDataLogSize);
+    gossipSettings.setCombinedGossipSize(combinedGossipSize);
+    gossipSettings.setAntiEntropyInterval(antiEntropyInterval);
+    gossipSettings.setProbeInterval(probeInterval);
+    gossipSettings.setProbeTimeout(probeTimeout);
+    gossipSettings.setIndirectProbes(indirectProbes);
+    gossipSettings.setSuspicionMultiplier(suspicionMultiplier);
+    gossipSettings.setMaxLocalHealth(maxLocalHealth);
+    gossipSettings.setMaxGossipInterval(maxGossipInterval);
+    gossipSettings.setMaxFanout(maxFanout);
+    gossipSettings.setReceiveWorkers(receiveWorkers);
+    gossipSettings.setReceiveQueueSize(receiveQueueSize);
+    gossipSettings.setReceiveVirtualThreads(receiveVirtualThreads);
     if (transportClass != null) {
       gossipSettings.setTransportManagerClass(transportClass);
     }
+    if (partnerSelectorClass != null) {
+      gossipSettings.setPartnerSelectorClass(partnerSelectorClass);
+    }
     if (protocolClass != null) {
       gossipSettings.setProtocolManagerClass(protocolClass);
     }
+    if (protocolEncoding != null) {
+      gossipSettings.setProtocolEncoding(protocolEncoding);
+    }
+    if (signatureAlgorithm != null) {
+      gossipSettings.setSignatureAlgorithm(signatureAlgorithm);
+    }
     StartupSettings settings = new StartupSettings(id, uri2, gossipSettings, cluster);
     String configMembersDetails = "Config-members [";
     JsonNode membersJSON = jsonObject.get("members");
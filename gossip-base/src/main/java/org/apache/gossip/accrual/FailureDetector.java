@@ -17,67 +17,231 @@
  */
 package org.apache.gossip.accrual;
 
-import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.math3.distribution.ExponentialDistribution;
-import org.apache.commons.math3.distribution.NormalDistribution;
-import org.apache.commons.math3.exception.MathArithmeticException;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
 
-@Slf4j
+/**
+ * Phi accrual failure detector over a sliding window of heartbeat intervals. The intervals sit in a
+ * ring of longs that grows up to the window size, and the mean and variance are kept as running
+ * sums, so neither recording a heartbeat nor computing phi walks the window or allocates. Phi comes
+ * in closed form: exact for the exponential distribution, a logistic approximation of the normal
+ * one otherwise. Computing phi takes no lock, it reads optimistically and only waits when a
+ * heartbeat was being recorded at the same moment.
+ */
 public class FailureDetector {
 
-  private final DescriptiveStatistics descriptiveStatistics;
+  /** phi beyond this counts as certain failure, a probability within 1e-12 of one. */
+  static final double CERTAIN = 12;
+
+  static final double LN_10 = Math.log(10);
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final StampedLock lock = new StampedLock();
   private final long minimumSamples;
-  private final String distribution;
-  private volatile long latestHeartbeatMs = -1;
+  private final int windowSize;
+  private final boolean normal;
+  private long[] intervals;
+  private int count;
+  private int oldest;
+
+  /** subtracted from every interval before summing, keeps the sums small and exact for longer. */
+  private long shift;
+
+  private double sum;
+  private double sumOfSquares;
+  private double mean = Double.NaN;
+  private double deviation;
+  private long latestHeartbeat = -1;
 
   public FailureDetector(long minimumSamples, int windowSize, String distribution) {
-    descriptiveStatistics = new DescriptiveStatistics(windowSize);
     this.minimumSamples = minimumSamples;
-    this.distribution = distribution;
+    this.windowSize = Math.max(1, windowSize);
+    this.normal = isNormal(distribution);
+    intervals = new long[Math.min(this.windowSize, INITIAL_CAPACITY)];
+  }
+
+  /**
+   * @param distribution as configured.
+   * @return whether it is the normal distribution, otherwise it is the exponential one.
+   */
+  static boolean isNormal(String distribution) {
+    return "normal".equals(distribution);
   }
 
   /**
    * Updates the statistics based on the delta between the last heartbeat and supplied time
    *
-   * @param now the time of the heartbeat in milliseconds
+   * @param now the time of the heartbeat
    */
-  public synchronized void recordHeartbeat(long now) {
-    if (now <= latestHeartbeatMs) {
+  public void recordHeartbeat(long now) {
+    long stamp = lock.writeLock();
+    try {
+      if (now <= latestHeartbeat) {
+        return;
+      }
+      if (latestHeartbeat != -1) {
+        add(now - latestHeartbeat);
+        derive();
+      }
+      latestHeartbeat = now;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private void add(long interval) {
+    if (count == 0) {
+      shift = interval;
+    }
+    if (count < windowSize) {
+      if (count == intervals.length) {
+        intervals = Arrays.copyOf(intervals, Math.min(windowSize, count * 2));
+      }
+      intervals[count++] = interval;
+    } else {
+      double evicted = intervals[oldest] - shift;
+      sum -= evicted;
+      sumOfSquares -= evicted * evicted;
+      intervals[oldest] = interval;
+      oldest = (oldest + 1) % windowSize;
+      if (oldest == 0) {
+        // once per pass over the window, so rounding errors never pile up.
+        resum();
+        return;
+      }
+    }
+    double x = interval - shift;
+    sum += x;
+    sumOfSquares += x * x;
+  }
+
+  private void resum() {
+    shift += Math.round(sum / count);
+    sum = 0;
+    sumOfSquares = 0;
+    for (int i = 0; i < count; i++) {
+      double x = intervals[i] - shift;
+      sum += x;
+      sumOfSquares += x * x;
+    }
+  }
+
+  /** the mean and deviation phi needs, NaN while there are fewer samples than the minimum. */
+  private void derive() {
+    if (count == 0 || count < minimumSamples) {
+      mean = Double.NaN;
       return;
     }
-    if (latestHeartbeatMs != -1) {
-      descriptiveStatistics.addValue(now - latestHeartbeatMs);
+    mean = shift + sum / count;
+    double variance = count > 1 ? Math.max(0, (sumOfSquares - sum * sum / count) / (count - 1)) : 0;
+    deviation = Math.max(Math.sqrt(variance), 0.1);
+  }
+
+  /**
+   * @param now the current time, in the unit of the heartbeats.
+   * @return phi, or NaN while there are fewer samples than the minimum.
+   */
+  public double phi(long now) {
+    long stamp = lock.tryOptimisticRead();
+    long latest = latestHeartbeat;
+    double m = mean;
+    double d = deviation;
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        latest = latestHeartbeat;
+        m = mean;
+        d = deviation;
+      } finally {
+        lock.unlockRead(stamp);
+      }
     }
-    latestHeartbeatMs = now;
+    return phi(normal, now - latest, m, d);
   }
 
-  public synchronized Double computePhiMeasure(long now) {
-    if (latestHeartbeatMs == -1 || descriptiveStatistics.getN() < minimumSamples) {
-      return null;
+  /**
+   * @return whether phi is known, false while there are fewer samples than the minimum.
+   */
+  public boolean isKnown() {
+    long stamp = lock.tryOptimisticRead();
+    double m = mean;
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        m = mean;
+      } finally {
+        lock.unlockRead(stamp);
+      }
     }
-    long delta = now - latestHeartbeatMs;
-    try {
-      double probability;
-      if (distribution.equals("normal")) {
-        double standardDeviation = descriptiveStatistics.getStandardDeviation();
-        standardDeviation = Math.max(standardDeviation, 0.1);
-        probability =
-            new NormalDistribution(descriptiveStatistics.getMean(), standardDeviation)
-                .cumulativeProbability(delta);
-      } else {
-        probability =
-            new ExponentialDistribution(descriptiveStatistics.getMean())
-                .cumulativeProbability(delta);
+    return !Double.isNaN(m) && (normal || m > 0);
+  }
+
+  /**
+   * The same as {@code phi(now) > threshold}, without computing phi.
+   *
+   * @param now the current time, in the unit of the heartbeats.
+   * @param threshold for a detector of the same distribution.
+   * @return whether phi is beyond the threshold, false while phi is not known.
+   */
+  public boolean beyond(long now, PhiThreshold threshold) {
+    long stamp = lock.tryOptimisticRead();
+    long latest = latestHeartbeat;
+    double m = mean;
+    double d = deviation;
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        latest = latestHeartbeat;
+        m = mean;
+        d = deviation;
+      } finally {
+        lock.unlockRead(stamp);
       }
-      final double eps = 1e-12;
-      if (1 - probability < eps) {
-        probability = 1.0;
+    }
+    double delta = now - latest;
+    if (threshold.isNormal()) {
+      return delta > m + threshold.getFactor() * d;
+    }
+    // NaN and non positive means are unknown phi.
+    return m > 0 && Math.max(0, delta) > threshold.getFactor() * m;
+  }
+
+  /**
+   * @param normal whether intervals are taken to be normal rather than exponential.
+   * @param delta the time since the latest heartbeat.
+   * @param mean the mean interval, NaN if not known yet.
+   * @param deviation the standard deviation of the intervals.
+   * @return phi, NaN if the mean is not known.
+   */
+  static double phi(boolean normal, double delta, double mean, double deviation) {
+    if (Double.isNaN(mean)) {
+      return Double.NaN;
+    }
+    double phi;
+    if (normal) {
+      double y = (delta - mean) / deviation;
+      // -log10(1 - F(y)) with F(y) ~ 1 / (1 + e^(-y (1.5976 + 0.070566 y^2))).
+      double exponent = y * (1.5976 + 0.070566 * y * y);
+      phi =
+          exponent > 0
+              ? exponent / LN_10 + Math.log10(1 + Math.exp(-exponent))
+              : Math.log10(1 + Math.exp(exponent));
+    } else {
+      if (mean <= 0) {
+        return Double.NaN;
       }
-      return -1.0d * Math.log10(1.0d - probability);
-    } catch (MathArithmeticException | IllegalArgumentException e) {
-      log.error("Error!", e);
-      return null;
+      // -log10(e^(-delta / mean)).
+      phi = Math.max(0, delta) / (mean * LN_10);
     }
+    return phi > CERTAIN ? Double.POSITIVE_INFINITY : phi;
+  }
+
+  /**
+   * @param now the current time, in the unit of the heartbeats.
+   * @return phi, or null while there are fewer samples than the minimum.
+   */
+  public Double computePhiMeasure(long now) {
+    double phi = phi(now);
+    return Double.isNaN(phi) ? null : phi;
   }
 }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.accrual;
+
+/**
+ * A phi threshold turned into a time since the latest heartbeat. Phi only grows with that time, so
+ * whether phi is beyond the threshold is the same as whether the time is beyond mean + y deviations
+ * for the normal distribution, or beyond m means for the exponential one. Working out y or m takes
+ * logarithms once per threshold; deciding it for a member then takes a multiply and a compare, see
+ * {@link FailureDetector#beyond(long, PhiThreshold)}.
+ */
+public final class PhiThreshold {
+
+  /* -log10(1 - F(y)) = log10(1 + e^(y (A y^2 + B))), see FailureDetector.phi. */
+  private static final double A = 0.070566;
+  private static final double B = 1.5976;
+
+  private final double threshold;
+  private final boolean normal;
+  private final double factor;
+
+  /**
+   * @param threshold the phi to compare with.
+   * @param distribution of the detectors it is compared with, see {@link FailureDetector}.
+   */
+  public PhiThreshold(double threshold, String distribution) {
+    this.threshold = threshold;
+    this.normal = FailureDetector.isNormal(distribution);
+    this.factor = normal ? deviations(threshold) : means(threshold);
+  }
+
+  public double getThreshold() {
+    return threshold;
+  }
+
+  boolean isNormal() {
+    return normal;
+  }
+
+  /** the y or m the time since the latest heartbeat is compared with. */
+  double getFactor() {
+    return factor;
+  }
+
+  /**
+   * Phi is capped to infinity beyond FailureDetector.CERTAIN, so it is beyond any finite threshold
+   * at or over that exactly when the uncapped phi is beyond CERTAIN.
+   */
+  private static double effective(double threshold) {
+    return threshold == Double.POSITIVE_INFINITY
+        ? threshold
+        : Math.min(threshold, FailureDetector.CERTAIN);
+  }
+
+  /**
+   * @return y such that the normal phi is beyond the threshold exactly when beyond y.
+   */
+  private static double deviations(double threshold) {
+    double phi = effective(threshold);
+    if (phi == Double.POSITIVE_INFINITY) {
+      return Double.POSITIVE_INFINITY;
+    }
+    if (phi <= 0) {
+      return Double.NEGATIVE_INFINITY;
+    }
+    // solve y (A y^2 + B) = ln(10^phi - 1), which has a single real root, and polish it once.
+    double z = Math.log(Math.pow(10, phi) - 1);
+    double p = B / A;
+    double q = -z / A;
+    double d = Math.sqrt(q * q / 4 + p * p * p / 27);
+    double y = Math.cbrt(-q / 2 + d) + Math.cbrt(-q / 2 - d);
+    return y - (A * y * y * y + B * y - z) / (3 * A * y * y + B);
+  }
+
+  /**
+   * @return m such that the exponential phi is beyond the threshold exactly when beyond m means.
+   */
+  private static double means(double threshold) {
+    return effective(threshold) * FailureDetector.LN_10;
+  }
+}
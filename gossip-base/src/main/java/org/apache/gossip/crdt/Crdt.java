@@ -36,4 +36,29 @@ public interface Crdt<SetType, MergeReturnType extends Crdt<SetType, MergeReturn
    * @return the Crdt structure optimized
    */
   MergeReturnType optimize();
+
+  /**
+   * The part of this replica that {@code previous} does not hold yet, as a replica of its own.
+   * Merging the delta into {@code previous} gives the same state as merging this whole replica, so
+   * it can be gossiped in place of the whole state. Types that cannot tell what is new return the
+   * whole replica.
+   *
+   * @param previous the replica to compare with.
+   * @return the delta, or null if {@code previous} already holds everything in this replica.
+   */
+  @SuppressWarnings("unchecked")
+  default MergeReturnType delta(MergeReturnType previous) {
+    return (MergeReturnType) this;
+  }
+
+  /**
+   * A hash of everything a merge would exchange, so replicas with equal state hashes have nothing
+   * to send each other. Types whose equality only compares the value, while the replicas behind it
+   * can still differ, must override this.
+   *
+   * @return the hash of the replica state.
+   */
+  default int stateHash() {
+    return hashCode();
+  }
 }
@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.crdt;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.apache.gossip.lock.vote.MajorityVote;
+import org.apache.gossip.lock.vote.Vote;
+import org.apache.gossip.lock.vote.VoteCandidate;
+import org.apache.gossip.protocol.codec.BinaryInput;
+import org.apache.gossip.protocol.codec.BinaryOutput;
+import org.apache.gossip.protocol.codec.ValueCodec;
+import org.apache.gossip.protocol.codec.ValueCodecs;
+
+/**
+ * The binary protocol counterpart of {@link CrdtModule}: codecs for every type the module adds
+ * mixins for, writing the same state the mixins expose. Elements are written through the registry
+ * so a set may hold any value it can encode.
+ */
+public final class CrdtCodecs {
+
+  public static final int GROW_ONLY_COUNTER = 32;
+  public static final int PN_COUNTER = 33;
+  public static final int GROW_ONLY_SET = 34;
+  public static final int OR_SET = 35;
+  public static final int LWW_SET = 36;
+  public static final int MAX_CHANGE_SET = 37;
+  public static final int TWO_PHASE_SET = 38;
+  public static final int MAJORITY_VOTE = 39;
+
+  private CrdtCodecs() {}
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public static void registerAll(ValueCodecs codecs) {
+    codecs.register(
+        GROW_ONLY_COUNTER,
+        GrowOnlyCounter.class,
+        new ValueCodec<GrowOnlyCounter>() {
+          @Override
+          public void write(BinaryOutput out, GrowOnlyCounter value, ValueCodecs codecs) {
+            writeCounters(out, value.getCounters());
+          }
+
+          @Override
+          public GrowOnlyCounter read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return new GrowOnlyCounter(readCounters(in));
+          }
+        });
+    codecs.register(
+        PN_COUNTER,
+        PNCounter.class,
+        new ValueCodec<PNCounter>() {
+          @Override
+          public void write(BinaryOutput out, PNCounter value, ValueCodecs codecs) {
+            writeCounters(out, value.getPCounters());
+            writeCounters(out, value.getNCounters());
+          }
+
+          @Override
+          public PNCounter read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return new PNCounter(readCounters(in), readCounters(in));
+          }
+        });
+    codecs.register(
+        GROW_ONLY_SET,
+        GrowOnlySet.class,
+        new ValueCodec<GrowOnlySet>() {
+          @Override
+          public void write(BinaryOutput out, GrowOnlySet value, ValueCodecs codecs)
+              throws IOException {
+            codecs.writeCollection(out, value.getElements());
+          }
+
+          @Override
+          public GrowOnlySet read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return new GrowOnlySet<>(codecs.readCollection(in, new HashSet<>()));
+          }
+        });
+    codecs.register(
+        OR_SET,
+        OrSet.class,
+        new ValueCodec<OrSet>() {
+          @Override
+          public void write(BinaryOutput out, OrSet value, ValueCodecs codecs) throws IOException {
+            writeTags(out, value.getElements(), codecs);
+            writeTags(out, value.getTombstones(), codecs);
+          }
+
+          @Override
+          public OrSet read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return new OrSet<>(readTags(in, codecs), readTags(in, codecs));
+          }
+        });
+    codecs.register(
+        LWW_SET,
+        LwwSet.class,
+        new ValueCodec<LwwSet>() {
+          @Override
+          public void write(BinaryOutput out, LwwSet value, ValueCodecs codecs) throws IOException {
+            Map<Object, LwwSet.Timestamps> struct = value.getStruct();
+            out.writeVarInt(struct.size());
+            for (Map.Entry<Object, LwwSet.Timestamps> entry : struct.entrySet()) {
+              codecs.writeValue(out, entry.getKey());
+              out.writeSignedVarLong(entry.getValue().getLatestAdd());
+              out.writeSignedVarLong(entry.getValue().getLatestRemove());
+            }
+          }
+
+          @Override
+          public LwwSet read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            int size = in.readVarInt();
+            Map<Object, LwwSet.Timestamps> struct = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+              Object key = codecs.readValue(in);
+              struct.put(
+                  key, new LwwSet.Timestamps(in.readSignedVarLong(), in.readSignedVarLong()));
+            }
+            return new LwwSet<>(struct);
+          }
+        });
+    codecs.register(
+        MAX_CHANGE_SET,
+        MaxChangeSet.class,
+        new ValueCodec<MaxChangeSet>() {
+          @Override
+          public void write(BinaryOutput out, MaxChangeSet value, ValueCodecs codecs)
+              throws IOException {
+            Map<Object, Integer> struct = value.getStruct();
+            out.writeVarInt(struct.size());
+            for (Map.Entry<Object, Integer> entry : struct.entrySet()) {
+              codecs.writeValue(out, entry.getKey());
+              out.writeVarInt(entry.getValue());
+            }
+          }
+
+          @Override
+          public MaxChangeSet read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            int size = in.readVarInt();
+            Map<Object, Integer> struct = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+              Object key = codecs.readValue(in);
+              struct.put(key, in.readVarInt());
+            }
+            return new MaxChangeSet<>(struct);
+          }
+        });
+    codecs.register(
+        TWO_PHASE_SET,
+        TwoPhaseSet.class,
+        new ValueCodec<TwoPhaseSet>() {
+          @Override
+          public void write(BinaryOutput out, TwoPhaseSet value, ValueCodecs codecs)
+              throws IOException {
+            codecs.writeCollection(out, value.getAdded());
+            codecs.writeCollection(out, value.getRemoved());
+          }
+
+          @Override
+          public TwoPhaseSet read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return new TwoPhaseSet<>(
+                codecs.readCollection(in, new HashSet<>()),
+                codecs.readCollection(in, new HashSet<>()));
+          }
+        });
+    codecs.register(
+        MAJORITY_VOTE,
+        MajorityVote.class,
+        new ValueCodec<MajorityVote>() {
+          @Override
+          public void write(BinaryOutput out, MajorityVote value, ValueCodecs codecs) {
+            Map<String, VoteCandidate> candidates = value.getVoteCandidates();
+            out.writeVarInt(candidates.size());
+            for (Map.Entry<String, VoteCandidate> entry : candidates.entrySet()) {
+              out.writeSymbol(entry.getKey());
+              writeCandidate(out, entry.getValue());
+            }
+          }
+
+          @Override
+          public MajorityVote read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            int size = in.readVarInt();
+            Map<String, VoteCandidate> candidates = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+              String key = in.readSymbol();
+              candidates.put(key, readCandidate(in));
+            }
+            return new MajorityVote(candidates);
+          }
+        });
+  }
+
+  private static void writeCounters(BinaryOutput out, Map<String, Long> counters) {
+    out.writeVarInt(counters.size());
+    for (Map.Entry<String, Long> entry : counters.entrySet()) {
+      out.writeSymbol(entry.getKey());
+      out.writeSignedVarLong(entry.getValue());
+    }
+  }
+
+  private static Map<String, Long> readCounters(BinaryInput in) throws IOException {
+    int size = in.readVarInt();
+    Map<String, Long> counters = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      String key = in.readSymbol();
+      counters.put(key, in.readSignedVarLong());
+    }
+    return counters;
+  }
+
+  private static void writeTags(BinaryOutput out, Map<Object, Set<UUID>> tags, ValueCodecs codecs)
+      throws IOException {
+    out.writeVarInt(tags.size());
+    for (Map.Entry<Object, Set<UUID>> entry : tags.entrySet()) {
+      codecs.writeValue(out, entry.getKey());
+      out.writeVarInt(entry.getValue().size());
+      for (UUID uuid : entry.getValue()) {
+        out.writeUuid(uuid);
+      }
+    }
+  }
+
+  private static Map<Object, Set<UUID>> readTags(BinaryInput in, ValueCodecs codecs)
+      throws IOException {
+    int size = in.readVarInt();
+    Map<Object, Set<UUID>> tags = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      Object key = codecs.readValue(in);
+      int count = in.readVarInt();
+      Set<UUID> uuids = new HashSet<>();
+      for (int j = 0; j < count; j++) {
+        uuids.add(in.readUuid());
+      }
+      tags.put(key, uuids);
+    }
+    return tags;
+  }
+
+  private static void writeCandidate(BinaryOutput out, VoteCandidate candidate) {
+    out.writeSymbol(candidate.getCandidateNodeId());
+    out.writeSymbol(candidate.getVotingKey());
+    Map<String, Vote> votes = candidate.getVotes();
+    out.writeVarInt(votes.size());
+    for (Map.Entry<String, Vote> entry : votes.entrySet()) {
+      Vote vote = entry.getValue();
+      out.writeSymbol(entry.getKey());
+      out.writeSymbol(vote.getVotingNode());
+      writeNullableBoolean(out, vote.getVoteValue());
+      writeNullableBoolean(out, vote.getVoteExchange());
+      writeSymbols(out, vote.getLiveMembers());
+      writeSymbols(out, vote.getDeadMembers());
+    }
+  }
+
+  private static VoteCandidate readCandidate(BinaryInput in) throws IOException {
+    String candidateNodeId = in.readSymbol();
+    String votingKey = in.readSymbol();
+    int size = in.readVarInt();
+    Map<String, Vote> votes = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      String key = in.readSymbol();
+      votes.put(
+          key,
+          new Vote(
+              in.readSymbol(),
+              readNullableBoolean(in),
+              readNullableBoolean(in),
+              readSymbols(in),
+              readSymbols(in)));
+    }
+    return new VoteCandidate(candidateNodeId, votingKey, votes);
+  }
+
+  private static void writeNullableBoolean(BinaryOutput out, Boolean value) {
+    out.writeByte(value == null ? 0 : value ? 2 : 1);
+  }
+
+  private static Boolean readNullableBoolean(BinaryInput in) throws IOException {
+    int b = in.readByte();
+    return b == 0 ? null : b == 2;
+  }
+
+  private static void writeSymbols(BinaryOutput out, List<String> values) {
+    if (values == null) {
+      out.writeVarInt(0);
+      return;
+    }
+    out.writeVarInt(values.size() + 1);
+    for (String value : values) {
+      out.writeSymbol(value);
+    }
+  }
+
+  private static List<String> readSymbols(BinaryInput in) throws IOException {
+    int size = in.readVarInt() - 1;
+    if (size < 0) {
+      return null;
+    }
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      values.add(in.readSymbol());
+    }
+    return values;
+  }
+}
@@ -82,6 +82,19 @@ public class GrowOnlyCounter implements CrdtCounter<Long, GrowOnlyCounter> {
     return new GrowOnlyCounter(counters);
   }
 
+  /** Only the counts of the nodes that incremented since {@code previous}. */
+  @Override
+  public GrowOnlyCounter delta(GrowOnlyCounter previous) {
+    Map<String, Long> changed = new HashMap<>();
+    for (Map.Entry<String, Long> entry : counters.entrySet()) {
+      Long known = previous.counters.get(entry.getKey());
+      if (known == null || known < entry.getValue()) {
+        changed.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return changed.isEmpty() ? null : new GrowOnlyCounter(changed);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (getClass() != obj.getClass()) return false;
@@ -89,6 +102,17 @@ public class GrowOnlyCounter implements CrdtCounter<Long, GrowOnlyCounter> {
     return value().longValue() == other.value().longValue();
   }
 
+  @Override
+  public int hashCode() {
+    return value().hashCode();
+  }
+
+  /** Replicas with the same total can still hold different counts per node. */
+  @Override
+  public int stateHash() {
+    return counters.hashCode();
+  }
+
   @Override
   public String toString() {
     return "GrowOnlyCounter [counters= " + counters + ", Value=" + value() + "]";
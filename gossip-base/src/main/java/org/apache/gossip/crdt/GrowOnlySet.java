@@ -65,6 +65,17 @@ public class GrowOnlySet<ElementType>
     return new GrowOnlySet<>(hidden);
   }
 
+  @Override
+  public GrowOnlySet<ElementType> delta(GrowOnlySet<ElementType> previous) {
+    Set<ElementType> added = new LinkedHashSet<>();
+    for (ElementType e : hidden) {
+      if (!previous.hidden.contains(e)) {
+        added.add(e);
+      }
+    }
+    return added.isEmpty() ? null : new GrowOnlySet<>(added);
+  }
+
   public int size() {
     return hidden.size();
   }
@@ -122,12 +122,32 @@ public class LwwSet<ElementType>
     return this;
   }
 
+  /** Only the elements added or removed later than {@code previous} knows. */
+  @Override
+  public LwwSet<ElementType> delta(LwwSet<ElementType> previous) {
+    Map<ElementType, Timestamps> changed = new HashMap<>();
+    for (Map.Entry<ElementType, Timestamps> entry : struct.entrySet()) {
+      Timestamps known = previous.struct.get(entry.getKey());
+      if (known == null
+          || known.getLatestAdd() < entry.getValue().getLatestAdd()
+          || known.getLatestRemove() < entry.getValue().getLatestRemove()) {
+        changed.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return changed.isEmpty() ? null : new LwwSet<>(changed);
+  }
+
   @Override
   public boolean equals(Object obj) {
     return this == obj
         || (obj != null && getClass() == obj.getClass() && value().equals(((LwwSet) obj).value()));
   }
 
+  @Override
+  public int hashCode() {
+    return value().hashCode();
+  }
+
   static class Timestamps {
     private final long latestAdd;
     private final long latestRemove;
@@ -114,6 +114,18 @@ public class MaxChangeSet<ElementType>
     return this;
   }
 
+  /** Only the elements that changed more often than {@code previous} knows. */
+  @Override
+  public MaxChangeSet<ElementType> delta(MaxChangeSet<ElementType> previous) {
+    Map<ElementType, Integer> changed = new HashMap<>();
+    for (Map.Entry<ElementType, Integer> entry : struct.entrySet()) {
+      if (previous.struct.getOrDefault(entry.getKey(), 0) < entry.getValue()) {
+        changed.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return changed.isEmpty() ? null : new MaxChangeSet<>(changed);
+  }
+
   @Override
   public boolean equals(Object obj) {
     return this == obj
@@ -121,4 +133,9 @@ public class MaxChangeSet<ElementType>
             && getClass() == obj.getClass()
             && value().equals(((MaxChangeSet) obj).value()));
   }
+
+  @Override
+  public int hashCode() {
+    return value().hashCode();
+  }
 }
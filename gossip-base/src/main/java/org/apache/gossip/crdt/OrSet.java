@@ -167,6 +167,32 @@ public class OrSet<E> implements CrdtAddRemoveSet<E, Set<E>, OrSet<E>> {
     return this;
   }
 
+  /** Only the tags {@code previous} has not seen, usually the ones of the last add or remove. */
+  @Override
+  public OrSet<E> delta(OrSet<E> previous) {
+    Map<E, Set<UUID>> newElements = newTags(elements, previous.elements);
+    Map<E, Set<UUID>> newTombstones = newTags(tombstones, previous.tombstones);
+    if (newElements.isEmpty() && newTombstones.isEmpty()) {
+      return null;
+    }
+    return new OrSet<>(newElements, newTombstones);
+  }
+
+  private static <E> Map<E, Set<UUID>> newTags(Map<E, Set<UUID>> mine, Map<E, Set<UUID>> theirs) {
+    Map<E, Set<UUID>> result = new HashMap<>();
+    for (Entry<E, Set<UUID>> entry : mine.entrySet()) {
+      Set<UUID> known = theirs.get(entry.getKey());
+      if (known == null) {
+        result.put(entry.getKey(), entry.getValue());
+      } else if (!known.containsAll(entry.getValue())) {
+        Set<UUID> unknown = new HashSet<>(entry.getValue());
+        unknown.removeAll(known);
+        result.put(entry.getKey(), unknown);
+      }
+    }
+    return result;
+  }
+
   public int size() {
     return value().size();
   }
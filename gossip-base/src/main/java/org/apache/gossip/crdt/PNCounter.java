@@ -17,6 +17,7 @@
  */
 package org.apache.gossip.crdt;
 
+import java.util.Collections;
 import java.util.Map;
 import org.apache.gossip.manager.GossipManager;
 
@@ -72,6 +73,18 @@ public class PNCounter implements CrdtCounter<Long, PNCounter> {
     return new PNCounter(pCount.getCounters(), nCount.getCounters());
   }
 
+  @Override
+  public PNCounter delta(PNCounter previous) {
+    GrowOnlyCounter pDelta = pCount.delta(previous.pCount);
+    GrowOnlyCounter nDelta = nCount.delta(previous.nCount);
+    if (pDelta == null && nDelta == null) {
+      return null;
+    }
+    return new PNCounter(
+        pDelta == null ? Collections.emptyMap() : pDelta.getCounters(),
+        nDelta == null ? Collections.emptyMap() : nDelta.getCounters());
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (getClass() != obj.getClass()) return false;
@@ -79,6 +92,16 @@ public class PNCounter implements CrdtCounter<Long, PNCounter> {
     return value().longValue() == other.value().longValue();
   }
 
+  @Override
+  public int hashCode() {
+    return value().hashCode();
+  }
+
+  @Override
+  public int stateHash() {
+    return 31 * pCount.stateHash() + nCount.stateHash();
+  }
+
   @Override
   public String toString() {
     return "PnCounter [pCount=" + pCount + ", nCount=" + nCount + ", value=" + value() + "]";
@@ -116,4 +116,9 @@ public class TwoPhaseSet<ElementType>
             && getClass() == obj.getClass()
             && value().equals(((TwoPhaseSet) obj).value()));
   }
+
+  @Override
+  public int hashCode() {
+    return value().hashCode();
+  }
 }
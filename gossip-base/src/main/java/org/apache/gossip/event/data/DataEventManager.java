@@ -19,25 +19,23 @@ package org.apache.gossip.event.data;
 
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
-import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 public class DataEventManager {
 
-  private final List<UpdateNodeDataEventHandler> perNodeDataHandlers;
+  private final SubscriberIndex<UpdateNodeDataEventHandler> perNodeDataHandlers;
   private final BlockingQueue<Runnable> perNodeDataHandlerQueue;
   private final ExecutorService perNodeDataEventExecutor;
-  private final List<UpdateSharedDataEventHandler> sharedDataHandlers;
+  private final SubscriberIndex<UpdateSharedDataEventHandler> sharedDataHandlers;
   private final BlockingQueue<Runnable> sharedDataHandlerQueue;
   private final ExecutorService sharedDataEventExecutor;
 
   public DataEventManager(MetricRegistry metrics) {
-    perNodeDataHandlers = new CopyOnWriteArrayList<>();
+    perNodeDataHandlers = new SubscriberIndex<>();
     perNodeDataHandlerQueue = new ArrayBlockingQueue<>(DataEventConstants.PER_NODE_DATA_QUEUE_SIZE);
     perNodeDataEventExecutor =
         new ThreadPoolExecutor(
@@ -48,7 +46,7 @@ public class DataEventManager {
             perNodeDataHandlerQueue,
             new ThreadPoolExecutor.DiscardOldestPolicy());
 
-    sharedDataHandlers = new CopyOnWriteArrayList<>();
+    sharedDataHandlers = new SubscriberIndex<>();
     sharedDataHandlerQueue = new ArrayBlockingQueue<>(DataEventConstants.SHARED_DATA_QUEUE_SIZE);
     sharedDataEventExecutor =
         new ThreadPoolExecutor(
@@ -61,36 +59,52 @@ public class DataEventManager {
 
     metrics.register(
         DataEventConstants.PER_NODE_DATA_SUBSCRIBERS_SIZE,
-        (Gauge<Integer>) () -> perNodeDataHandlers.size());
+        (Gauge<Integer>) perNodeDataHandlers::size);
     metrics.register(
         DataEventConstants.PER_NODE_DATA_SUBSCRIBERS_QUEUE_SIZE,
         (Gauge<Integer>) () -> perNodeDataHandlerQueue.size());
     metrics.register(
-        DataEventConstants.SHARED_DATA_SUBSCRIBERS_SIZE,
-        (Gauge<Integer>) () -> sharedDataHandlers.size());
+        DataEventConstants.SHARED_DATA_SUBSCRIBERS_SIZE, (Gauge<Integer>) sharedDataHandlers::size);
     metrics.register(
         DataEventConstants.SHARED_DATA_SUBSCRIBERS_QUEUE_SIZE,
         (Gauge<Integer>) () -> sharedDataHandlerQueue.size());
   }
 
+  /** Notifies the handlers subscribed to the key, without a task for any other handler. */
   public void notifySharedData(final String key, final Object newValue, final Object oldValue) {
     sharedDataHandlers.forEach(
+        key,
         handler ->
             sharedDataEventExecutor.execute(() -> handler.onUpdate(key, oldValue, newValue)));
   }
 
+  /** Notifies the handlers subscribed to the key, without a task for any other handler. */
   public void notifyPerNodeData(
       final String nodeId, final String key, final Object newValue, final Object oldValue) {
     perNodeDataHandlers.forEach(
+        key,
         handler ->
             perNodeDataEventExecutor.execute(
                 () -> handler.onUpdate(nodeId, key, oldValue, newValue)));
   }
 
+  /** Subscribes the handler to every per-node data key. */
   public void registerPerNodeDataSubscriber(UpdateNodeDataEventHandler handler) {
-    perNodeDataHandlers.add(handler);
+    perNodeDataHandlers.addPrefix("", handler);
   }
 
+  /** Subscribes the handler to changes of one per-node data key, on any node. */
+  public void registerPerNodeDataSubscriber(String key, UpdateNodeDataEventHandler handler) {
+    perNodeDataHandlers.addKey(key, handler);
+  }
+
+  /** Subscribes the handler to the per-node data keys starting with the prefix, on any node. */
+  public void registerPerNodeDataPrefixSubscriber(
+      String prefix, UpdateNodeDataEventHandler handler) {
+    perNodeDataHandlers.addPrefix(prefix, handler);
+  }
+
+  /** Removes every subscription of the handler. */
   public void unregisterPerNodeDataSubscriber(UpdateNodeDataEventHandler handler) {
     perNodeDataHandlers.remove(handler);
   }
@@ -99,10 +113,23 @@ public class DataEventManager {
     return perNodeDataHandlers.size();
   }
 
+  /** Subscribes the handler to every shared data key. */
   public void registerSharedDataSubscriber(UpdateSharedDataEventHandler handler) {
-    sharedDataHandlers.add(handler);
+    sharedDataHandlers.addPrefix("", handler);
+  }
+
+  /** Subscribes the handler to changes of one shared data key. */
+  public void registerSharedDataSubscriber(String key, UpdateSharedDataEventHandler handler) {
+    sharedDataHandlers.addKey(key, handler);
+  }
+
+  /** Subscribes the handler to the shared data keys starting with the prefix. */
+  public void registerSharedDataPrefixSubscriber(
+      String prefix, UpdateSharedDataEventHandler handler) {
+    sharedDataHandlers.addPrefix(prefix, handler);
   }
 
+  /** Removes every subscription of the handler. */
   public void unregisterSharedDataSubscriber(UpdateSharedDataEventHandler handler) {
     sharedDataHandlers.remove(handler);
   }
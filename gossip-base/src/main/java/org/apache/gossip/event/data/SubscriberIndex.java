@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.event.data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Handlers by the data keys they subscribed to, exactly or by prefix, in a trie over the key
+ * characters. Finding the handlers for a key walks at most the length of the key, however many
+ * handlers are registered. Lookups take no lock; subscribing and unsubscribing are rare and
+ * serialized.
+ *
+ * @param <H> the handler type.
+ */
+class SubscriberIndex<H> {
+
+  private static class Node<H> {
+    final Map<Character, Node<H>> children = new ConcurrentHashMap<>();
+    final List<H> prefixHandlers = new CopyOnWriteArrayList<>();
+    final List<H> keyHandlers = new CopyOnWriteArrayList<>();
+
+    boolean isEmpty() {
+      return children.isEmpty() && prefixHandlers.isEmpty() && keyHandlers.isEmpty();
+    }
+  }
+
+  private final Node<H> root = new Node<>();
+  private volatile int size;
+
+  /**
+   * @param prefix the keys to notify the handler of, the empty string for all of them.
+   * @param handler to notify.
+   */
+  synchronized void addPrefix(String prefix, H handler) {
+    node(prefix).prefixHandlers.add(handler);
+    size++;
+  }
+
+  /**
+   * @param key the only key to notify the handler of.
+   * @param handler to notify.
+   */
+  synchronized void addKey(String key, H handler) {
+    node(key).keyHandlers.add(handler);
+    size++;
+  }
+
+  private Node<H> node(String key) {
+    Node<H> node = root;
+    for (int i = 0; i < key.length(); i++) {
+      node = node.children.computeIfAbsent(key.charAt(i), c -> new Node<>());
+    }
+    return node;
+  }
+
+  /** Removes every subscription of the handler. */
+  synchronized void remove(H handler) {
+    remove(root, handler);
+  }
+
+  private void remove(Node<H> node, H handler) {
+    while (node.prefixHandlers.remove(handler)) {
+      size--;
+    }
+    while (node.keyHandlers.remove(handler)) {
+      size--;
+    }
+    node.children
+        .entrySet()
+        .removeIf(
+            child -> {
+              remove(child.getValue(), handler);
+              return child.getValue().isEmpty();
+            });
+  }
+
+  /**
+   * @return the number of subscriptions.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * @param key that changed.
+   * @param action run for every handler subscribed to the key, once per subscription.
+   */
+  void forEach(String key, Consumer<H> action) {
+    Node<H> node = root;
+    for (int i = 0; ; i++) {
+      node.prefixHandlers.forEach(action);
+      if (i == key.length()) {
+        node.keyHandlers.forEach(action);
+        return;
+      }
+      node = node.children.get(key.charAt(i));
+      if (node == null) {
+        return;
+      }
+    }
+  }
+}
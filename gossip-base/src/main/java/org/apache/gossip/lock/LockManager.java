@@ -67,12 +67,8 @@ public class LockManager {
     metrics.register(LOCK_KEY_SET_SIZE, (Gauge<Integer>) lockKeys::size);
     lockTimeMetric = metrics.timer(LOCK_TIME);
     // Register listener for lock keys
-    gossipManager.registerSharedDataSubscriber(
-        (key, oldValue, newValue) -> {
-          if (key.contains("lock/")) {
-            lockKeys.add(key);
-          }
-        });
+    gossipManager.registerSharedDataPrefixSubscriber(
+        generateLockKey(""), (key, oldValue, newValue) -> lockKeys.add(key));
     voteService = Executors.newScheduledThreadPool(2);
     voteService.scheduleAtFixedRate(
         this::updateVotes, 0, lockSettings.getVoteUpdateInterval(), TimeUnit.MILLISECONDS);
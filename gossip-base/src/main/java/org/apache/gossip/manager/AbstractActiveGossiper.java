@@ -21,21 +21,33 @@ import static com.codahale.metrics.MetricRegistry.name;
 
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.gossip.GossipSettings;
 import org.apache.gossip.LocalMember;
+import org.apache.gossip.crdt.Crdt;
 import org.apache.gossip.model.ActiveGossipOk;
 import org.apache.gossip.model.Member;
 import org.apache.gossip.model.PerNodeDataMessage;
 import org.apache.gossip.model.Response;
 import org.apache.gossip.model.SharedDataMessage;
 import org.apache.gossip.model.ShutdownMessage;
+import org.apache.gossip.model.TreeHash;
 import org.apache.gossip.udp.*;
+import org.apache.gossip.utils.ReflectionUtils;
 
 /**
  * The ActiveGossipThread sends information. Pick a random partner and send the membership list to
@@ -49,8 +61,11 @@ public abstract class AbstractActiveGossiper {
   private final Histogram sharedDataHistogram;
   private final Histogram sendPerNodeDataHistogram;
   private final Histogram sendMembershipHistogram;
+  private final Histogram sendGossipRoundHistogram;
   private final Random random;
   private final GossipSettings gossipSettings;
+  private final AtomicLong sharedDataRounds = new AtomicLong();
+  private final AdaptiveSchedule adaptiveSchedule;
 
   public AbstractActiveGossiper(
       GossipManager gossipManager, GossipCore gossipCore, MetricRegistry registry) {
@@ -62,11 +77,84 @@ public abstract class AbstractActiveGossiper {
         registry.histogram(name(AbstractActiveGossiper.class, "sendPerNodeDataHistogram-time"));
     sendMembershipHistogram =
         registry.histogram(name(AbstractActiveGossiper.class, "sendMembershipHistogram-time"));
+    sendGossipRoundHistogram =
+        registry.histogram(name(AbstractActiveGossiper.class, "sendGossipRoundHistogram-time"));
     random = new Random();
     gossipSettings = gossipManager.getSettings();
+    adaptiveSchedule =
+        gossipSettings.getMaxGossipInterval() > 0
+            ? new AdaptiveSchedule(
+                gossipSettings.getGossipInterval(),
+                gossipSettings.getMaxGossipInterval(),
+                gossipSettings.getMaxFanout(),
+                gossipCore::getChangeCount,
+                registry,
+                gossipManager.getClock().nanoTime())
+            : null;
   }
 
-  public void init() {}
+  public void init() {
+    if (adaptiveSchedule != null) {
+      gossipManager.registerGossipListener(
+          (member, state) -> adaptiveSchedule.changed(gossipManager.getClock().nanoTime()));
+    }
+  }
+
+  /**
+   * @return whether rounds follow the adaptive schedule rather than fixed intervals.
+   */
+  protected final boolean isAdaptive() {
+    return adaptiveSchedule != null;
+  }
+
+  /**
+   * Runs a round now and again after each delay the adaptive schedule gives for the interval, each
+   * round going to as many distinct members as the schedule's fanout. Only for data rounds: the
+   * failure detector judges members by the gaps between their heartbeats, so rounds carrying
+   * heartbeats must keep a steady pace or healthy members are convicted once the cluster is quiet.
+   *
+   * @param scheduler schedules the rounds, they stop once it shuts down.
+   * @param workers sends to the chosen members.
+   * @param interval the base interval of this kind of round.
+   * @param members the members to choose from.
+   * @param selector chooses among them.
+   * @param round sends from myself to one chosen member.
+   */
+  protected final void scheduleAdaptive(
+      ScheduledExecutorService scheduler,
+      Executor workers,
+      int interval,
+      Supplier<List<LocalMember>> members,
+      PartnerSelector selector,
+      BiConsumer<LocalMember, LocalMember> round) {
+    scheduler.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              List<LocalMember> candidates = members.get();
+              int fanout =
+                  adaptiveSchedule.fanout(candidates.size(), gossipManager.getClock().nanoTime());
+              List<LocalMember> partners = selector.select(candidates, fanout);
+              for (LocalMember partner : partners) {
+                workers.execute(() -> round.accept(gossipManager.getMyself(), partner));
+              }
+              adaptiveSchedule.sent(partners.size());
+            } catch (RuntimeException e) {
+              log.warn("Adaptive gossip round failed", e);
+            } finally {
+              try {
+                scheduler.schedule(
+                    this,
+                    adaptiveSchedule.nextDelay(interval, gossipManager.getClock().nanoTime()),
+                    TimeUnit.MILLISECONDS);
+              } catch (RejectedExecutionException e) {
+                log.debug("Adaptive gossip stopped", e);
+              }
+            }
+          }
+        });
+  }
 
   public void shutdown() {}
 
@@ -85,67 +173,34 @@ public abstract class AbstractActiveGossiper {
       return;
     }
     long startTime = System.currentTimeMillis();
-    if (gossipSettings.isBulkTransfer()) {
-      sendSharedDataInBulkInternal(me, member);
-    } else {
-      sendSharedDataInternal(me, member);
+    boolean crdtDeltas = gossipSettings.getCrdtDeltaRounds() > 0;
+    if (crdtDeltas) {
+      gossipCore.sendSharedData(me, member, gossipCore.takeSharedDataDeltas());
     }
-    sharedDataHistogram.update(System.currentTimeMillis() - startTime);
-  }
-
-  /** Send shared data one entry at a time. */
-  private void sendSharedDataInternal(LocalMember me, LocalMember member) {
-    for (Entry<String, SharedDataMessage> innerEntry : gossipCore.getSharedData().entrySet()) {
-      if (innerEntry.getValue().getReplicable() != null
-          && !innerEntry
-              .getValue()
-              .getReplicable()
-              .shouldReplicate(me, member, innerEntry.getValue())) {
-        continue;
-      }
-      UdpSharedDataMessage message = new UdpSharedDataMessage();
-      message.setUuid(UUID.randomUUID().toString());
-      message.setUriFrom(me.getId());
-      copySharedDataMessage(innerEntry.getValue(), message);
-      gossipCore.sendOneWay(message, member.getUri());
-    }
-  }
-
-  /** Send shared data by batching together several entries. */
-  private void sendSharedDataInBulkInternal(LocalMember me, LocalMember member) {
-    UdpSharedDataBulkMessage udpMessage = new UdpSharedDataBulkMessage();
-    udpMessage.setUuid(UUID.randomUUID().toString());
-    udpMessage.setUriFrom(me.getId());
-    for (Entry<String, SharedDataMessage> innerEntry : gossipCore.getSharedData().entrySet()) {
-      if (innerEntry.getValue().getReplicable() != null
-          && !innerEntry
-              .getValue()
-              .getReplicable()
-              .shouldReplicate(me, member, innerEntry.getValue())) {
-        continue;
-      }
-      SharedDataMessage message = new SharedDataMessage();
-      copySharedDataMessage(innerEntry.getValue(), message);
-      udpMessage.addMessage(message);
-      if (udpMessage.getMessages().size() == gossipSettings.getBulkTransferSize()) {
-        gossipCore.sendOneWay(udpMessage, member.getUri());
-        udpMessage = new UdpSharedDataBulkMessage();
-        udpMessage.setUuid(UUID.randomUUID().toString());
-        udpMessage.setUriFrom(me.getId());
+    if (gossipCore.getDataTreeDepth() > 0) {
+      // the member walks down from the root to what differs, see DataTreeMessageHandler.
+      long root = gossipCore.getDataTree(null).hash(RangeHashTree.ROOT);
+      gossipCore.sendDataTree(
+          me,
+          member.getUri(),
+          Collections.singletonList(new TreeHash(null, RangeHashTree.ROOT, root)));
+    } else if (gossipSettings.isSharedDataDigest()) {
+      // the member answers by sending what it holds newer and asking for what it is missing.
+      gossipCore.sendDataDigests(me, member, null, null);
+    } else if (crdtDeltas
+        && sharedDataRounds.incrementAndGet() % gossipSettings.getCrdtDeltaRounds() != 0) {
+      // CRDT changes went out as deltas, their whole state is only sent now and then.
+      List<SharedDataMessage> entries = new ArrayList<>();
+      for (SharedDataMessage entry : gossipCore.getSharedData().values()) {
+        if (!(entry.getPayload() instanceof Crdt)) {
+          entries.add(entry);
+        }
       }
+      gossipCore.sendSharedData(me, member, entries);
+    } else {
+      gossipCore.sendSharedData(me, member, gossipCore.getSharedData().values());
     }
-    if (!udpMessage.getMessages().isEmpty()) {
-      gossipCore.sendOneWay(udpMessage, member.getUri());
-    }
-  }
-
-  private void copySharedDataMessage(SharedDataMessage original, SharedDataMessage copy) {
-    copy.setExpireAt(original.getExpireAt());
-    copy.setKey(original.getKey());
-    copy.setNodeId(original.getNodeId());
-    copy.setTimestamp(original.getTimestamp());
-    copy.setPayload(original.getPayload());
-    copy.setReplicable(original.getReplicable());
+    sharedDataHistogram.update(System.currentTimeMillis() - startTime);
   }
 
   public final void sendPerNodeData(LocalMember me, LocalMember member) {
@@ -153,73 +208,24 @@ public abstract class AbstractActiveGossiper {
       return;
     }
     long startTime = System.currentTimeMillis();
-    if (gossipSettings.isBulkTransfer()) {
-      sendPerNodeDataInBulkInternal(me, member);
-    } else {
-      sendPerNodeDataInternal(me, member);
-    }
-    sendPerNodeDataHistogram.update(System.currentTimeMillis() - startTime);
-  }
-
-  /** Send per node data one entry at a time. */
-  private void sendPerNodeDataInternal(LocalMember me, LocalMember member) {
-    for (Entry<String, ConcurrentHashMap<String, PerNodeDataMessage>> entry :
-        gossipCore.getPerNodeData().entrySet()) {
-      for (Entry<String, PerNodeDataMessage> innerEntry : entry.getValue().entrySet()) {
-        if (innerEntry.getValue().getReplicable() != null
-            && !innerEntry
-                .getValue()
-                .getReplicable()
-                .shouldReplicate(me, member, innerEntry.getValue())) {
-          continue;
-        }
-        UdpPerNodeDataMessage message = new UdpPerNodeDataMessage();
-        message.setUuid(UUID.randomUUID().toString());
-        message.setUriFrom(me.getId());
-        copyPerNodeDataMessage(innerEntry.getValue(), message);
-        gossipCore.sendOneWay(message, member.getUri());
-      }
-    }
-  }
-
-  /** Send per node data by batching together several entries. */
-  private void sendPerNodeDataInBulkInternal(LocalMember me, LocalMember member) {
-    for (Entry<String, ConcurrentHashMap<String, PerNodeDataMessage>> entry :
-        gossipCore.getPerNodeData().entrySet()) {
-      UdpPerNodeDataBulkMessage udpMessage = new UdpPerNodeDataBulkMessage();
-      udpMessage.setUuid(UUID.randomUUID().toString());
-      udpMessage.setUriFrom(me.getId());
-      for (Entry<String, PerNodeDataMessage> innerEntry : entry.getValue().entrySet()) {
-        if (innerEntry.getValue().getReplicable() != null
-            && !innerEntry
-                .getValue()
-                .getReplicable()
-                .shouldReplicate(me, member, innerEntry.getValue())) {
-          continue;
-        }
-        PerNodeDataMessage message = new PerNodeDataMessage();
-        copyPerNodeDataMessage(innerEntry.getValue(), message);
-        udpMessage.addMessage(message);
-        if (udpMessage.getMessages().size() == gossipSettings.getBulkTransferSize()) {
-          gossipCore.sendOneWay(udpMessage, member.getUri());
-          udpMessage = new UdpPerNodeDataBulkMessage();
-          udpMessage.setUuid(UUID.randomUUID().toString());
-          udpMessage.setUriFrom(me.getId());
-        }
+    if (gossipSettings.getPerNodeDataLogSize() > 0) {
+      gossipCore.sendPerNodeDataChanges(me, member);
+    } else if (gossipCore.getDataTreeDepth() > 0) {
+      List<TreeHash> roots = new ArrayList<>();
+      for (String owner : gossipCore.getPerNodeData().keySet()) {
+        RangeHashTree tree = gossipCore.getDataTree(owner);
+        roots.add(
+            new TreeHash(
+                owner, RangeHashTree.ROOT, tree == null ? 0 : tree.hash(RangeHashTree.ROOT)));
       }
-      if (udpMessage.getMessages().size() > 0) {
-        gossipCore.sendOneWay(udpMessage, member.getUri());
+      gossipCore.sendDataTree(me, member.getUri(), roots);
+    } else {
+      for (ConcurrentHashMap<String, PerNodeDataMessage> entries :
+          gossipCore.getPerNodeData().values()) {
+        gossipCore.sendPerNodeData(me, member, entries.values());
       }
     }
-  }
-
-  private void copyPerNodeDataMessage(PerNodeDataMessage original, PerNodeDataMessage copy) {
-    copy.setExpireAt(original.getExpireAt());
-    copy.setKey(original.getKey());
-    copy.setNodeId(original.getNodeId());
-    copy.setTimestamp(original.getTimestamp());
-    copy.setPayload(original.getPayload());
-    copy.setReplicable(original.getReplicable());
+    sendPerNodeDataHistogram.update(System.currentTimeMillis() - startTime);
   }
 
   /** Performs the sending of the membership list, after we have incremented our own heartbeat. */
@@ -236,6 +242,9 @@ public abstract class AbstractActiveGossiper {
     for (LocalMember other : gossipManager.getMembers().keySet()) {
       message.getMembers().add(convert(other));
     }
+    if (gossipManager.getProber() != null) {
+      message.setSuspects(gossipManager.getProber().getSuspects());
+    }
     Response r = gossipCore.send(message, member.getUri());
     if (r instanceof ActiveGossipOk) {
       // maybe count metrics here
@@ -245,6 +254,29 @@ public abstract class AbstractActiveGossiper {
     sendMembershipHistogram.update(System.currentTimeMillis() - startTime);
   }
 
+  /**
+   * Sends one combined gossip round, after we have incremented our own heartbeat: the membership
+   * list and the recent data updates in a single message of at most the combined gossip size.
+   */
+  protected void sendGossipRound(LocalMember me, LocalMember member) {
+    if (member == null) {
+      return;
+    }
+    long startTime = System.currentTimeMillis();
+    me.setHeartbeat(System.nanoTime());
+    List<Member> members = new ArrayList<>();
+    members.add(convert(me));
+    for (LocalMember other : gossipManager.getMembers().keySet()) {
+      members.add(convert(other));
+    }
+    Map<String, Long> suspects =
+        gossipManager.getProber() == null
+            ? Collections.emptyMap()
+            : gossipManager.getProber().getSuspects();
+    gossipCore.sendGossipRound(me, member, members, suspects);
+    sendGossipRoundHistogram.update(System.currentTimeMillis() - startTime);
+  }
+
   protected final Member convert(LocalMember member) {
     Member gm = new Member();
     gm.setCluster(member.getClusterName());
@@ -255,6 +287,14 @@ public abstract class AbstractActiveGossiper {
     return gm;
   }
 
+  /**
+   * @return a new selector of the configured class, gossipers keep one per kind of round.
+   */
+  protected final PartnerSelector newPartnerSelector() {
+    return ReflectionUtils.constructWithReflection(
+        gossipSettings.getPartnerSelectorClass(), new Class<?>[] {}, new Object[] {});
+  }
+
   /**
    * @param memberList An immutable list
    * @return The chosen LocalGossipMember to gossip with.
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides how long a gossiper waits between rounds and to how many members each round goes. While
+ * data changes or members come and go the rounds run at their configured interval and reach up to
+ * log2(n + 1) members, so updates spread in fewer rounds. Once things are quiet each delay grows
+ * with the time since the last change, which doubles it round after round, up to the maximum
+ * interval, and a round reaches a single member. Any change brings back the short interval.
+ */
+public class AdaptiveSchedule implements GossipCoreConstants {
+
+  /** rounds at the base interval after a change during which the cluster counts as busy. */
+  static final int ACTIVE_ROUNDS = 10;
+
+  private final int gossipInterval;
+  private final int maxInterval;
+  private final int maxFanout;
+  private final LongSupplier changes;
+  private final Meter messages;
+  private final Histogram convergenceTime;
+  private long changeCount;
+  private long lastChange;
+  private long burstStart;
+  private boolean busy = true;
+  private volatile long interval;
+  private volatile int fanout = 1;
+
+  /**
+   * @param gossipInterval the base interval, the cluster stays busy for ACTIVE_ROUNDS of it.
+   * @param maxInterval the longest delay between rounds while quiet.
+   * @param maxFanout the most members a round goes to while busy.
+   * @param changes a counter that moves whenever data or membership changes.
+   * @param metrics where the interval, fanout, messages sent and convergence time are reported.
+   * @param now the current nano time.
+   */
+  public AdaptiveSchedule(
+      int gossipInterval,
+      int maxInterval,
+      int maxFanout,
+      LongSupplier changes,
+      MetricRegistry metrics,
+      long now) {
+    this.gossipInterval = gossipInterval;
+    this.maxInterval = maxInterval;
+    this.maxFanout = Math.max(1, maxFanout);
+    this.changes = changes;
+    this.changeCount = changes.getAsLong();
+    this.lastChange = now;
+    this.burstStart = now;
+    this.interval = gossipInterval;
+    metrics.gauge(ADAPTIVE_GOSSIP_INTERVAL, () -> (Gauge<Long>) () -> interval);
+    metrics.gauge(ADAPTIVE_GOSSIP_FANOUT, () -> (Gauge<Integer>) () -> fanout);
+    messages = metrics.meter(ADAPTIVE_GOSSIP_MESSAGES);
+    convergenceTime = metrics.histogram(ADAPTIVE_GOSSIP_CONVERGENCE_TIME);
+  }
+
+  /**
+   * Something changed that the counter does not see, a member going up or down for instance.
+   *
+   * @param now the current nano time.
+   */
+  public synchronized void changed(long now) {
+    if (!busy) {
+      busy = true;
+      burstStart = now;
+    }
+    lastChange = now;
+  }
+
+  /**
+   * @param baseInterval the interval of the task asking.
+   * @param now the current nano time.
+   * @return milliseconds until the task runs again.
+   */
+  public synchronized long nextDelay(int baseInterval, long now) {
+    long quiet = quietMillis(now);
+    long delay = Math.min(Math.max(baseInterval, maxInterval), Math.max(baseInterval, quiet));
+    if (baseInterval == gossipInterval) {
+      interval = delay;
+    }
+    return delay;
+  }
+
+  /**
+   * @param members how many members the round can choose from.
+   * @param now the current nano time.
+   * @return how many of them the round goes to.
+   */
+  public synchronized int fanout(int members, long now) {
+    int result = 1;
+    if (quietMillis(now) < (long) ACTIVE_ROUNDS * gossipInterval) {
+      int log = 64 - Long.numberOfLeadingZeros(members);
+      result = Math.max(1, Math.min(maxFanout, log));
+    }
+    fanout = result;
+    return result;
+  }
+
+  /**
+   * @param sent how many messages a round sent.
+   */
+  public void sent(int sent) {
+    messages.mark(sent);
+  }
+
+  /** picks up counted changes and closes a busy period once it has been quiet long enough. */
+  private long quietMillis(long now) {
+    long count = changes.getAsLong();
+    if (count != changeCount) {
+      changeCount = count;
+      changed(now);
+    }
+    long quiet = TimeUnit.NANOSECONDS.toMillis(now - lastChange);
+    if (busy && quiet >= (long) ACTIVE_ROUNDS * gossipInterval) {
+      convergenceTime.update(TimeUnit.NANOSECONDS.toMillis(lastChange - burstStart));
+      busy = false;
+    }
+    return quiet;
+  }
+
+  public long getInterval() {
+    return interval;
+  }
+
+  public int getFanout() {
+    return fanout;
+  }
+}
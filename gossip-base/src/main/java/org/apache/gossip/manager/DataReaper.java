@@ -55,7 +55,7 @@ public class DataReaper {
   void runSharedOnce() {
     for (Entry<String, SharedDataMessage> entry : gossipCore.getSharedData().entrySet()) {
       if (entry.getValue().getExpireAt() < clock.currentTimeMillis()) {
-        gossipCore.getSharedData().remove(entry.getKey(), entry.getValue());
+        gossipCore.removeSharedData(entry.getKey(), entry.getValue());
       }
     }
   }
@@ -63,14 +63,14 @@ public class DataReaper {
   void runPerNodeOnce() {
     for (Entry<String, ConcurrentHashMap<String, PerNodeDataMessage>> node :
         gossipCore.getPerNodeData().entrySet()) {
-      reapData(node.getValue());
+      reapData(node.getKey(), node.getValue());
     }
   }
 
-  void reapData(ConcurrentHashMap<String, PerNodeDataMessage> concurrentHashMap) {
+  void reapData(String nodeId, ConcurrentHashMap<String, PerNodeDataMessage> concurrentHashMap) {
     for (Entry<String, PerNodeDataMessage> entry : concurrentHashMap.entrySet()) {
       if (entry.getValue().getExpireAt() < clock.currentTimeMillis()) {
-        concurrentHashMap.remove(entry.getKey(), entry.getValue());
+        gossipCore.removePerNodeData(nodeId, entry.getKey(), entry.getValue());
       }
     }
   }
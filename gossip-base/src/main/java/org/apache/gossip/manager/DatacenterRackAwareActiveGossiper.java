@@ -19,7 +19,6 @@ package org.apache.gossip.manager;
 
 import com.codahale.metrics.MetricRegistry;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -27,6 +26,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.gossip.LocalMember;
 
@@ -48,6 +49,7 @@ public class DatacenterRackAwareActiveGossiper extends AbstractActiveGossiper {
   private int randomDeadMemberSendIntervalMs = 250;
   private ScheduledExecutorService scheduledExecutorService;
   private ThreadPoolExecutor threadService;
+  private volatile Tiers tiers;
 
   public DatacenterRackAwareActiveGossiper(
       GossipManager gossipManager, GossipCore gossipCore, MetricRegistry registry) {
@@ -98,157 +100,118 @@ public class DatacenterRackAwareActiveGossiper extends AbstractActiveGossiper {
   @Override
   public void init() {
     super.init();
-    // same rack
-    scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> sendToSameRackMember()),
-        0,
-        sameRackGossipIntervalMs,
-        TimeUnit.MILLISECONDS);
-
-    scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> sendToSameRackMemberPerNode()),
-        0,
-        sameRackGossipIntervalMs,
-        TimeUnit.MILLISECONDS);
-
-    scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> sendToSameRackShared()),
-        0,
-        sameRackGossipIntervalMs,
-        TimeUnit.MILLISECONDS);
-
-    // same dc different rack
-    scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> sameDcDiffernetRackMember()),
-        0,
-        sameDcGossipIntervalMs,
-        TimeUnit.MILLISECONDS);
-
-    scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> sameDcDiffernetRackPerNode()),
-        0,
-        sameDcGossipIntervalMs,
-        TimeUnit.MILLISECONDS);
-
-    scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> sameDcDiffernetRackShared()),
-        0,
-        sameDcGossipIntervalMs,
-        TimeUnit.MILLISECONDS);
-
-    // different dc
-    scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> differentDcMember()),
-        0,
-        differentDatacenterGossipIntervalMs,
-        TimeUnit.MILLISECONDS);
-
-    scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> differentDcPerNode()),
-        0,
-        differentDatacenterGossipIntervalMs,
-        TimeUnit.MILLISECONDS);
-
-    scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> differentDcShared()),
-        0,
-        differentDatacenterGossipIntervalMs,
-        TimeUnit.MILLISECONDS);
-
+    boolean combined = gossipManager.getSettings().getCombinedGossipSize() > 0;
+    tier(sameRackGossipIntervalMs, this::sameRackNodes, combined);
+    tier(sameDcGossipIntervalMs, this::sameDatacenterDifferentRack, combined);
+    tier(differentDatacenterGossipIntervalMs, this::differentDataCenter, combined);
+    if (combined) {
+      // the recent data rides along on the combined rounds, these only repair what they missed.
+      every(
+          gossipManager.getSettings().getAntiEntropyInterval(),
+          true,
+          gossipManager::getLiveMembers,
+          (me, member) -> {
+            sendPerNodeData(me, member);
+            sendSharedData(me, member);
+          });
+    }
     // the dead
+    PartnerSelector dead = newPartnerSelector();
     scheduledExecutorService.scheduleAtFixedRate(
-        () -> threadService.execute(() -> sendToDeadMember()),
+        () ->
+            threadService.execute(
+                () ->
+                    sendMembershipList(
+                        gossipManager.getMyself(), dead.select(gossipManager.getDeadMembers()))),
         0,
         randomDeadMemberSendIntervalMs,
         TimeUnit.MILLISECONDS);
   }
 
-  private void sendToDeadMember() {
-    sendMembershipList(gossipManager.getMyself(), selectPartner(gossipManager.getDeadMembers()));
+  /**
+   * Gossips with one group of members at its own interval: a combined round instead of separate
+   * membership, per-node and shared data rounds when the combined gossip size is set.
+   */
+  private void tier(int intervalMs, Supplier<List<LocalMember>> group, boolean combined) {
+    if (combined) {
+      every(intervalMs, false, group, this::sendGossipRound);
+      return;
+    }
+    every(intervalMs, false, group, this::sendMembershipList);
+    every(intervalMs, true, group, this::sendPerNodeData);
+    every(intervalMs, true, group, this::sendSharedData);
+  }
+
+  /**
+   * Runs a kind of round at a fixed rate, or on the adaptive schedule when it is enabled and the
+   * round only carries data, each with its own partner selector so that every member of the group
+   * gets its turn. Rounds carrying heartbeats always keep their fixed rate.
+   */
+  private void every(
+      int intervalMs,
+      boolean dataOnly,
+      Supplier<List<LocalMember>> group,
+      BiConsumer<LocalMember, LocalMember> round) {
+    PartnerSelector selector = newPartnerSelector();
+    if (isAdaptive() && dataOnly) {
+      scheduleAdaptive(scheduledExecutorService, threadService, intervalMs, group, selector, round);
+      return;
+    }
+    scheduledExecutorService.scheduleAtFixedRate(
+        () ->
+            threadService.execute(
+                () -> round.accept(gossipManager.getMyself(), selector.select(group.get()))),
+        0,
+        intervalMs,
+        TimeUnit.MILLISECONDS);
   }
 
   private List<LocalMember> differentDataCenter() {
-    String myDc = gossipManager.getMyself().getProperties().get(DATACENTER);
-    String rack = gossipManager.getMyself().getProperties().get(RACK);
-    if (myDc == null || rack == null) {
-      return Collections.emptyList();
-    }
-    List<LocalMember> notMyDc = new ArrayList<LocalMember>(10);
-    for (LocalMember i : gossipManager.getLiveMembers()) {
-      if (!myDc.equals(i.getProperties().get(DATACENTER))) {
-        notMyDc.add(i);
-      }
-    }
-    return notMyDc;
+    return tiers().differentDatacenter;
   }
 
   private List<LocalMember> sameDatacenterDifferentRack() {
-    String myDc = gossipManager.getMyself().getProperties().get(DATACENTER);
-    String rack = gossipManager.getMyself().getProperties().get(RACK);
-    if (myDc == null || rack == null) {
-      return Collections.emptyList();
-    }
-    List<LocalMember> notMyDc = new ArrayList<LocalMember>(10);
-    for (LocalMember i : gossipManager.getLiveMembers()) {
-      if (myDc.equals(i.getProperties().get(DATACENTER))
-          && !rack.equals(i.getProperties().get(RACK))) {
-        notMyDc.add(i);
-      }
-    }
-    return notMyDc;
+    return tiers().sameDatacenterDifferentRack;
   }
 
   private List<LocalMember> sameRackNodes() {
+    return tiers().sameRack;
+  }
+
+  /** The live members grouped by tier, grouped again only after the members change. */
+  private Tiers tiers() {
+    Tiers current = tiers;
+    long version = gossipManager.getMembers().getVersion();
+    if (current != null && current.version == version) {
+      return current;
+    }
+    current = new Tiers(version);
     String myDc = gossipManager.getMyself().getProperties().get(DATACENTER);
     String rack = gossipManager.getMyself().getProperties().get(RACK);
-    if (myDc == null || rack == null) {
-      return Collections.emptyList();
-    }
-    List<LocalMember> sameDcAndRack = new ArrayList<LocalMember>(10);
-    for (LocalMember i : gossipManager.getLiveMembers()) {
-      if (myDc.equals(i.getProperties().get(DATACENTER))
-          && rack.equals(i.getProperties().get(RACK))) {
-        sameDcAndRack.add(i);
+    if (myDc != null && rack != null) {
+      for (LocalMember i : gossipManager.getLiveMembers()) {
+        if (!myDc.equals(i.getProperties().get(DATACENTER))) {
+          current.differentDatacenter.add(i);
+        } else if (rack.equals(i.getProperties().get(RACK))) {
+          current.sameRack.add(i);
+        } else {
+          current.sameDatacenterDifferentRack.add(i);
+        }
       }
     }
-    return sameDcAndRack;
-  }
-
-  private void sendToSameRackMember() {
-    LocalMember i = selectPartner(sameRackNodes());
-    sendMembershipList(gossipManager.getMyself(), i);
-  }
-
-  private void sendToSameRackMemberPerNode() {
-    sendPerNodeData(gossipManager.getMyself(), selectPartner(sameRackNodes()));
-  }
-
-  private void sendToSameRackShared() {
-    sendSharedData(gossipManager.getMyself(), selectPartner(sameRackNodes()));
-  }
-
-  private void differentDcMember() {
-    sendMembershipList(gossipManager.getMyself(), selectPartner(differentDataCenter()));
+    tiers = current;
+    return current;
   }
 
-  private void differentDcPerNode() {
-    sendPerNodeData(gossipManager.getMyself(), selectPartner(differentDataCenter()));
-  }
+  private static final class Tiers {
+    private final long version;
+    private final List<LocalMember> sameRack = new ArrayList<>();
+    private final List<LocalMember> sameDatacenterDifferentRack = new ArrayList<>();
+    private final List<LocalMember> differentDatacenter = new ArrayList<>();
 
-  private void differentDcShared() {
-    sendSharedData(gossipManager.getMyself(), selectPartner(differentDataCenter()));
-  }
-
-  private void sameDcDiffernetRackMember() {
-    sendMembershipList(gossipManager.getMyself(), selectPartner(sameDatacenterDifferentRack()));
-  }
-
-  private void sameDcDiffernetRackPerNode() {
-    sendPerNodeData(gossipManager.getMyself(), selectPartner(sameDatacenterDifferentRack()));
-  }
-
-  private void sameDcDiffernetRackShared() {
-    sendSharedData(gossipManager.getMyself(), selectPartner(sameDatacenterDifferentRack()));
+    private Tiers(long version) {
+      this.version = version;
+    }
   }
 
   @Override
@@ -20,13 +20,24 @@ package org.apache.gossip.manager;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import java.io.IOException;
 import java.net.URI;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.GossipSettings;
 import org.apache.gossip.LocalMember;
 import org.apache.gossip.Member;
 import org.apache.gossip.RemoteMember;
@@ -36,10 +47,20 @@ import org.apache.gossip.event.data.DataEventManager;
 import org.apache.gossip.event.data.UpdateNodeDataEventHandler;
 import org.apache.gossip.event.data.UpdateSharedDataEventHandler;
 import org.apache.gossip.model.Base;
+import org.apache.gossip.model.DataDigest;
 import org.apache.gossip.model.PerNodeDataMessage;
 import org.apache.gossip.model.Response;
 import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.model.TreeHash;
 import org.apache.gossip.udp.Trackable;
+import org.apache.gossip.udp.UdpDataDigestMessage;
+import org.apache.gossip.udp.UdpDataTreeMessage;
+import org.apache.gossip.udp.UdpGossipRoundMessage;
+import org.apache.gossip.udp.UdpPerNodeDataBulkMessage;
+import org.apache.gossip.udp.UdpPerNodeDataLogMessage;
+import org.apache.gossip.udp.UdpPerNodeDataMessage;
+import org.apache.gossip.udp.UdpSharedDataBulkMessage;
+import org.apache.gossip.udp.UdpSharedDataMessage;
 
 @Slf4j
 public class GossipCore implements GossipCoreConstants {
@@ -54,14 +75,64 @@ public class GossipCore implements GossipCoreConstants {
   private final Meter messageSerdeException;
   private final Meter transmissionException;
   private final Meter transmissionSuccess;
+  private final Meter transmissionBytes;
+  private final Timer transmissionTime;
   private final DataEventManager eventManager;
   private final ConcurrentHashMap<String, LatchAndBase> requests;
 
+  /** range hash trees over the data, maintained only if the data tree depth is set. */
+  private final int dataTreeDepth;
+
+  private final RangeHashTree sharedDataTree;
+  private final ConcurrentHashMap<String, RangeHashTree> perNodeDataTrees;
+
+  /** changes to shared CRDTs still to be gossiped, kept only if CRDT deltas are enabled. */
+  private final int crdtDeltaRounds;
+
+  private final ConcurrentHashMap<String, PendingDelta> sharedDataDeltas;
+
+  /**
+   * changes to per-node data in the order they were applied, kept only if the log size is set. The
+   * sequence numbers are assigned under the log's lock, so a reader never sees a later change
+   * without the earlier ones.
+   */
+  private final int perNodeDataLogSize;
+
+  private final ConcurrentSkipListMap<Long, DataKey> perNodeDataLog;
+  private long perNodeDataSequence;
+  private int perNodeDataLogLength;
+
+  /** how far each member acknowledged the change log, by URI. */
+  private final ConcurrentHashMap<String, LogProgress> perNodeDataProgress;
+
+  private final String incarnation = UUID.randomUUID().toString();
+
+  /**
+   * recently changed data still to be piggybacked on combined gossip rounds, with the number of
+   * rounds that carried it, kept only if combined rounds are enabled.
+   */
+  private final int combinedGossipSize;
+
+  private final ConcurrentHashMap<DataKey, Integer> piggybackSends;
+
+  /** counts data changes and members joining, so gossipers can tell whether anything happens. */
+  private final AtomicLong changes = new AtomicLong();
+
   public GossipCore(GossipManager manager, MetricRegistry metrics) {
     this.gossipManager = manager;
     requests = new ConcurrentHashMap<>();
     perNodeData = new ConcurrentHashMap<>();
     sharedData = new ConcurrentHashMap<>();
+    dataTreeDepth = manager.getSettings().getDataTreeDepth();
+    sharedDataTree = dataTreeDepth > 0 ? new RangeHashTree(dataTreeDepth) : null;
+    perNodeDataTrees = new ConcurrentHashMap<>();
+    crdtDeltaRounds = manager.getSettings().getCrdtDeltaRounds();
+    sharedDataDeltas = new ConcurrentHashMap<>();
+    perNodeDataLogSize = manager.getSettings().getPerNodeDataLogSize();
+    perNodeDataLog = new ConcurrentSkipListMap<>();
+    perNodeDataProgress = new ConcurrentHashMap<>();
+    combinedGossipSize = manager.getSettings().getCombinedGossipSize();
+    piggybackSends = new ConcurrentHashMap<>();
     eventManager = new DataEventManager(metrics);
     metrics.register(PER_NODE_DATA_SIZE, (Gauge<Integer>) perNodeData::size);
     metrics.register(SHARED_DATA_SIZE, (Gauge<Integer>) sharedData::size);
@@ -69,6 +140,8 @@ public class GossipCore implements GossipCoreConstants {
     messageSerdeException = metrics.meter(MESSAGE_SERDE_EXCEPTION);
     transmissionException = metrics.meter(MESSAGE_TRANSMISSION_EXCEPTION);
     transmissionSuccess = metrics.meter(MESSAGE_TRANSMISSION_SUCCESS);
+    transmissionBytes = metrics.meter(MESSAGE_TRANSMISSION_BYTES);
+    transmissionTime = metrics.timer(MESSAGE_TRANSMISSION_TIME);
   }
 
   @SuppressWarnings({"unchecked", "rawtypes"})
@@ -76,6 +149,10 @@ public class GossipCore implements GossipCoreConstants {
     while (true) {
       SharedDataMessage previous = sharedData.putIfAbsent(message.getKey(), message);
       if (previous == null) {
+        trackSharedData(message.getKey(), null, message);
+        if (message.getPayload() instanceof Crdt) {
+          bufferDelta(message, (Crdt) message.getPayload());
+        }
         eventManager.notifySharedData(message.getKey(), message.getPayload(), null);
         return;
       }
@@ -89,6 +166,8 @@ public class GossipCore implements GossipCoreConstants {
         merged.setPayload(mergedCrdt);
         boolean replaced = sharedData.replace(message.getKey(), previous, merged);
         if (replaced) {
+          trackSharedData(message.getKey(), previous, merged);
+          bufferDelta(message, ((Crdt) message.getPayload()).delta((Crdt) previous.getPayload()));
           if (!merged.getPayload().equals(previous.getPayload())) {
             eventManager.notifySharedData(
                 message.getKey(), merged.getPayload(), previous.getPayload());
@@ -99,6 +178,7 @@ public class GossipCore implements GossipCoreConstants {
         if (previous.getTimestamp() < message.getTimestamp()) {
           boolean result = sharedData.replace(message.getKey(), previous, message);
           if (result) {
+            trackSharedData(message.getKey(), previous, message);
             eventManager.notifySharedData(
                 message.getKey(), message.getPayload(), previous.getPayload());
             return;
@@ -115,24 +195,612 @@ public class GossipCore implements GossipCoreConstants {
     nodeMap.put(message.getKey(), message);
     nodeMap = perNodeData.putIfAbsent(message.getNodeId(), nodeMap);
     if (nodeMap != null) {
-      PerNodeDataMessage current = nodeMap.get(message.getKey());
-      if (current == null) {
-        nodeMap.putIfAbsent(message.getKey(), message);
-        eventManager.notifyPerNodeData(
-            message.getNodeId(), message.getKey(), message.getPayload(), null);
-      } else {
-        if (current.getTimestamp() < message.getTimestamp()) {
-          nodeMap.replace(message.getKey(), current, message);
+      // messages are merged by several receive workers, so only the winner of a race notifies.
+      while (true) {
+        PerNodeDataMessage current = nodeMap.putIfAbsent(message.getKey(), message);
+        if (current == null) {
+          trackPerNodeData(message.getNodeId(), message.getKey(), null, message);
+          eventManager.notifyPerNodeData(
+              message.getNodeId(), message.getKey(), message.getPayload(), null);
+          return;
+        }
+        if (current.getTimestamp() >= message.getTimestamp()) {
+          return;
+        }
+        if (nodeMap.replace(message.getKey(), current, message)) {
+          trackPerNodeData(message.getNodeId(), message.getKey(), current, message);
           eventManager.notifyPerNodeData(
               message.getNodeId(), message.getKey(), message.getPayload(), current.getPayload());
+          return;
         }
       }
     } else {
+      trackPerNodeData(message.getNodeId(), message.getKey(), null, message);
       eventManager.notifyPerNodeData(
           message.getNodeId(), message.getKey(), message.getPayload(), null);
     }
   }
 
+  /**
+   * Remove a shared data entry unless it was replaced in the meantime.
+   *
+   * @return whether the entry was removed.
+   */
+  public boolean removeSharedData(String key, SharedDataMessage message) {
+    if (sharedData.remove(key, message)) {
+      trackSharedData(key, message, null);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Remove a per-node data entry unless it was replaced in the meantime.
+   *
+   * @return whether the entry was removed.
+   */
+  public boolean removePerNodeData(String nodeId, String key, PerNodeDataMessage message) {
+    ConcurrentHashMap<String, PerNodeDataMessage> nodeMap = perNodeData.get(nodeId);
+    if (nodeMap != null && nodeMap.remove(key, message)) {
+      trackPerNodeData(nodeId, key, message, null);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return the depth of the range hash trees over the data, 0 if they are not maintained.
+   */
+  public int getDataTreeDepth() {
+    return dataTreeDepth;
+  }
+
+  /**
+   * @param owner the member whose per-node data is meant, null for the shared data.
+   * @return the range hash tree over the data, null if there is none.
+   */
+  public RangeHashTree getDataTree(String owner) {
+    return owner == null ? sharedDataTree : perNodeDataTrees.get(owner);
+  }
+
+  private void trackSharedData(String key, SharedDataMessage previous, SharedDataMessage current) {
+    if (sharedDataTree != null) {
+      sharedDataTree.update(key, entryHash(previous), entryHash(current));
+    }
+    // merging a CRDT the member already knew is no news.
+    if (current != null
+        && (previous == null || !Objects.equals(previous.getPayload(), current.getPayload()))) {
+      changes.incrementAndGet();
+      if (combinedGossipSize > 0) {
+        piggybackSends.put(new DataKey(null, key), 0);
+      }
+    }
+  }
+
+  private void trackPerNodeData(
+      String nodeId, String key, PerNodeDataMessage previous, PerNodeDataMessage current) {
+    if (dataTreeDepth > 0) {
+      perNodeDataTrees
+          .computeIfAbsent(nodeId, k -> new RangeHashTree(dataTreeDepth))
+          .update(key, entryHash(previous), entryHash(current));
+    }
+    if (current != null) {
+      changes.incrementAndGet();
+    }
+    if (combinedGossipSize > 0 && current != null) {
+      piggybackSends.put(new DataKey(nodeId, key), 0);
+    }
+    if (perNodeDataLogSize > 0 && current != null) {
+      synchronized (perNodeDataLog) {
+        perNodeDataLog.put(++perNodeDataSequence, new DataKey(nodeId, key));
+        if (++perNodeDataLogLength > perNodeDataLogSize) {
+          perNodeDataLog.pollFirstEntry();
+          perNodeDataLogLength--;
+        }
+      }
+    }
+  }
+
+  /**
+   * Remember what a merge added to a shared CRDT, so the next rounds gossip only that. Deltas of
+   * the same key that are still pending are merged into one.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void bufferDelta(SharedDataMessage message, Crdt delta) {
+    if (crdtDeltaRounds <= 0 || delta == null) {
+      return;
+    }
+    SharedDataMessage deltaMessage = new SharedDataMessage();
+    copySharedDataMessage(message, deltaMessage);
+    deltaMessage.setPayload(delta);
+    sharedDataDeltas.merge(
+        message.getKey(),
+        new PendingDelta(deltaMessage, crdtDeltaRounds),
+        (pending, latest) -> {
+          latest.message.setPayload(((Crdt) pending.message.getPayload()).merge(delta));
+          return latest;
+        });
+  }
+
+  /**
+   * Take the pending CRDT deltas for one round of gossip. Each delta is handed out for as many
+   * rounds as configured, after that anti-entropy has to do.
+   *
+   * @return the deltas to send, one per key.
+   */
+  public List<SharedDataMessage> takeSharedDataDeltas() {
+    List<SharedDataMessage> result = new ArrayList<>();
+    for (String key : sharedDataDeltas.keySet()) {
+      sharedDataDeltas.computeIfPresent(
+          key,
+          (k, pending) -> {
+            result.add(pending.message);
+            return pending.roundsLeft > 1
+                ? new PendingDelta(pending.message, pending.roundsLeft - 1)
+                : null;
+          });
+    }
+    return result;
+  }
+
+  /**
+   * Send a member the per-node data that changed since it last acknowledged the change log, or
+   * every entry if the log no longer reaches back that far. An earlier batch the member did not
+   * fully acknowledge is sent again.
+   *
+   * @param me this member.
+   * @param member the member to send to.
+   */
+  public void sendPerNodeDataChanges(LocalMember me, LocalMember member) {
+    String uri = member.getUri().toASCIIString();
+    LogProgress progress = perNodeDataProgress.computeIfAbsent(uri, k -> new LogProgress());
+    long from = progress.acknowledged();
+    long to;
+    List<PerNodeDataMessage> entries = new ArrayList<>();
+    Map.Entry<Long, DataKey> first = perNodeDataLog.firstEntry();
+    Map.Entry<Long, DataKey> last = perNodeDataLog.lastEntry();
+    if (last == null || last.getKey() <= from) {
+      return;
+    }
+    to = last.getKey();
+    if (first.getKey() > from + 1) {
+      // the changes the member is missing were truncated, send everything.
+      for (ConcurrentHashMap<String, PerNodeDataMessage> nodeMap : perNodeData.values()) {
+        entries.addAll(nodeMap.values());
+      }
+    } else {
+      Set<DataKey> changed = new LinkedHashSet<>();
+      changed.addAll(perNodeDataLog.subMap(from, false, to, true).values());
+      for (DataKey change : changed) {
+        Map<String, PerNodeDataMessage> nodeMap = perNodeData.get(change.nodeId);
+        PerNodeDataMessage entry = nodeMap == null ? null : nodeMap.get(change.key);
+        if (entry != null) {
+          entries.add(entry);
+        }
+      }
+    }
+    entries.removeIf(
+        entry ->
+            entry.getReplicable() != null
+                && !entry.getReplicable().shouldReplicate(me, member, entry));
+    int chunk = gossipManager.getSettings().getBulkTransferSize();
+    int chunks = Math.max(1, (entries.size() + chunk - 1) / chunk);
+    progress.expect(to, chunks);
+    for (int i = 0; i < chunks; i++) {
+      UdpPerNodeDataLogMessage message = new UdpPerNodeDataLogMessage();
+      message.setUuid(UUID.randomUUID().toString());
+      // the member acknowledges to this URI.
+      message.setUriFrom(me.getUri().toASCIIString());
+      message.setTo(to);
+      message.setChunk(i);
+      message.setChunks(chunks);
+      for (PerNodeDataMessage entry :
+          entries.subList(i * chunk, Math.min((i + 1) * chunk, entries.size()))) {
+        PerNodeDataMessage copy = new PerNodeDataMessage();
+        copyPerNodeDataMessage(entry, copy);
+        message.addMessage(copy);
+      }
+      sendOneWay(message, member.getUri());
+    }
+  }
+
+  /**
+   * Send a member one combined gossip round: the membership list and the most recently changed data
+   * that has been piggybacked least often, as much as fits the combined gossip size once encoded.
+   * The sender always goes first, then data, then the other members in random order. Each update is
+   * piggybacked on 3 * ceil(log2(n + 2)) rounds for n live members, which is enough for it to reach
+   * everyone with high probability; anti-entropy repairs the rest.
+   *
+   * <p>When not everything fits, up to half of the size is kept for members so data churn cannot
+   * stop membership from spreading, and each share is filled greedily: an item too large for what
+   * is left is skipped in favour of the ones after it. An update too large for the data share is
+   * no longer piggybacked at all and left to anti-entropy.
+   *
+   * @param me this member.
+   * @param member the member to send to.
+   * @param members the membership list, the sender first.
+   * @param suspects the members suspected to have failed, always sent.
+   */
+  public void sendGossipRound(
+      LocalMember me,
+      LocalMember member,
+      List<org.apache.gossip.model.Member> members,
+      Map<String, Long> suspects) {
+    // sorted on a copy, the counts change under a sort of the live map.
+    List<Map.Entry<DataKey, Integer>> counts = new ArrayList<>();
+    for (Map.Entry<DataKey, Integer> count : piggybackSends.entrySet()) {
+      counts.add(new AbstractMap.SimpleImmutableEntry<>(count.getKey(), count.getValue()));
+    }
+    counts.sort(Map.Entry.comparingByValue());
+    List<DataKey> updateKeys = new ArrayList<>();
+    List<Object> updates = new ArrayList<>();
+    for (Map.Entry<DataKey, Integer> count : counts) {
+      DataKey key = count.getKey();
+      if (key.nodeId == null) {
+        SharedDataMessage entry = sharedData.get(key.key);
+        if (entry == null) {
+          piggybackSends.remove(key);
+        } else if (entry.getReplicable() == null
+            || entry.getReplicable().shouldReplicate(me, member, entry)) {
+          SharedDataMessage copy = new SharedDataMessage();
+          copySharedDataMessage(entry, copy);
+          updateKeys.add(key);
+          updates.add(copy);
+        }
+      } else {
+        Map<String, PerNodeDataMessage> nodeMap = perNodeData.get(key.nodeId);
+        PerNodeDataMessage entry = nodeMap == null ? null : nodeMap.get(key.key);
+        if (entry == null) {
+          piggybackSends.remove(key);
+        } else if (entry.getReplicable() == null
+            || entry.getReplicable().shouldReplicate(me, member, entry)) {
+          PerNodeDataMessage copy = new PerNodeDataMessage();
+          copyPerNodeDataMessage(entry, copy);
+          updateKeys.add(key);
+          updates.add(copy);
+        }
+      }
+    }
+    List<Object> others = new ArrayList<>(members.subList(1, members.size()));
+    Collections.shuffle(others);
+    org.apache.gossip.model.Member sender = members.get(0);
+
+    byte[] bytes;
+    Set<DataKey> included = new HashSet<>(updateKeys);
+    try {
+      // usually everything fits.
+      List<Object> items = new ArrayList<>(updates);
+      items.addAll(others);
+      bytes = encode(gossipRound(me, sender, suspects, items));
+      if (bytes.length > combinedGossipSize) {
+        int empty = encode(gossipRound(me, sender, suspects, Collections.emptyList())).length;
+        int available = combinedGossipSize - empty;
+        int[] memberSizes = sizes(me, sender, suspects, others, empty);
+        int memberTotal = 0;
+        for (int size : memberSizes) {
+          memberTotal += size;
+        }
+        int dataShare = available - Math.min(memberTotal, available / 2);
+        int[] updateSizes = sizes(me, sender, suspects, updates, empty);
+        List<Object> selected = new ArrayList<>();
+        int used = 0;
+        included.clear();
+        for (int i = 0; i < updates.size(); i++) {
+          if (updateSizes[i] > dataShare) {
+            piggybackSends.remove(updateKeys.get(i));
+          } else if (used + updateSizes[i] <= dataShare) {
+            used += updateSizes[i];
+            selected.add(updates.get(i));
+            included.add(updateKeys.get(i));
+          }
+        }
+        for (int i = 0; i < others.size(); i++) {
+          if (used + memberSizes[i] <= available) {
+            used += memberSizes[i];
+            selected.add(others.get(i));
+          }
+        }
+        // sizes measured one at a time leave out separators, trim the last items if they matter.
+        bytes = encode(gossipRound(me, sender, suspects, selected));
+        while (bytes.length > combinedGossipSize && !selected.isEmpty()) {
+          Object dropped = selected.remove(selected.size() - 1);
+          for (int i = 0; i < updates.size(); i++) {
+            if (updates.get(i) == dropped) {
+              included.remove(updateKeys.get(i));
+            }
+          }
+          bytes = encode(gossipRound(me, sender, suspects, selected));
+        }
+      }
+    } catch (IOException e) {
+      messageSerdeException.mark();
+      log.debug("Gossip round could not be encoded", e);
+      return;
+    }
+    try {
+      transmit(bytes, member.getUri());
+    } catch (IOException | RuntimeException e) {
+      transmissionException.mark();
+      log.debug("Send gossip round failed", e);
+      return;
+    }
+    int limit = 3 * (32 - Integer.numberOfLeadingZeros(gossipManager.getLiveMembers().size() + 1));
+    for (DataKey key : included) {
+      piggybackSends.computeIfPresent(key, (k, sends) -> sends + 1 >= limit ? null : sends + 1);
+    }
+  }
+
+  /** The encoded size each item adds to an otherwise empty round. */
+  private int[] sizes(
+      LocalMember me,
+      org.apache.gossip.model.Member sender,
+      Map<String, Long> suspects,
+      List<Object> items,
+      int empty)
+      throws IOException {
+    int[] result = new int[items.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] =
+          encode(gossipRound(me, sender, suspects, Collections.singletonList(items.get(i)))).length
+              - empty;
+    }
+    return result;
+  }
+
+  private UdpGossipRoundMessage gossipRound(
+      LocalMember me,
+      org.apache.gossip.model.Member sender,
+      Map<String, Long> suspects,
+      List<Object> items) {
+    UdpGossipRoundMessage message = new UdpGossipRoundMessage();
+    message.setSuspects(suspects);
+    message.setUriFrom(me.getUri().toASCIIString());
+    message.setUuid(UUID.randomUUID().toString());
+    message.getMembers().add(sender);
+    for (Object item : items) {
+      if (item instanceof PerNodeDataMessage) {
+        message.getPerNodeData().add((PerNodeDataMessage) item);
+      } else if (item instanceof SharedDataMessage) {
+        message.getSharedData().add((SharedDataMessage) item);
+      } else {
+        message.getMembers().add((org.apache.gossip.model.Member) item);
+      }
+    }
+    return message;
+  }
+
+  /**
+   * Record that a member applied one chunk of a change log batch.
+   *
+   * @param uri the member.
+   * @param incarnation identifies the process of the member.
+   * @param to the log position of the batch.
+   * @param chunk the chunk applied.
+   */
+  public void acknowledgePerNodeData(String uri, String incarnation, long to, int chunk) {
+    LogProgress progress = perNodeDataProgress.get(uri);
+    if (progress != null) {
+      progress.acknowledge(incarnation, to, chunk);
+    }
+  }
+
+  /**
+   * @return the number of data changes and members joining so far.
+   */
+  public long getChangeCount() {
+    return changes.get();
+  }
+
+  /**
+   * @return identifies this process to the members acknowledging its change log.
+   */
+  public String getIncarnation() {
+    return incarnation;
+  }
+
+  private static long entryHash(SharedDataMessage message) {
+    return message == null
+        ? 0
+        : RangeHashTree.entryHash(message.getKey(), message.getTimestamp(), message.getPayload());
+  }
+
+  private static long entryHash(PerNodeDataMessage message) {
+    return message == null
+        ? 0
+        : RangeHashTree.entryHash(message.getKey(), message.getTimestamp(), message.getPayload());
+  }
+
+  /**
+   * Send shared data entries to a member, one message each or batched as the settings say. Entries
+   * whose replication strategy excludes the member are skipped.
+   *
+   * @param me this member.
+   * @param member the member to send to.
+   * @param entries the entries to send.
+   */
+  public void sendSharedData(
+      LocalMember me, LocalMember member, Iterable<SharedDataMessage> entries) {
+    GossipSettings settings = gossipManager.getSettings();
+    UdpSharedDataBulkMessage udpMessage = null;
+    for (SharedDataMessage entry : entries) {
+      if (entry.getReplicable() != null
+          && !entry.getReplicable().shouldReplicate(me, member, entry)) {
+        continue;
+      }
+      if (!settings.isBulkTransfer()) {
+        UdpSharedDataMessage message = new UdpSharedDataMessage();
+        message.setUuid(UUID.randomUUID().toString());
+        message.setUriFrom(me.getId());
+        copySharedDataMessage(entry, message);
+        sendOneWay(message, member.getUri());
+        continue;
+      }
+      if (udpMessage == null) {
+        udpMessage = new UdpSharedDataBulkMessage();
+        udpMessage.setUuid(UUID.randomUUID().toString());
+        udpMessage.setUriFrom(me.getId());
+      }
+      SharedDataMessage message = new SharedDataMessage();
+      copySharedDataMessage(entry, message);
+      udpMessage.addMessage(message);
+      if (udpMessage.getMessages().size() == settings.getBulkTransferSize()) {
+        sendOneWay(udpMessage, member.getUri());
+        udpMessage = null;
+      }
+    }
+    if (udpMessage != null) {
+      sendOneWay(udpMessage, member.getUri());
+    }
+  }
+
+  /**
+   * Send per-node data entries to a member, one message each or batched as the settings say.
+   * Entries whose replication strategy excludes the member are skipped.
+   *
+   * @param me this member.
+   * @param member the member to send to.
+   * @param entries the entries to send, which may belong to several members.
+   */
+  public void sendPerNodeData(
+      LocalMember me, LocalMember member, Iterable<PerNodeDataMessage> entries) {
+    GossipSettings settings = gossipManager.getSettings();
+    UdpPerNodeDataBulkMessage udpMessage = null;
+    for (PerNodeDataMessage entry : entries) {
+      if (entry.getReplicable() != null
+          && !entry.getReplicable().shouldReplicate(me, member, entry)) {
+        continue;
+      }
+      if (!settings.isBulkTransfer()) {
+        UdpPerNodeDataMessage message = new UdpPerNodeDataMessage();
+        message.setUuid(UUID.randomUUID().toString());
+        message.setUriFrom(me.getId());
+        copyPerNodeDataMessage(entry, message);
+        sendOneWay(message, member.getUri());
+        continue;
+      }
+      if (udpMessage == null) {
+        udpMessage = new UdpPerNodeDataBulkMessage();
+        udpMessage.setUuid(UUID.randomUUID().toString());
+        udpMessage.setUriFrom(me.getId());
+      }
+      PerNodeDataMessage message = new PerNodeDataMessage();
+      copyPerNodeDataMessage(entry, message);
+      udpMessage.addMessage(message);
+      if (udpMessage.getMessages().size() == settings.getBulkTransferSize()) {
+        sendOneWay(udpMessage, member.getUri());
+        udpMessage = null;
+      }
+    }
+    if (udpMessage != null) {
+      sendOneWay(udpMessage, member.getUri());
+    }
+  }
+
+  /**
+   * Send the digests of the shared data, or of one member's per-node data, in chunks of the bulk
+   * transfer size. Entries whose replication strategy excludes the member are left out.
+   *
+   * @param me this member.
+   * @param member the member to send to.
+   * @param owner the member whose per-node data is meant, null for the shared data.
+   * @param covered the data tree nodes to send every digest below, null to send all digests.
+   */
+  public void sendDataDigests(
+      LocalMember me, LocalMember member, String owner, List<Integer> covered) {
+    RangeHashTree tree = getDataTree(owner);
+    List<DataDigest> digests = new ArrayList<>();
+    if (owner == null) {
+      for (SharedDataMessage entry : sharedData.values()) {
+        if ((entry.getReplicable() == null
+                || entry.getReplicable().shouldReplicate(me, member, entry))
+            && isCovered(tree, covered, entry.getKey())) {
+          digests.add(DataDigest.of(entry.getKey(), entry.getTimestamp(), entry.getPayload()));
+        }
+      }
+    } else {
+      Map<String, PerNodeDataMessage> nodeMap = perNodeData.get(owner);
+      for (PerNodeDataMessage entry :
+          nodeMap == null ? Collections.<PerNodeDataMessage>emptyList() : nodeMap.values()) {
+        if ((entry.getReplicable() == null
+                || entry.getReplicable().shouldReplicate(me, member, entry))
+            && isCovered(tree, covered, entry.getKey())) {
+          digests.add(DataDigest.of(entry.getKey(), entry.getTimestamp(), entry.getPayload()));
+        }
+      }
+    }
+    int chunk = gossipManager.getSettings().getBulkTransferSize();
+    // with covered nodes even no digests at all tell the member what to send.
+    for (int i = 0; i < digests.size() || (i == 0 && covered != null); i += chunk) {
+      UdpDataDigestMessage message = new UdpDataDigestMessage();
+      message.setUuid(UUID.randomUUID().toString());
+      // unlike data messages this carries the URI, the member replies to it.
+      message.setUriFrom(me.getUri().toASCIIString());
+      message.setOwner(owner);
+      if (covered != null) {
+        message.setCovered(covered);
+      }
+      for (DataDigest digest : digests.subList(i, Math.min(i + chunk, digests.size()))) {
+        message.addDigest(digest);
+      }
+      sendOneWay(message, member.getUri());
+    }
+  }
+
+  /**
+   * Send data tree hashes to a member, in chunks of the bulk transfer size.
+   *
+   * @param me this member.
+   * @param uri where to send them.
+   * @param hashes the hashes.
+   */
+  public void sendDataTree(LocalMember me, URI uri, List<TreeHash> hashes) {
+    int chunk = gossipManager.getSettings().getBulkTransferSize();
+    for (int i = 0; i < hashes.size(); i += chunk) {
+      UdpDataTreeMessage message = new UdpDataTreeMessage();
+      message.setUuid(UUID.randomUUID().toString());
+      message.setUriFrom(me.getUri().toASCIIString());
+      message.setDepth(dataTreeDepth);
+      for (TreeHash hash : hashes.subList(i, Math.min(i + chunk, hashes.size()))) {
+        message.addHash(hash);
+      }
+      sendOneWay(message, uri);
+    }
+  }
+
+  private static boolean isCovered(RangeHashTree tree, List<Integer> covered, String key) {
+    if (covered == null) {
+      return true;
+    }
+    if (tree == null) {
+      return false;
+    }
+    int leaf = tree.leaf(key);
+    for (int node : covered) {
+      if (tree.covers(node, leaf)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void copyPerNodeDataMessage(PerNodeDataMessage original, PerNodeDataMessage copy) {
+    copy.setExpireAt(original.getExpireAt());
+    copy.setKey(original.getKey());
+    copy.setNodeId(original.getNodeId());
+    copy.setTimestamp(original.getTimestamp());
+    copy.setPayload(original.getPayload());
+    copy.setReplicable(original.getReplicable());
+  }
+
+  private static void copySharedDataMessage(SharedDataMessage original, SharedDataMessage copy) {
+    copy.setExpireAt(original.getExpireAt());
+    copy.setKey(original.getKey());
+    copy.setNodeId(original.getNodeId());
+    copy.setTimestamp(original.getTimestamp());
+    copy.setPayload(original.getPayload());
+    copy.setReplicable(original.getReplicable());
+  }
+
   public void shutdown() {}
 
   public void receive(Base base) {
@@ -151,21 +819,46 @@ public class GossipCore implements GossipCoreConstants {
   private void sendInternal(Base message, URI uri) {
     byte[] json_bytes;
     try {
-      json_bytes = gossipManager.getProtocolManager().write(message);
+      json_bytes = encode(message);
     } catch (IOException e) {
       messageSerdeException.mark();
       throw new RuntimeException(e);
     }
     try {
-      gossipManager.getTransportManager().send(uri, json_bytes);
-      transmissionSuccess.mark();
+      transmit(json_bytes, uri);
     } catch (IOException e) {
       transmissionException.mark();
       throw new RuntimeException(e);
     }
   }
 
+  private byte[] encode(Base message) throws IOException {
+    return gossipManager.getProtocolManager().write(message);
+  }
+
+  private void transmit(byte[] bytes, URI uri) throws IOException {
+    try (Timer.Context ignored = transmissionTime.time()) {
+      gossipManager.getTransportManager().send(uri, bytes);
+      transmissionSuccess.mark();
+      transmissionBytes.mark(bytes.length);
+    }
+  }
+
   public Response send(Base message, URI uri) {
+    return send(message, Collections.singletonList(uri), 1000);
+  }
+
+  /**
+   * Send the same trackable message to several members and wait for the first response, as an
+   * indirect probe does.
+   *
+   * @param message the message to send.
+   * @param uris the members to send it to.
+   * @param timeoutMillis how long to wait for a response.
+   * @return the first response, or null if none arrived in time or the message is not trackable.
+   * @throws RuntimeException if data can not be serialized or in transmission error
+   */
+  public Response send(Base message, List<URI> uris, long timeoutMillis) {
     log.debug("Sending " + message);
     log.debug("Current request queue " + requests);
 
@@ -178,13 +871,14 @@ public class GossipCore implements GossipCoreConstants {
     } else {
       t = null;
     }
-    sendInternal(message, uri);
-    if (latchAndBase == null) {
-      return null;
-    }
-
     try {
-      boolean complete = latchAndBase.latch.await(1, TimeUnit.SECONDS);
+      for (URI uri : uris) {
+        sendInternal(message, uri);
+      }
+      if (latchAndBase == null) {
+        return null;
+      }
+      boolean complete = latchAndBase.latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
       if (complete) {
         return (Response) latchAndBase.base;
       } else {
@@ -193,7 +887,9 @@ public class GossipCore implements GossipCoreConstants {
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
     } finally {
-      requests.remove(t.getUuid() + "/" + t.getUriFrom());
+      if (t != null) {
+        requests.remove(t.getUuid() + "/" + t.getUriFrom());
+      }
     }
   }
 
@@ -214,6 +910,11 @@ public class GossipCore implements GossipCoreConstants {
 
   public void handleResponse(String k, Base v) {
     LatchAndBase latch = requests.get(k);
+    if (latch == null) {
+      // the sender stopped waiting, a slow or duplicated response has nothing to complete.
+      log.debug("Response {} arrived after its request timed out", k);
+      return;
+    }
     latch.base = v;
     latch.latch.countDown();
   }
@@ -228,37 +929,51 @@ public class GossipCore implements GossipCoreConstants {
     if (log.isDebugEnabled()) {
       debugState(senderMember, remoteList);
     }
-    for (LocalMember i : gossipManager.getDeadMembers()) {
-      if (i.getId().equals(senderMember.getId())) {
-        log.debug(gossipManager.getMyself() + " contacted by dead member " + senderMember.getUri());
-        i.recordHeartbeat(senderMember.getHeartbeat());
-        i.setHeartbeat(senderMember.getHeartbeat());
-        // TODO consider forcing an UP here
-      }
+    MemberStateMap members = gossipManager.getMembers();
+    LocalMember sender = members.getById(senderMember.getId());
+    if (sender != null && GossipState.DOWN.equals(members.get(sender))) {
+      log.debug(gossipManager.getMyself() + " contacted by dead member " + senderMember.getUri());
+      sender.recordHeartbeat(senderMember.getHeartbeat());
+      sender.setHeartbeat(senderMember.getHeartbeat());
+      // TODO consider forcing an UP here
+      gossipManager.getMemberStateRefresher().evaluate(sender);
     }
     for (Member remoteMember : remoteList) {
       if (remoteMember.getId().equals(gossipManager.getMyself().getId())) {
         continue;
       }
-      LocalMember aNewMember =
-          new LocalMember(
-              remoteMember.getClusterName(),
-              remoteMember.getUri(),
-              remoteMember.getId(),
-              remoteMember.getHeartbeat(),
-              remoteMember.getProperties(),
-              gossipManager.getSettings().getWindowSize(),
-              gossipManager.getSettings().getMinimumSamples(),
-              gossipManager.getSettings().getDistribution());
-      aNewMember.recordHeartbeat(remoteMember.getHeartbeat());
-      Object result = gossipManager.getMembers().putIfAbsent(aNewMember, GossipState.UP);
-      if (result != null) {
-        for (Entry<LocalMember, GossipState> localMember : gossipManager.getMembers().entrySet()) {
-          if (localMember.getKey().getId().equals(remoteMember.getId())) {
-            localMember.getKey().recordHeartbeat(remoteMember.getHeartbeat());
-            localMember.getKey().setHeartbeat(remoteMember.getHeartbeat());
-            localMember.getKey().setProperties(remoteMember.getProperties());
-          }
+      LocalMember localMember = members.getById(remoteMember.getId());
+      // a member new at this address, which may also be a known one that moved.
+      if (localMember == null
+          || !localMember.computeAddress().equals(remoteMember.computeAddress())
+          || !Objects.equals(localMember.getClusterName(), remoteMember.getClusterName())) {
+        LocalMember aNewMember =
+            new LocalMember(
+                remoteMember.getClusterName(),
+                remoteMember.getUri(),
+                remoteMember.getId(),
+                remoteMember.getHeartbeat(),
+                remoteMember.getProperties(),
+                gossipManager.getSettings().getWindowSize(),
+                gossipManager.getSettings().getMinimumSamples(),
+                gossipManager.getSettings().getDistribution());
+        aNewMember.recordHeartbeat(remoteMember.getHeartbeat());
+        if (members.putIfAbsent(aNewMember, GossipState.UP) == null) {
+          changes.incrementAndGet();
+          continue;
+        }
+      }
+      if (localMember != null) {
+        long previousHeartbeat = localMember.getHeartbeat();
+        localMember.recordHeartbeat(remoteMember.getHeartbeat());
+        localMember.setHeartbeat(remoteMember.getHeartbeat());
+        if (!Objects.equals(localMember.getProperties(), remoteMember.getProperties())) {
+          // the rack aware gossiper groups members by their properties.
+          localMember.setProperties(remoteMember.getProperties());
+          members.touch();
+        }
+        if (previousHeartbeat != remoteMember.getHeartbeat()) {
+          gossipManager.getMemberStateRefresher().evaluate(localMember);
         }
       }
     }
@@ -288,11 +1003,13 @@ public class GossipCore implements GossipCoreConstants {
             + "=======================");
   }
 
-  @SuppressWarnings("rawtypes")
+  @SuppressWarnings({"unchecked", "rawtypes"})
   public Crdt merge(SharedDataMessage message) {
     for (; ; ) {
       SharedDataMessage previous = sharedData.putIfAbsent(message.getKey(), message);
       if (previous == null) {
+        trackSharedData(message.getKey(), null, message);
+        bufferDelta(message, (Crdt) message.getPayload());
         return (Crdt) message.getPayload();
       }
       SharedDataMessage copy = new SharedDataMessage();
@@ -300,11 +1017,12 @@ public class GossipCore implements GossipCoreConstants {
       copy.setKey(message.getKey());
       copy.setNodeId(message.getNodeId());
       copy.setTimestamp(message.getTimestamp());
-      @SuppressWarnings("unchecked")
       Crdt merged = ((Crdt) previous.getPayload()).merge((Crdt) message.getPayload());
       copy.setPayload(merged);
       boolean replaced = sharedData.replace(message.getKey(), previous, copy);
       if (replaced) {
+        trackSharedData(message.getKey(), previous, copy);
+        bufferDelta(message, ((Crdt) message.getPayload()).delta((Crdt) previous.getPayload()));
         return merged;
       }
     }
@@ -318,6 +1036,22 @@ public class GossipCore implements GossipCoreConstants {
     eventManager.registerSharedDataSubscriber(handler);
   }
 
+  void registerPerNodeDataSubscriber(String key, UpdateNodeDataEventHandler handler) {
+    eventManager.registerPerNodeDataSubscriber(key, handler);
+  }
+
+  void registerPerNodeDataPrefixSubscriber(String prefix, UpdateNodeDataEventHandler handler) {
+    eventManager.registerPerNodeDataPrefixSubscriber(prefix, handler);
+  }
+
+  void registerSharedDataSubscriber(String key, UpdateSharedDataEventHandler handler) {
+    eventManager.registerSharedDataSubscriber(key, handler);
+  }
+
+  void registerSharedDataPrefixSubscriber(String prefix, UpdateSharedDataEventHandler handler) {
+    eventManager.registerSharedDataPrefixSubscriber(prefix, handler);
+  }
+
   void unregisterPerNodeDataSubscriber(UpdateNodeDataEventHandler handler) {
     eventManager.unregisterPerNodeDataSubscriber(handler);
   }
@@ -326,6 +1060,41 @@ public class GossipCore implements GossipCoreConstants {
     eventManager.unregisterSharedDataSubscriber(handler);
   }
 
+  /** A per-node data entry by owner and key, or a shared data entry with no owner. */
+  private static class DataKey {
+    private final String nodeId;
+    private final String key;
+
+    DataKey(String nodeId, String key) {
+      this.nodeId = nodeId;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof DataKey)) {
+        return false;
+      }
+      DataKey other = (DataKey) o;
+      return Objects.equals(nodeId, other.nodeId) && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Objects.hashCode(nodeId) + key.hashCode();
+    }
+  }
+
+  private static class PendingDelta {
+    private final SharedDataMessage message;
+    private final int roundsLeft;
+
+    PendingDelta(SharedDataMessage message, int roundsLeft) {
+      this.message = message;
+      this.roundsLeft = roundsLeft;
+    }
+  }
+
   static class LatchAndBase {
     private final CountDownLatch latch;
     private volatile Base base;
@@ -26,4 +26,14 @@ public interface GossipCoreConstants {
   String MESSAGE_SERDE_EXCEPTION = "gossip.core.message_serde_exception";
   String MESSAGE_TRANSMISSION_EXCEPTION = "gossip.core.message_transmission_exception";
   String MESSAGE_TRANSMISSION_SUCCESS = "gossip.core.message_transmission_success";
+  String MESSAGE_TRANSMISSION_TIME = "gossip.core.message_transmission_time";
+  String MESSAGE_TRANSMISSION_BYTES = "gossip.core.message_transmission_bytes";
+  String LOCAL_HEALTH_SCORE = "gossip.core.local_health.score";
+  String LOCAL_HEALTH_RAISED = "gossip.core.local_health.raised";
+  String LOCAL_HEALTH_DEFERRED_CONVICTIONS = "gossip.core.local_health.deferred_convictions";
+  String ADAPTIVE_GOSSIP_INTERVAL = "gossip.core.adaptive.interval";
+  String ADAPTIVE_GOSSIP_FANOUT = "gossip.core.adaptive.fanout";
+  String ADAPTIVE_GOSSIP_MESSAGES = "gossip.core.adaptive.messages";
+  String ADAPTIVE_GOSSIP_CONVERGENCE_TIME = "gossip.core.adaptive.convergence_time";
+  String LISTENER_OVERFLOWS = "gossip.core.listener.overflows";
 }
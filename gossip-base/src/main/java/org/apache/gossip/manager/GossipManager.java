@@ -23,18 +23,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.io.Serial;
 import java.net.URI;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.gossip.GossipSettings;
 import org.apache.gossip.LocalMember;
@@ -67,7 +64,7 @@ public class GossipManager {
         }
       };
 
-  private final ConcurrentSkipListMap<LocalMember, GossipState> members;
+  private final MemberStateMap members;
   private final LocalMember me;
   private final GossipSettings settings;
   private final AtomicBoolean gossipServiceRunning;
@@ -79,6 +76,8 @@ public class GossipManager {
   private final RingStatePersister ringState;
   private final UserDataPersister userDataState;
   private final GossipMemberStateRefresher memberStateRefresher;
+  private final SwimProber prober;
+  private final LocalHealth localHealth;
   private final MessageHandler messageHandler;
   private final LockManager lockManager;
   private TransportManager transportManager;
@@ -111,7 +110,7 @@ public class GossipManager {
     gossipCore = new GossipCore(this, registry);
     this.lockManager = new LockManager(this, settings.getLockManagerSettings(), registry);
     dataReaper = new DataReaper(gossipCore, clock);
-    members = new ConcurrentSkipListMap<>();
+    members = new MemberStateMap();
     for (Member startupMember : gossipMembers) {
       if (!startupMember.equals(me)) {
         LocalMember member =
@@ -137,8 +136,11 @@ public class GossipManager {
             gossipCore,
             GossipManager.buildPerNodeDataPath(this),
             GossipManager.buildSharedDataPath(this));
+    this.localHealth = new LocalHealth(settings.getMaxLocalHealth(), registry);
     this.memberStateRefresher =
-        new GossipMemberStateRefresher(members, settings, listener, this::findPerNodeGossipData);
+        new GossipMemberStateRefresher(
+            members, settings, listener, this::findPerNodeGossipData, localHealth, registry);
+    this.prober = settings.getProbeInterval() > 0 ? new SwimProber(this, gossipCore) : null;
     readSavedRingState();
     readSavedDataState();
   }
@@ -177,7 +179,7 @@ public class GossipManager {
     return messageHandler;
   }
 
-  public ConcurrentSkipListMap<LocalMember, GossipState> getMembers() {
+  public MemberStateMap getMembers() {
     return members;
   }
 
@@ -189,28 +191,28 @@ public class GossipManager {
    * @return a read only list of members found in the DOWN state.
    */
   public List<LocalMember> getDeadMembers() {
-    return Collections.unmodifiableList(
-        members.entrySet().stream()
-            .filter(entry -> GossipState.DOWN.equals(entry.getValue()))
-            .map(Entry::getKey)
-            .collect(Collectors.toList()));
+    return members.getDead();
   }
 
   /**
    * @return a read only list of members found in the UP state
    */
   public List<LocalMember> getLiveMembers() {
-    return Collections.unmodifiableList(
-        members.entrySet().stream()
-            .filter(entry -> GossipState.UP.equals(entry.getValue()))
-            .map(Entry::getKey)
-            .collect(Collectors.toList()));
+    return members.getLive();
   }
 
   public LocalMember getMyself() {
     return me;
   }
 
+  /**
+   * @param uri the URI a member is reachable at, as a string.
+   * @return the member, live or dead, or null if none is known at that URI.
+   */
+  public LocalMember getMember(String uri) {
+    return members.getByUri(uri);
+  }
+
   /**
    * Starts the client. Specifically, start the various cycles for this protocol. Start the gossip
    * thread and start the receiver thread.
@@ -244,6 +246,9 @@ public class GossipManager {
       scheduledServiced.scheduleAtFixedRate(userDataState, 60, 60, TimeUnit.SECONDS);
     }
     memberStateRefresher.init();
+    if (prober != null) {
+      prober.init();
+    }
     log.debug("The GossipManager is started.");
   }
 
@@ -284,6 +289,9 @@ public class GossipManager {
   /** Shutdown the gossip service. */
   public void shutdown() {
     gossipServiceRunning.set(false);
+    if (prober != null) {
+      prober.shutdown();
+    }
     lockManager.shutdown();
     gossipCore.shutdown();
     transportManager.shutdown();
@@ -383,6 +391,17 @@ public class GossipManager {
     return memberStateRefresher;
   }
 
+  /**
+   * @return the SWIM failure detector, null if the probe interval is not set.
+   */
+  public SwimProber getProber() {
+    return prober;
+  }
+
+  public LocalHealth getLocalHealth() {
+    return localHealth;
+  }
+
   public Clock getClock() {
     return clock;
   }
@@ -409,6 +428,40 @@ public class GossipManager {
     gossipCore.registerSharedDataSubscriber(handler);
   }
 
+  /**
+   * @param key the only per-node data key the handler is notified of, on any node.
+   * @param handler to notify.
+   */
+  public void registerPerNodeDataSubscriber(String key, UpdateNodeDataEventHandler handler) {
+    gossipCore.registerPerNodeDataSubscriber(key, handler);
+  }
+
+  /**
+   * @param prefix of the per-node data keys the handler is notified of, on any node.
+   * @param handler to notify.
+   */
+  public void registerPerNodeDataPrefixSubscriber(
+      String prefix, UpdateNodeDataEventHandler handler) {
+    gossipCore.registerPerNodeDataPrefixSubscriber(prefix, handler);
+  }
+
+  /**
+   * @param key the only shared data key the handler is notified of.
+   * @param handler to notify.
+   */
+  public void registerSharedDataSubscriber(String key, UpdateSharedDataEventHandler handler) {
+    gossipCore.registerSharedDataSubscriber(key, handler);
+  }
+
+  /**
+   * @param prefix of the shared data keys the handler is notified of.
+   * @param handler to notify.
+   */
+  public void registerSharedDataPrefixSubscriber(
+      String prefix, UpdateSharedDataEventHandler handler) {
+    gossipCore.registerSharedDataPrefixSubscriber(prefix, handler);
+  }
+
   public void unregisterPerNodeDataSubscriber(UpdateNodeDataEventHandler handler) {
     gossipCore.unregisterPerNodeDataSubscriber(handler);
   }
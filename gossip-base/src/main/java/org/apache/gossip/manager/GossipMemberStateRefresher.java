@@ -18,45 +18,89 @@
 
 package org.apache.gossip.manager;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.*;
 import java.util.function.BiFunction;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.gossip.GossipSettings;
 import org.apache.gossip.LocalMember;
+import org.apache.gossip.accrual.PhiThreshold;
 import org.apache.gossip.event.GossipListener;
 import org.apache.gossip.event.GossipState;
 import org.apache.gossip.model.PerNodeDataMessage;
 import org.apache.gossip.model.ShutdownMessage;
 
+/**
+ * Decides whether each member is up or down and tells the listeners when that changes. Reading a
+ * member's state, changing it and publishing the change happen under this object's lock, taken by
+ * every entry point: the sweep, the receive workers and the prober all evaluate the same members,
+ * and a change published out of order would leave the listeners at a state the map no longer has.
+ */
 @Slf4j
-public class GossipMemberStateRefresher {
+public class GossipMemberStateRefresher implements GossipCoreConstants {
+
+  /** members waiting in order for each listener, as many as the listener executor queue held. */
+  private static final int LISTENER_QUEUE_CAPACITY = 1024;
 
-  private final Map<LocalMember, GossipState> members;
+  private final MemberStateMap members;
   private final GossipSettings settings;
-  private final List<GossipListener> listeners = new CopyOnWriteArrayList<>();
+  private final List<ListenerQueue> listeners = new CopyOnWriteArrayList<>();
   private final Clock clock;
   private final BiFunction<String, String, PerNodeDataMessage> findPerNodeGossipData;
   private final ExecutorService listenerExecutor;
   private final ScheduledExecutorService scheduledExecutor;
-  private final BlockingQueue<Runnable> workQueue;
+  private final Meter listenerOverflows;
+  private final LocalHealth localHealth;
+
+  /** the convict threshold, and the one scaled by local health, as of the latest sweep. */
+  private PhiThreshold convictThreshold;
+
+  private PhiThreshold healthThreshold;
+
+  /** members the prober confirmed down, with the heartbeat they were last seen at. */
+  private final ConcurrentHashMap<LocalMember, Long> confirmedDown = new ConcurrentHashMap<>();
 
   public GossipMemberStateRefresher(
-      Map<LocalMember, GossipState> members,
+      MemberStateMap members,
       GossipSettings settings,
       GossipListener listener,
       BiFunction<String, String, PerNodeDataMessage> findPerNodeGossipData) {
+    this(
+        members,
+        settings,
+        listener,
+        findPerNodeGossipData,
+        new LocalHealth(0, new MetricRegistry()));
+  }
+
+  public GossipMemberStateRefresher(
+      MemberStateMap members,
+      GossipSettings settings,
+      GossipListener listener,
+      BiFunction<String, String, PerNodeDataMessage> findPerNodeGossipData,
+      LocalHealth localHealth) {
+    this(members, settings, listener, findPerNodeGossipData, localHealth, new MetricRegistry());
+  }
+
+  public GossipMemberStateRefresher(
+      MemberStateMap members,
+      GossipSettings settings,
+      GossipListener listener,
+      BiFunction<String, String, PerNodeDataMessage> findPerNodeGossipData,
+      LocalHealth localHealth,
+      MetricRegistry registry) {
     this.members = members;
+    this.localHealth = localHealth;
     this.settings = settings;
-    listeners.add(listener);
     this.findPerNodeGossipData = findPerNodeGossipData;
     clock = new SystemClock();
-    workQueue = new ArrayBlockingQueue<>(1024);
-    listenerExecutor =
-        new ThreadPoolExecutor(
-            1, 20, 1, TimeUnit.SECONDS, workQueue, new ThreadPoolExecutor.DiscardOldestPolicy());
+    // at most one task per listener, each draining its own queue.
+    listenerExecutor = Executors.newCachedThreadPool();
+    listenerOverflows = registry.meter(LISTENER_OVERFLOWS);
+    register(listener);
     scheduledExecutor = Executors.newScheduledThreadPool(1);
   }
 
@@ -66,36 +110,113 @@ public class GossipMemberStateRefresher {
 
   public void run() {
     try {
+      localHealth.tick(clock.nanoTime(), TimeUnit.MILLISECONDS.toNanos(100));
       runOnce();
     } catch (RuntimeException ex) {
       log.warn("scheduled state had exception", ex);
     }
   }
 
-  public void runOnce() {
+  /**
+   * Re-evaluate every member. This is the periodic sweep that catches members gone silent. The
+   * thresholds are turned into times since the latest heartbeat once per sweep, so no member needs
+   * phi itself, see {@link PhiThreshold}.
+   */
+  public synchronized void runOnce() {
+    double threshold = settings.getConvictThreshold();
+    convictThreshold = threshold(convictThreshold, threshold);
+    healthThreshold = threshold(healthThreshold, threshold * localHealth.getMultiplier());
+    long now = clock.nanoTime();
     for (Entry<LocalMember, GossipState> entry : members.entrySet()) {
-      boolean userDown = processOptimisticShutdown(entry);
-      if (userDown) continue;
+      LocalMember member = entry.getKey();
+      boolean known = member.phiKnown();
+      evaluate(
+          member,
+          entry.getValue(),
+          known,
+          known && member.phiBeyond(now, convictThreshold),
+          known && member.phiBeyond(now, healthThreshold));
+    }
+  }
 
-      Double phiMeasure = entry.getKey().detect(clock.nanoTime());
-      GossipState requiredState;
+  /**
+   * @return the current threshold if it is still the value, otherwise a new one.
+   */
+  private PhiThreshold threshold(PhiThreshold current, double value) {
+    return current != null && current.getThreshold() == value
+        ? current
+        : new PhiThreshold(value, settings.getDistribution());
+  }
 
-      if (phiMeasure != null) {
-        requiredState = calcRequiredState(phiMeasure);
-      } else {
-        requiredState = calcRequiredStateCleanupInterval(entry.getKey(), entry.getValue());
-      }
+  /**
+   * Re-evaluate a single member, typically because its heartbeat or shutdown state just changed.
+   *
+   * @param member member to consider
+   */
+  public synchronized void evaluate(LocalMember member) {
+    GossipState state = members.get(member);
+    if (state != null) {
+      evaluate(member, state);
+    }
+  }
 
-      if (entry.getValue() != requiredState) {
-        members.put(entry.getKey(), requiredState);
-        /* Call listeners asynchronously */
-        for (GossipListener listener : listeners)
-          listenerExecutor.execute(() -> listener.gossipEvent(entry.getKey(), requiredState));
+  /**
+   * Re-evaluate a single member by id.
+   *
+   * @param memberId id of the member to consider
+   */
+  public synchronized void evaluate(String memberId) {
+    LocalMember member = members.getById(memberId);
+    if (member != null) {
+      evaluate(member);
+    }
+  }
+
+  private void evaluate(LocalMember member, GossipState state) {
+    double phiMeasure = member.phi(clock.nanoTime());
+    evaluate(
+        member,
+        state,
+        !Double.isNaN(phiMeasure),
+        calcRequiredState(phiMeasure) == GossipState.DOWN,
+        phiMeasure > settings.getConvictThreshold() * localHealth.getMultiplier());
+  }
+
+  /**
+   * @param known whether phi is known for the member.
+   * @param convicted whether phi is beyond the convict threshold.
+   * @param beyondHealth whether phi is beyond the threshold scaled by our local health.
+   */
+  private void evaluate(
+      LocalMember member,
+      GossipState state,
+      boolean known,
+      boolean convicted,
+      boolean beyondHealth) {
+    boolean userDown = processOptimisticShutdown(member, state);
+    if (userDown) return;
+    if (processConfirmedDown(member, state)) return;
+
+    GossipState requiredState;
+
+    if (known) {
+      requiredState = convicted ? GossipState.DOWN : GossipState.UP;
+      if (requiredState == GossipState.DOWN && state == GossipState.UP && !beyondHealth) {
+        // while this member is struggling itself, late heartbeats are more likely its own fault.
+        localHealth.deferConviction();
+        return;
       }
+    } else {
+      requiredState = calcRequiredStateCleanupInterval(member, state);
+    }
+
+    if (state != requiredState) {
+      members.put(member, requiredState);
+      publish(member, requiredState);
     }
   }
 
-  public GossipState calcRequiredState(Double phiMeasure) {
+  public GossipState calcRequiredState(double phiMeasure) {
     if (phiMeasure > settings.getConvictThreshold()) return GossipState.DOWN;
     else return GossipState.UP;
   }
@@ -117,26 +238,68 @@ public class GossipMemberStateRefresher {
    * @param l member to consider
    * @return true if node forced down
    */
-  public boolean processOptimisticShutdown(Entry<LocalMember, GossipState> l) {
+  public synchronized boolean processOptimisticShutdown(Entry<LocalMember, GossipState> l) {
+    return processOptimisticShutdown(l.getKey(), l.getValue());
+  }
+
+  private boolean processOptimisticShutdown(LocalMember member, GossipState state) {
     PerNodeDataMessage m =
-        findPerNodeGossipData.apply(l.getKey().getId(), ShutdownMessage.PER_NODE_KEY);
+        findPerNodeGossipData.apply(member.getId(), ShutdownMessage.PER_NODE_KEY);
     if (m == null) {
       return false;
     }
     ShutdownMessage s = (ShutdownMessage) m.getPayload();
-    if (s.getShutdownAtNanos() > l.getKey().getHeartbeat()) {
-      members.put(l.getKey(), GossipState.DOWN);
-      if (l.getValue() == GossipState.UP) {
-        for (GossipListener listener : listeners)
-          listenerExecutor.execute(() -> listener.gossipEvent(l.getKey(), GossipState.DOWN));
+    if (s.getShutdownAtNanos() > member.getHeartbeat()) {
+      members.put(member, GossipState.DOWN);
+      if (state == GossipState.UP) {
+        publish(member, GossipState.DOWN);
       }
       return true;
     }
     return false;
   }
 
+  /**
+   * Declare a member down that failed its probes and did not refute the suspicion in time. It stays
+   * down, whatever the heartbeat history says, until a newer heartbeat arrives.
+   *
+   * @param member member to consider
+   * @param heartbeat the heartbeat the member was suspected at
+   */
+  public synchronized void confirmDown(LocalMember member, long heartbeat) {
+    confirmedDown.put(member, heartbeat);
+    evaluate(member);
+  }
+
+  private boolean processConfirmedDown(LocalMember member, GossipState state) {
+    Long heartbeat = confirmedDown.get(member);
+    if (heartbeat == null) {
+      return false;
+    }
+    if (member.getHeartbeat() > heartbeat) {
+      confirmedDown.remove(member, heartbeat);
+      return false;
+    }
+    if (state != GossipState.DOWN) {
+      members.put(member, GossipState.DOWN);
+      publish(member, GossipState.DOWN);
+    }
+    return true;
+  }
+
+  /**
+   * Call listeners asynchronously, each in the order its members changed, see {@link
+   * ListenerQueue}.
+   */
+  private void publish(LocalMember member, GossipState state) {
+    for (ListenerQueue listener : listeners) {
+      listener.offer(member, state);
+    }
+  }
+
   public void register(GossipListener listener) {
-    listeners.add(listener);
+    listeners.add(
+        new ListenerQueue(listener, listenerExecutor, LISTENER_QUEUE_CAPACITY, listenerOverflows));
   }
 
   public void shutdown() {
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import com.codahale.metrics.Meter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.event.GossipListener;
+import org.apache.gossip.event.GossipState;
+
+/**
+ * Delivers state changes to one listener, in order and without losing any. Members wait in a ring
+ * in the order they changed, while their latest state waits in a map, so a member that changes
+ * again before the listener caught up takes one slot and the listener only sees where it ended up.
+ * A single consumer at a time drains the ring on the executor, so every member's changes arrive in
+ * order. Should more members wait than the ring holds, the rest are still in the map: they are
+ * counted as overflows and delivered after the ring, never dropped.
+ */
+@Slf4j
+class ListenerQueue implements Runnable {
+
+  private final GossipListener listener;
+  private final Executor executor;
+  private final Meter overflows;
+  private final LocalMember[] ring;
+  private final int mask;
+  private final ConcurrentHashMap<LocalMember, GossipState> pending = new ConcurrentHashMap<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  /** producers append at head under the ring's lock, the consumer takes from tail. */
+  private volatile long head;
+
+  private volatile long tail;
+  private volatile boolean overflowed;
+
+  /** the states the listener saw last, only touched by the consumer. */
+  private final Map<LocalMember, GossipState> delivered = new HashMap<>();
+
+  /**
+   * @param listener to deliver to.
+   * @param executor to drain the queue on, one task at a time.
+   * @param capacity members waiting in order, rounded up to a power of two.
+   * @param overflows marked for every member that did not fit.
+   */
+  ListenerQueue(GossipListener listener, Executor executor, int capacity, Meter overflows) {
+    this.listener = listener;
+    this.executor = executor;
+    this.overflows = overflows;
+    ring = new LocalMember[Integer.highestOneBit(Math.max(1, capacity - 1)) << 1];
+    mask = ring.length - 1;
+  }
+
+  /**
+   * @param member that changed.
+   * @param state it changed to.
+   */
+  void offer(LocalMember member, GossipState state) {
+    if (pending.put(member, state) == null) {
+      synchronized (ring) {
+        if (head - tail == ring.length) {
+          overflowed = true;
+          overflows.mark();
+        } else {
+          ring[(int) head & mask] = member;
+          head++;
+        }
+      }
+    }
+    schedule();
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) {
+      executor.execute(this);
+    }
+  }
+
+  private boolean isEmpty() {
+    return head == tail && !overflowed;
+  }
+
+  @Override
+  public void run() {
+    do {
+      drain();
+      scheduled.set(false);
+      // a producer may have added after the drain but seen us still scheduled.
+    } while (!isEmpty() && scheduled.compareAndSet(false, true));
+  }
+
+  private void drain() {
+    while (head != tail) {
+      int slot = (int) tail & mask;
+      LocalMember member = ring[slot];
+      ring[slot] = null;
+      tail++;
+      deliver(member);
+    }
+    if (overflowed) {
+      overflowed = false;
+      for (LocalMember member : pending.keySet()) {
+        deliver(member);
+      }
+    }
+  }
+
+  private void deliver(LocalMember member) {
+    GossipState state = pending.remove(member);
+    // already delivered with the overflow, or changed back to what the listener saw last.
+    if (state == null || delivered.put(member, state) == state) {
+      return;
+    }
+    try {
+      listener.gossipEvent(member, state);
+    } catch (RuntimeException ex) {
+      log.warn("listener failed on " + member + " " + state, ex);
+    }
+  }
+}
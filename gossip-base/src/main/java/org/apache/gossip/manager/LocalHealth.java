@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lifeguard style local health: how likely it is that this member, not its peers, is the slow one.
+ * The score rises when our probes go unanswered, when we have to refute a suspicion of ourselves,
+ * when our scheduled work runs late or when received messages wait long in the queue, all signs of
+ * a pause or a starved CPU here. It falls again as probes succeed and work runs on time. Timeouts
+ * and the convict threshold are multiplied by score + 1, so a struggling member is slow to blame
+ * others for its own delays.
+ */
+public class LocalHealth implements GossipCoreConstants {
+
+  /** consecutive on time ticks that lower the score by one. */
+  private static final int RECOVERY_TICKS = 10;
+
+  private final int max;
+  private final AtomicInteger score = new AtomicInteger();
+  private final AtomicLong maxQueueWait = new AtomicLong();
+  private final Meter raised;
+  private final Meter deferredConvictions;
+  private long lastTick;
+  private int onTimeTicks;
+
+  /**
+   * @param max the highest score, 0 to disable.
+   * @param metrics where the score and how often it was raised are reported.
+   */
+  public LocalHealth(int max, MetricRegistry metrics) {
+    this.max = max;
+    metrics.register(LOCAL_HEALTH_SCORE, (Gauge<Integer>) score::get);
+    raised = metrics.meter(LOCAL_HEALTH_RAISED);
+    deferredConvictions = metrics.meter(LOCAL_HEALTH_DEFERRED_CONVICTIONS);
+  }
+
+  /** Something suggests this member is slow, raise the score. */
+  public void degrade() {
+    if (score.getAndUpdate(s -> Math.min(max, s + 1)) < max) {
+      raised.mark();
+    }
+  }
+
+  /** Something suggests this member keeps up, lower the score. */
+  public void recover() {
+    score.getAndUpdate(s -> Math.max(0, s - 1));
+  }
+
+  public int getScore() {
+    return score.get();
+  }
+
+  /**
+   * @return the factor for timeouts and the convict threshold, 1 while healthy.
+   */
+  public int getMultiplier() {
+    return score.get() + 1;
+  }
+
+  /**
+   * @param nanos how long a received message waited for a worker.
+   */
+  public void recordQueueWait(long nanos) {
+    maxQueueWait.accumulateAndGet(nanos, Math::max);
+  }
+
+  /** Count a conviction the multiplier held back. */
+  public void deferConviction() {
+    deferredConvictions.mark();
+  }
+
+  /**
+   * Called from a task scheduled every {@code intervalNanos}. A tick more than an interval late, or
+   * a message that waited longer than an interval since the last tick, raises the score; a run of
+   * ticks without either lowers it. Not thread safe, there is a single ticking task.
+   *
+   * @param now the current time in nanoseconds.
+   * @param intervalNanos the interval the task is scheduled at.
+   */
+  public void tick(long now, long intervalNanos) {
+    long previous = lastTick;
+    lastTick = now;
+    long wait = maxQueueWait.getAndSet(0);
+    if (previous == 0) {
+      return;
+    }
+    if (now - previous - intervalNanos > intervalNanos || wait > intervalNanos) {
+      onTimeTicks = 0;
+      degrade();
+    } else if (++onTimeTicks >= RECOVERY_TICKS) {
+      onTimeTicks = 0;
+      recover();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.util.BitSet;
+import java.util.TreeMap;
+
+/**
+ * The change log position a member acknowledged, and the batches sent to it since that are still
+ * waiting for acknowledgement, by the log position each one reaches. A batch sent while an earlier
+ * one is in flight does not discard it, so the acknowledged position moves as soon as any batch is
+ * fully applied even when changes keep arriving or acknowledgements take longer than a round.
+ */
+class LogProgress {
+
+  /** batches in flight beyond this many are forgotten, oldest first. */
+  static final int MAX_PENDING = 8;
+
+  private final TreeMap<Long, BitSet> pending = new TreeMap<>();
+  private String incarnation;
+  private long acknowledged;
+
+  synchronized long acknowledged() {
+    return acknowledged;
+  }
+
+  synchronized int pending() {
+    return pending.size();
+  }
+
+  /**
+   * Record a batch about to be sent. A batch sent again to the same position starts over.
+   *
+   * @param to the log position the batch reaches.
+   * @param chunks the number of chunks the batch is sent in.
+   */
+  synchronized void expect(long to, int chunks) {
+    if (to <= acknowledged) {
+      return;
+    }
+    BitSet chunkSet = new BitSet(chunks);
+    chunkSet.set(0, chunks);
+    pending.put(to, chunkSet);
+    while (pending.size() > MAX_PENDING) {
+      pending.pollFirstEntry();
+    }
+  }
+
+  /**
+   * Record one acknowledged chunk, moving the acknowledged position to the batch once all of its
+   * chunks are in. Batches up to that position are no longer needed.
+   *
+   * @param incarnation identifies the process of the member.
+   * @param to the log position of the batch.
+   * @param chunk the chunk applied.
+   */
+  synchronized void acknowledge(String incarnation, long to, int chunk) {
+    if (this.incarnation != null && !this.incarnation.equals(incarnation)) {
+      // a restarted member lost everything it acknowledged before.
+      acknowledged = 0;
+      pending.clear();
+    }
+    this.incarnation = incarnation;
+    BitSet chunkSet = pending.get(to);
+    if (chunkSet == null) {
+      return;
+    }
+    chunkSet.clear(chunk);
+    if (chunkSet.isEmpty()) {
+      acknowledged = Math.max(acknowledged, to);
+      pending.headMap(to, true).clear();
+    }
+  }
+}
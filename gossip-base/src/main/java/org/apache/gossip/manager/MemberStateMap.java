@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.event.GossipState;
+
+/**
+ * The state of every member, keeping read only lists of the live and the dead members that are
+ * built again only after the map changes. Gossip rounds, lock votes and shutdown ask for those
+ * lists far more often than members come, go or change state, and now get the same lists back until
+ * then. Every change moves the version, so others can cache what they derive from it.
+ */
+public class MemberStateMap extends ConcurrentSkipListMap<LocalMember, GossipState> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final AtomicLong version = new AtomicLong();
+  private final ConcurrentHashMap<String, LocalMember> byId = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, LocalMember> byUri = new ConcurrentHashMap<>();
+  private transient volatile Snapshot snapshot;
+
+  private static final class Snapshot {
+    private final long version;
+    private final List<LocalMember> live;
+    private final List<LocalMember> dead;
+
+    private Snapshot(long version, List<LocalMember> live, List<LocalMember> dead) {
+      this.version = version;
+      this.live = live;
+      this.dead = dead;
+    }
+  }
+
+  /**
+   * @return moves whenever a member is added, removed or changes state.
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /** Something the map cannot see changed, the properties of a member for instance. */
+  public void touch() {
+    version.incrementAndGet();
+  }
+
+  /**
+   * @param id the id of a member.
+   * @return the member last added with that id, or null if there is none.
+   */
+  public LocalMember getById(String id) {
+    return id == null ? null : byId.get(id);
+  }
+
+  /**
+   * @param uri the URI a member is reachable at, as a string.
+   * @return the member last added at that URI, or null if there is none.
+   */
+  public LocalMember getByUri(String uri) {
+    return uri == null ? null : byUri.get(uri);
+  }
+
+  /**
+   * @return a read only list of members found in the UP state.
+   */
+  public List<LocalMember> getLive() {
+    return snapshot().live;
+  }
+
+  /**
+   * @return a read only list of members found in the DOWN state.
+   */
+  public List<LocalMember> getDead() {
+    return snapshot().dead;
+  }
+
+  private Snapshot snapshot() {
+    Snapshot current = snapshot;
+    // read before the members, a change while building leaves the snapshot stale, not wrong.
+    long now = version.get();
+    if (current != null && current.version == now) {
+      return current;
+    }
+    List<LocalMember> live = new ArrayList<>();
+    List<LocalMember> dead = new ArrayList<>();
+    for (Entry<LocalMember, GossipState> entry : entrySet()) {
+      if (GossipState.UP.equals(entry.getValue())) {
+        live.add(entry.getKey());
+      } else if (GossipState.DOWN.equals(entry.getValue())) {
+        dead.add(entry.getKey());
+      }
+    }
+    current =
+        new Snapshot(now, Collections.unmodifiableList(live), Collections.unmodifiableList(dead));
+    snapshot = current;
+    return current;
+  }
+
+  private void indexAdded(LocalMember member) {
+    if (member.getId() != null) {
+      byId.put(member.getId(), member);
+    }
+    if (member.getUri() != null) {
+      byUri.put(member.getUri().toASCIIString(), member);
+    }
+  }
+
+  private void indexRemoved(Object key) {
+    if (!(key instanceof LocalMember)) {
+      return;
+    }
+    LocalMember removed = (LocalMember) key;
+    // keep an entry if the member is back, or another member with the id or URI is indexed.
+    if (removed.getId() != null) {
+      byId.computeIfPresent(removed.getId(), (id, member) -> containsKey(member) ? member : null);
+    }
+    if (removed.getUri() != null) {
+      byUri.computeIfPresent(
+          removed.getUri().toASCIIString(), (uri, member) -> containsKey(member) ? member : null);
+    }
+  }
+
+  /** after changes made through compute and the like, which are not used by gossip itself. */
+  private void reindex() {
+    byId.clear();
+    byUri.clear();
+    for (LocalMember member : keySet()) {
+      indexAdded(member);
+    }
+  }
+
+  // every change is made before the version moves, see snapshot().
+
+  @Override
+  public GossipState put(LocalMember key, GossipState value) {
+    GossipState previous = super.put(key, value);
+    if (previous == null) {
+      indexAdded(key);
+    }
+    if (previous != value) {
+      touch();
+    }
+    return previous;
+  }
+
+  @Override
+  public GossipState putIfAbsent(LocalMember key, GossipState value) {
+    GossipState previous = super.putIfAbsent(key, value);
+    if (previous == null) {
+      indexAdded(key);
+      touch();
+    }
+    return previous;
+  }
+
+  @Override
+  public GossipState remove(Object key) {
+    GossipState previous = super.remove(key);
+    if (previous != null) {
+      indexRemoved(key);
+      touch();
+    }
+    return previous;
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    boolean removed = super.remove(key, value);
+    if (removed) {
+      indexRemoved(key);
+      touch();
+    }
+    return removed;
+  }
+
+  @Override
+  public GossipState replace(LocalMember key, GossipState value) {
+    GossipState previous = super.replace(key, value);
+    if (previous != null && previous != value) {
+      touch();
+    }
+    return previous;
+  }
+
+  @Override
+  public boolean replace(LocalMember key, GossipState oldValue, GossipState newValue) {
+    boolean replaced = super.replace(key, oldValue, newValue);
+    if (replaced && oldValue != newValue) {
+      touch();
+    }
+    return replaced;
+  }
+
+  @Override
+  public GossipState compute(
+      LocalMember key,
+      BiFunction<? super LocalMember, ? super GossipState, ? extends GossipState> function) {
+    GossipState result = super.compute(key, function);
+    reindex();
+    touch();
+    return result;
+  }
+
+  @Override
+  public GossipState computeIfAbsent(
+      LocalMember key, Function<? super LocalMember, ? extends GossipState> function) {
+    GossipState result = super.computeIfAbsent(key, function);
+    reindex();
+    touch();
+    return result;
+  }
+
+  @Override
+  public GossipState computeIfPresent(
+      LocalMember key,
+      BiFunction<? super LocalMember, ? super GossipState, ? extends GossipState> function) {
+    GossipState result = super.computeIfPresent(key, function);
+    reindex();
+    touch();
+    return result;
+  }
+
+  @Override
+  public GossipState merge(
+      LocalMember key,
+      GossipState value,
+      BiFunction<? super GossipState, ? super GossipState, ? extends GossipState> function) {
+    GossipState result = super.merge(key, value, function);
+    reindex();
+    touch();
+    return result;
+  }
+
+  @Override
+  public void replaceAll(
+      BiFunction<? super LocalMember, ? super GossipState, ? extends GossipState> function) {
+    super.replaceAll(function);
+    touch();
+  }
+
+  @Override
+  public Entry<LocalMember, GossipState> pollFirstEntry() {
+    Entry<LocalMember, GossipState> entry = super.pollFirstEntry();
+    if (entry != null) {
+      indexRemoved(entry.getKey());
+      touch();
+    }
+    return entry;
+  }
+
+  @Override
+  public Entry<LocalMember, GossipState> pollLastEntry() {
+    Entry<LocalMember, GossipState> entry = super.pollLastEntry();
+    if (entry != null) {
+      indexRemoved(entry.getKey());
+      touch();
+    }
+    return entry;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    byId.clear();
+    byUri.clear();
+    touch();
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.util.List;
+import org.apache.gossip.LocalMember;
+
+/**
+ * Chooses the members a gossip round goes to. Gossipers keep one selector per group of members they
+ * gossip with, so a selector may remember what it chose before. Implementations need a public no
+ * argument constructor, see GossipSettings.setPartnerSelectorClass.
+ */
+public interface PartnerSelector {
+
+  /**
+   * @param candidates the members to choose from, the list is not modified.
+   * @param count how many to choose.
+   * @return up to count distinct members, none if there are no candidates.
+   */
+  List<LocalMember> select(List<LocalMember> candidates, int count);
+
+  /**
+   * @param candidates the members to choose from, the list is not modified.
+   * @return one member, or null if there are no candidates.
+   */
+  default LocalMember select(List<LocalMember> candidates) {
+    List<LocalMember> chosen = select(candidates, 1);
+    return chosen.isEmpty() ? null : chosen.get(0);
+  }
+}
@@ -20,4 +20,11 @@ package org.apache.gossip.manager;
 public interface PassiveGossipConstants {
   String SIGNED_MESSAGE = "gossip.passive.signed_message";
   String UNSIGNED_MESSAGE = "gossip.passive.unsigned_message";
+  String SIGNATURE_VERIFY_TIME = "gossip.passive.signature.verify_time";
+  String SIGNATURE_REJECTED = "gossip.passive.signature.rejected";
+  String RECEIVE_QUEUE_DEPTH = "gossip.passive.receive_queue.depth";
+  String RECEIVE_DROPPED = "gossip.passive.receive_queue.dropped";
+  String RECEIVE_QUEUE_WAIT = "gossip.passive.receive_queue.wait";
+  String RECEIVE_DECODE_TIME = "gossip.passive.decode_time";
+  String RECEIVE_DISPATCH_TIME = "gossip.passive.dispatch_time";
 }
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.apache.gossip.LocalMember;
+
+/** Picks uniformly at random each time, some members may go many rounds without a pick. */
+public class RandomPartnerSelector implements PartnerSelector {
+
+  private final Random random = new Random();
+
+  @Override
+  public List<LocalMember> select(List<LocalMember> candidates, int count) {
+    if (candidates.isEmpty() || count < 1) {
+      return Collections.emptyList();
+    }
+    if (count == 1) {
+      return Collections.singletonList(candidates.get(random.nextInt(candidates.size())));
+    }
+    List<LocalMember> shuffled = new ArrayList<>(candidates);
+    Collections.shuffle(shuffled, random);
+    return shuffled.subList(0, Math.min(count, shuffled.size()));
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.apache.gossip.crdt.Crdt;
+import org.apache.gossip.model.DataDigest;
+
+/**
+ * A hash tree over one map of gossiped data, so two members can find the keys they disagree on by
+ * comparing a handful of hashes per level instead of listing every key.
+ *
+ * <p>Keys are spread over {@code 2^depth} buckets by the hash of the key. The tree is a complete
+ * binary tree stored as an array: node 1 is the root, the children of node {@code n} are {@code 2n}
+ * and {@code 2n + 1}, and the leaves are the buckets. Every node holds the sum of the hashes of the
+ * entries below it. Sums can be updated in place, so a change to an entry costs {@code depth + 1}
+ * atomic additions rather than rehashing its bucket, and concurrent updates need no lock because
+ * addition does not care about their order.
+ */
+public class RangeHashTree {
+
+  public static final int ROOT = 1;
+
+  /** Trees deeper than this would take more memory than the data they summarize. */
+  public static final int MAX_DEPTH = 20;
+
+  private final int depth;
+  private final AtomicLongArray nodes;
+
+  /**
+   * @param depth the number of levels below the root, between 1 and {@link #MAX_DEPTH}.
+   */
+  public RangeHashTree(int depth) {
+    if (depth < 1 || depth > MAX_DEPTH) {
+      throw new IllegalArgumentException("depth must be between 1 and " + MAX_DEPTH);
+    }
+    this.depth = depth;
+    nodes = new AtomicLongArray(2 << depth);
+  }
+
+  /**
+   * The hash an entry contributes to the tree. It agrees between members holding the same entry.
+   * The timestamp of a CRDT is left out, replicas merge to the same state at different times.
+   */
+  public static long entryHash(String key, Long timestamp, Object payload) {
+    long hash =
+        mix(((long) key.hashCode() << 32) | (DataDigest.payloadHash(payload) & 0xFFFFFFFFL));
+    if (timestamp != null && !(payload instanceof Crdt)) {
+      hash = mix(hash ^ timestamp);
+    }
+    return hash;
+  }
+
+  /** The finalizer of MurmurHash3, spreads every input bit over the whole result. */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * @return the node index of the bucket the key falls into.
+   */
+  public int leaf(String key) {
+    return (1 << depth) + (int) (mix(key.hashCode()) >>> (64 - depth));
+  }
+
+  public boolean isNode(int node) {
+    return node >= ROOT && node < nodes.length();
+  }
+
+  public boolean isLeaf(int node) {
+    return node >= 1 << depth;
+  }
+
+  /**
+   * @return the hash of everything below the node, 0 if there is nothing.
+   */
+  public long hash(int node) {
+    return nodes.get(node);
+  }
+
+  /**
+   * Account for an entry that changed. Pass 0 as the old hash of an entry that was added and as the
+   * new hash of one that was removed.
+   */
+  public void update(String key, long oldHash, long newHash) {
+    long delta = newHash - oldHash;
+    if (delta == 0) {
+      return;
+    }
+    for (int node = leaf(key); node >= ROOT; node >>>= 1) {
+      nodes.addAndGet(node, delta);
+    }
+  }
+
+  /**
+   * @return whether the leaf lies in the subtree of the node.
+   */
+  public boolean covers(int node, int leaf) {
+    return leaf >>> (depth - level(node)) == node;
+  }
+
+  /**
+   * @return the nodes {@code levels} below the node, or its leaves if they are closer.
+   */
+  public List<Integer> descendants(int node, int levels) {
+    int down = Math.min(levels, depth - level(node));
+    List<Integer> result = new ArrayList<>(1 << down);
+    for (int i = 0; i < 1 << down; i++) {
+      result.add((node << down) + i);
+    }
+    return result;
+  }
+
+  private static int level(int node) {
+    return 31 - Integer.numberOfLeadingZeros(node);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.apache.gossip.LocalMember;
+
+/**
+ * Walks the members in a random order and shuffles them again after each full pass, so every member
+ * is chosen once per pass and at most 2n - 1 picks apart. Members that join are put at a random
+ * position among those not yet chosen in this pass, members that leave are dropped.
+ */
+public class ShuffledPartnerSelector implements PartnerSelector {
+
+  private final Random random = new Random();
+  private final List<LocalMember> order = new ArrayList<>();
+  private int position;
+
+  @Override
+  public synchronized List<LocalMember> select(List<LocalMember> candidates, int count) {
+    update(candidates);
+    int wanted = Math.min(count, order.size());
+    List<LocalMember> chosen = new ArrayList<>(Math.max(0, wanted));
+    while (chosen.size() < wanted) {
+      if (position == order.size()) {
+        Collections.shuffle(order, random);
+        position = 0;
+      }
+      LocalMember member = order.get(position++);
+      // a new pass may start with a member this call already chose.
+      if (!chosen.contains(member)) {
+        chosen.add(member);
+      }
+    }
+    return chosen;
+  }
+
+  private void update(List<LocalMember> candidates) {
+    Set<LocalMember> current = new HashSet<>(candidates);
+    for (int i = order.size() - 1; i >= 0; i--) {
+      if (!current.contains(order.get(i))) {
+        order.remove(i);
+        if (i < position) {
+          position--;
+        }
+      }
+    }
+    if (order.size() == current.size()) {
+      return;
+    }
+    Set<LocalMember> known = new HashSet<>(order);
+    for (LocalMember member : candidates) {
+      if (known.add(member)) {
+        order.add(position + random.nextInt(order.size() - position + 1), member);
+      }
+    }
+  }
+}
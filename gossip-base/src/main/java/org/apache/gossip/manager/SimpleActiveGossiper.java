@@ -26,6 +26,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.GossipSettings;
 import org.apache.gossip.LocalMember;
 
 /** Base implementation gossips randomly to live nodes periodically gossips to dead ones */
@@ -35,6 +36,10 @@ public class SimpleActiveGossiper extends AbstractActiveGossiper {
   private final BlockingQueue<Runnable> workQueue;
   private ScheduledExecutorService scheduledExecutorService;
   private ThreadPoolExecutor threadService;
+  private final PartnerSelector liveSelector;
+  private final PartnerSelector deadSelector;
+  private final PartnerSelector perNodeSelector;
+  private final PartnerSelector sharedSelector;
 
   public SimpleActiveGossiper(
       GossipManager gossipManager, GossipCore gossipCore, MetricRegistry registry) {
@@ -44,14 +49,23 @@ public class SimpleActiveGossiper extends AbstractActiveGossiper {
     threadService =
         new ThreadPoolExecutor(
             1, 30, 1, TimeUnit.SECONDS, workQueue, new ThreadPoolExecutor.DiscardOldestPolicy());
+    liveSelector = newPartnerSelector();
+    deadSelector = newPartnerSelector();
+    perNodeSelector = newPartnerSelector();
+    sharedSelector = newPartnerSelector();
   }
 
   @Override
   public void init() {
     super.init();
+    GossipSettings settings = gossipManager.getSettings();
+    boolean combined = settings.getCombinedGossipSize() > 0;
+    // combined rounds carry the recent data, the data rounds only repair what they missed.
+    int dataInterval = combined ? settings.getAntiEntropyInterval() : settings.getGossipInterval();
+    // these carry the heartbeats and keep their fixed rate, adaptive or not.
     scheduledExecutorService.scheduleAtFixedRate(
         () -> {
-          threadService.execute(this::sendToALiveMember);
+          threadService.execute(combined ? this::sendRoundToALiveMember : this::sendToALiveMember);
         },
         0,
         gossipManager.getSettings().getGossipInterval(),
@@ -61,22 +75,44 @@ public class SimpleActiveGossiper extends AbstractActiveGossiper {
         0,
         gossipManager.getSettings().getGossipInterval(),
         TimeUnit.MILLISECONDS);
+    if (isAdaptive()) {
+      initAdaptive(dataInterval);
+      return;
+    }
     scheduledExecutorService.scheduleAtFixedRate(
         () ->
             sendPerNodeData(
-                gossipManager.getMyself(), selectPartner(gossipManager.getLiveMembers())),
+                gossipManager.getMyself(), perNodeSelector.select(gossipManager.getLiveMembers())),
         0,
-        gossipManager.getSettings().getGossipInterval(),
+        dataInterval,
         TimeUnit.MILLISECONDS);
     scheduledExecutorService.scheduleAtFixedRate(
         () ->
             sendSharedData(
-                gossipManager.getMyself(), selectPartner(gossipManager.getLiveMembers())),
+                gossipManager.getMyself(), sharedSelector.select(gossipManager.getLiveMembers())),
         0,
-        gossipManager.getSettings().getGossipInterval(),
+        dataInterval,
         TimeUnit.MILLISECONDS);
   }
 
+  /** The data rounds, paced and fanned out by the adaptive schedule. */
+  private void initAdaptive(int dataInterval) {
+    scheduleAdaptive(
+        scheduledExecutorService,
+        Runnable::run,
+        dataInterval,
+        gossipManager::getLiveMembers,
+        perNodeSelector,
+        this::sendPerNodeData);
+    scheduleAdaptive(
+        scheduledExecutorService,
+        Runnable::run,
+        dataInterval,
+        gossipManager::getLiveMembers,
+        sharedSelector,
+        this::sendSharedData);
+  }
+
   @Override
   public void shutdown() {
     super.shutdown();
@@ -96,12 +132,17 @@ public class SimpleActiveGossiper extends AbstractActiveGossiper {
   }
 
   protected void sendToALiveMember() {
-    LocalMember member = selectPartner(gossipManager.getLiveMembers());
+    LocalMember member = liveSelector.select(gossipManager.getLiveMembers());
     sendMembershipList(gossipManager.getMyself(), member);
   }
 
+  protected void sendRoundToALiveMember() {
+    LocalMember member = liveSelector.select(gossipManager.getLiveMembers());
+    sendGossipRound(gossipManager.getMyself(), member);
+  }
+
   protected void sendToDeadMember() {
-    LocalMember member = selectPartner(gossipManager.getDeadMembers());
+    LocalMember member = deadSelector.select(gossipManager.getDeadMembers());
     sendMembershipList(gossipManager.getMyself(), member);
   }
 
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.event.GossipState;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.Response;
+import org.apache.gossip.udp.UdpPingMessage;
+import org.apache.gossip.udp.UdpPingRequestMessage;
+
+/**
+ * SWIM style failure detection next to the heartbeat gossip. Every probe interval one live member,
+ * taken round robin in a random order reshuffled each pass, is pinged. If it does not acknowledge
+ * in time, a few other members are asked to ping it on our behalf. A member that answers neither is
+ * suspected; the suspicion rides along on the membership gossip, and every member that has not
+ * heard a newer heartbeat from the suspect by the time the suspicion expires declares it down.
+ *
+ * <p>A live member refutes a suspicion simply by gossiping, since every round carries a newer
+ * heartbeat. Each member sends one probe per interval however large the cluster is, and a failed
+ * member is probed by someone within a few intervals.
+ */
+@Slf4j
+public class SwimProber {
+
+  private final GossipManager gossipManager;
+  private final GossipCore gossipCore;
+  private final GossipSettings settings;
+  private final ScheduledExecutorService scheduledExecutorService;
+
+  /** members left to probe in this pass, used only by the probe thread. */
+  private final Deque<LocalMember> probeOrder = new ArrayDeque<>();
+
+  /** suspected members by id. */
+  private final ConcurrentHashMap<String, Suspicion> suspicions = new ConcurrentHashMap<>();
+
+  public SwimProber(GossipManager gossipManager, GossipCore gossipCore) {
+    this.gossipManager = gossipManager;
+    this.gossipCore = gossipCore;
+    settings = gossipManager.getSettings();
+    scheduledExecutorService = Executors.newScheduledThreadPool(1);
+  }
+
+  public void init() {
+    scheduledExecutorService.scheduleAtFixedRate(
+        this::run, settings.getProbeInterval(), settings.getProbeInterval(), TimeUnit.MILLISECONDS);
+  }
+
+  public void shutdown() {
+    scheduledExecutorService.shutdown();
+    try {
+      scheduledExecutorService.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      log.debug("Issue during shutdown", e);
+    }
+  }
+
+  private void run() {
+    try {
+      probe();
+      expireSuspicions();
+    } catch (RuntimeException ex) {
+      log.warn("probe had exception", ex);
+    }
+  }
+
+  /** Probe the next member, directly and then indirectly, and suspect it if neither answers. */
+  void probe() {
+    LocalMember target = nextTarget();
+    if (target == null) {
+      return;
+    }
+    String me = gossipManager.getMyself().getUri().toASCIIString();
+    UdpPingMessage ping = new UdpPingMessage();
+    ping.setUriFrom(me);
+    ping.setUuid(UUID.randomUUID().toString());
+    LocalHealth health = gossipManager.getLocalHealth();
+    // a struggling member gives its peers longer to answer.
+    long probeTimeout = (long) settings.getProbeTimeout() * health.getMultiplier();
+    if (ask(ping, Collections.singletonList(target.getUri()), probeTimeout)) {
+      health.recover();
+      return;
+    }
+    List<LocalMember> helpers = new ArrayList<>(gossipManager.getLiveMembers());
+    helpers.remove(target);
+    Collections.shuffle(helpers);
+    List<URI> uris =
+        helpers.stream()
+            .limit(settings.getIndirectProbes())
+            .map(LocalMember::getUri)
+            .collect(Collectors.toList());
+    if (!uris.isEmpty()) {
+      UdpPingRequestMessage request = new UdpPingRequestMessage();
+      request.setUriFrom(me);
+      request.setUuid(UUID.randomUUID().toString());
+      request.setTarget(target.getUri().toASCIIString());
+      // the rest of the interval, the answer takes two hops each way.
+      long timeout = Math.max(probeTimeout, settings.getProbeInterval() - probeTimeout);
+      if (ask(request, uris, timeout)) {
+        return;
+      }
+    }
+    log.debug("{} did not answer direct or indirect probes", target);
+    health.degrade();
+    suspect(target.getId(), target.getHeartbeat());
+  }
+
+  private boolean ask(Base message, List<URI> uris, long timeout) {
+    try {
+      Response response = gossipCore.send(message, uris, timeout);
+      return response != null;
+    } catch (RuntimeException ex) {
+      log.debug("Probe could not be sent", ex);
+      return false;
+    }
+  }
+
+  private LocalMember nextTarget() {
+    if (probeOrder.isEmpty()) {
+      List<LocalMember> live = new ArrayList<>(gossipManager.getLiveMembers());
+      Collections.shuffle(live);
+      probeOrder.addAll(live);
+    }
+    LocalMember member;
+    while ((member = probeOrder.poll()) != null) {
+      // members may have gone down or left since the pass started.
+      if (GossipState.UP.equals(gossipManager.getMembers().get(member))) {
+        return member;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Suspect a member unless it is suspected at a newer heartbeat already.
+   *
+   * @param id the member.
+   * @param heartbeat the last heartbeat known of it.
+   */
+  void suspect(String id, long heartbeat) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(suspicionTimeout());
+    suspicions.merge(
+        id,
+        new Suspicion(heartbeat, deadline),
+        (current, latest) -> current.heartbeat >= latest.heartbeat ? current : latest);
+  }
+
+  /**
+   * @return how long a suspect has to refute, growing with the logarithm of the cluster size so the
+   *     suspicion can reach everyone.
+   */
+  private long suspicionTimeout() {
+    int n = gossipManager.getLiveMembers().size();
+    int log2 = 32 - Integer.numberOfLeadingZeros(n + 1);
+    return (long) settings.getSuspicionMultiplier() * log2 * settings.getProbeInterval();
+  }
+
+  /**
+   * Take over the suspicions another member gossiped. A suspicion of this member is refuted right
+   * away with a new heartbeat, one older than the newest heartbeat we know is ignored.
+   *
+   * @param suspects suspected members by id, with the heartbeat they were suspected at.
+   */
+  public void receiveSuspicions(Map<String, Long> suspects) {
+    if (suspects == null) {
+      return;
+    }
+    LocalMember myself = gossipManager.getMyself();
+    for (Map.Entry<String, Long> suspect : suspects.entrySet()) {
+      if (suspect.getValue() == null) {
+        continue;
+      }
+      if (myself.getId().equals(suspect.getKey())) {
+        if (myself.getHeartbeat() <= suspect.getValue()) {
+          log.debug("{} refutes being suspected", myself);
+          myself.setHeartbeat(System.nanoTime());
+          gossipManager.getLocalHealth().degrade();
+        }
+        continue;
+      }
+      LocalMember member = gossipManager.getMembers().getById(suspect.getKey());
+      if (member != null && member.getHeartbeat() <= suspect.getValue()) {
+        suspect(suspect.getKey(), suspect.getValue());
+      }
+    }
+  }
+
+  /**
+   * @return the suspicions to gossip, by member id, with the heartbeat they were suspected at.
+   */
+  public Map<String, Long> getSuspects() {
+    Map<String, Long> result = new HashMap<>();
+    for (Map.Entry<String, Suspicion> entry : suspicions.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().heartbeat);
+    }
+    return result;
+  }
+
+  /** Drop refuted suspicions and declare the members down whose suspicion expired. */
+  void expireSuspicions() {
+    long now = System.nanoTime();
+    for (Map.Entry<String, Suspicion> entry : suspicions.entrySet()) {
+      Suspicion suspicion = entry.getValue();
+      LocalMember member = gossipManager.getMembers().getById(entry.getKey());
+      if (member == null || member.getHeartbeat() > suspicion.heartbeat) {
+        suspicions.remove(entry.getKey(), suspicion);
+      } else if (now - suspicion.deadline > 0) {
+        suspicions.remove(entry.getKey(), suspicion);
+        log.debug("{} did not refute the suspicion, declaring it down", member);
+        gossipManager.getMemberStateRefresher().confirmDown(member, suspicion.heartbeat);
+      }
+    }
+  }
+
+  private static class Suspicion {
+    private final long heartbeat;
+    private final long deadline;
+
+    Suspicion(long heartbeat, long deadline) {
+      this.heartbeat = heartbeat;
+      this.deadline = deadline;
+    }
+  }
+}
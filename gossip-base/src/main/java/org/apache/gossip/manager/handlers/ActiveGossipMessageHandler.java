@@ -21,6 +21,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.gossip.Member;
 import org.apache.gossip.RemoteMember;
@@ -42,43 +43,75 @@ public class ActiveGossipMessageHandler implements MessageHandler {
    */
   @Override
   public boolean invoke(GossipCore gossipCore, GossipManager gossipManager, Base base) {
+    UdpActiveGossipMessage activeGossipMessage = (UdpActiveGossipMessage) base;
+    RemoteMember senderMember =
+        mergeMembers(
+            gossipCore,
+            gossipManager,
+            activeGossipMessage.getMembers(),
+            activeGossipMessage.getSuspects(),
+            activeGossipMessage.getUriFrom(),
+            activeGossipMessage.getUuid());
+    UdpActiveGossipOk o = new UdpActiveGossipOk();
+    o.setUriFrom(activeGossipMessage.getUriFrom());
+    o.setUuid(activeGossipMessage.getUuid());
+    gossipCore.sendOneWay(o, senderMember.getUri());
+    return true;
+  }
+
+  /**
+   * Merge a membership list received from another member. Members of other clusters are answered
+   * with a fault and left out.
+   *
+   * @param members the list, the sender first.
+   * @param suspects the members the sender suspects, by id.
+   * @param uriFrom identifies the message for the faults.
+   * @param uuid identifies the message for the faults.
+   * @return the sender.
+   */
+  static RemoteMember mergeMembers(
+      GossipCore gossipCore,
+      GossipManager gossipManager,
+      List<org.apache.gossip.model.Member> members,
+      Map<String, Long> suspects,
+      String uriFrom,
+      String uuid) {
     List<Member> remoteGossipMembers = new ArrayList<>();
     RemoteMember senderMember = null;
-    UdpActiveGossipMessage activeGossipMessage = (UdpActiveGossipMessage) base;
-    for (int i = 0; i < activeGossipMessage.getMembers().size(); i++) {
+    for (int i = 0; i < members.size(); i++) {
       URI u;
       try {
-        u = new URI(activeGossipMessage.getMembers().get(i).getUri());
+        u = new URI(members.get(i).getUri());
       } catch (URISyntaxException e) {
         log.debug("Gossip message with faulty URI", e);
         continue;
       }
       RemoteMember member =
           new RemoteMember(
-              activeGossipMessage.getMembers().get(i).getCluster(),
+              members.get(i).getCluster(),
               u,
-              activeGossipMessage.getMembers().get(i).getId(),
-              activeGossipMessage.getMembers().get(i).getHeartbeat(),
-              activeGossipMessage.getMembers().get(i).getProperties());
+              members.get(i).getId(),
+              members.get(i).getHeartbeat(),
+              members.get(i).getProperties());
       if (i == 0) {
         senderMember = member;
       }
       if (!(member.getClusterName().equals(gossipManager.getMyself().getClusterName()))) {
         UdpNotAMemberFault f = new UdpNotAMemberFault();
         f.setException("Not a member of this cluster " + i);
-        f.setUriFrom(activeGossipMessage.getUriFrom());
-        f.setUuid(activeGossipMessage.getUuid());
+        f.setUriFrom(uriFrom);
+        f.setUuid(uuid);
         log.warn("Warn", f);
         gossipCore.sendOneWay(f, member.getUri());
         continue;
       }
       remoteGossipMembers.add(member);
     }
-    UdpActiveGossipOk o = new UdpActiveGossipOk();
-    o.setUriFrom(activeGossipMessage.getUriFrom());
-    o.setUuid(activeGossipMessage.getUuid());
-    gossipCore.sendOneWay(o, senderMember.getUri());
     gossipCore.mergeLists(senderMember, remoteGossipMembers);
-    return true;
+    if (gossipManager.getProber() != null) {
+      // after merging, so heartbeats that already refute a suspicion are known.
+      gossipManager.getProber().receiveSuspicions(suspects);
+    }
+    return senderMember;
   }
 }
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager.handlers;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.crdt.Crdt;
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.RangeHashTree;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.DataDigest;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.udp.UdpDataDigestMessage;
+import org.apache.gossip.udp.UdpDataRequestMessage;
+
+/**
+ * Compares the data digests of another member with the local entries. Entries held newer here are
+ * sent to the member right away, and the keys it holds newer are asked for. Keys only this member
+ * has are sent too if they lie below a tree node the digests cover, and are otherwise left for when
+ * this member sends its own digests.
+ */
+@Slf4j
+public class DataDigestMessageHandler implements MessageHandler {
+
+  /**
+   * @param gossipCore context.
+   * @param gossipManager context.
+   * @param base message reference.
+   * @return boolean indicating success.
+   */
+  @Override
+  public boolean invoke(GossipCore gossipCore, GossipManager gossipManager, Base base) {
+    UdpDataDigestMessage message = (UdpDataDigestMessage) base;
+    URI sender;
+    try {
+      sender = URI.create(message.getUriFrom());
+    } catch (IllegalArgumentException e) {
+      log.debug("Digest message with faulty URI", e);
+      return true;
+    }
+    LocalMember member = gossipManager.getMember(message.getUriFrom());
+    UdpDataRequestMessage request = new UdpDataRequestMessage();
+    request.setOwner(message.getOwner());
+    if (message.getOwner() == null) {
+      List<SharedDataMessage> newer = new ArrayList<>();
+      compare(gossipCore, message, gossipCore.getSharedData(), request, newer);
+      if (!newer.isEmpty() && member != null) {
+        gossipCore.sendSharedData(gossipManager.getMyself(), member, newer);
+      }
+    } else {
+      List<PerNodeDataMessage> newer = new ArrayList<>();
+      Map<String, PerNodeDataMessage> nodeMap = gossipCore.getPerNodeData().get(message.getOwner());
+      compare(
+          gossipCore,
+          message,
+          nodeMap == null ? Collections.<String, PerNodeDataMessage>emptyMap() : nodeMap,
+          request,
+          newer);
+      if (!newer.isEmpty() && member != null) {
+        gossipCore.sendPerNodeData(gossipManager.getMyself(), member, newer);
+      }
+    }
+    if (!request.getKeys().isEmpty()) {
+      request.setUuid(UUID.randomUUID().toString());
+      request.setUriFrom(gossipManager.getMyself().getUri().toASCIIString());
+      gossipCore.sendOneWay(request, sender);
+    }
+    return true;
+  }
+
+  private static <T extends Base> void compare(
+      GossipCore gossipCore,
+      UdpDataDigestMessage message,
+      Map<String, T> local,
+      UdpDataRequestMessage request,
+      List<T> newer) {
+    Set<String> listed = new HashSet<>();
+    for (DataDigest digest : message.getDigests()) {
+      listed.add(digest.getKey());
+      T entry = local.get(digest.getKey());
+      if (entry == null) {
+        request.addKey(digest.getKey());
+        continue;
+      }
+      DataDigest mine = digestOf(entry);
+      if (payloadOf(entry) instanceof Crdt) {
+        // replicas merge, so the timestamps say nothing about which one is ahead.
+        if (mine.getHash() != digest.getHash()) {
+          request.addKey(digest.getKey());
+          newer.add(entry);
+        }
+      } else if (mine.getTimestamp() < digest.getTimestamp()) {
+        request.addKey(digest.getKey());
+      } else if (mine.getTimestamp() > digest.getTimestamp()) {
+        newer.add(entry);
+      }
+    }
+    RangeHashTree tree = gossipCore.getDataTree(message.getOwner());
+    if (message.getCovered().isEmpty() || tree == null) {
+      return;
+    }
+    for (Map.Entry<String, T> entry : local.entrySet()) {
+      if (listed.contains(entry.getKey())) {
+        continue;
+      }
+      int leaf = tree.leaf(entry.getKey());
+      for (int node : message.getCovered()) {
+        if (tree.isNode(node) && tree.covers(node, leaf)) {
+          newer.add(entry.getValue());
+          break;
+        }
+      }
+    }
+  }
+
+  private static DataDigest digestOf(Base entry) {
+    if (entry instanceof SharedDataMessage) {
+      SharedDataMessage shared = (SharedDataMessage) entry;
+      return DataDigest.of(shared.getKey(), shared.getTimestamp(), shared.getPayload());
+    }
+    PerNodeDataMessage perNode = (PerNodeDataMessage) entry;
+    return DataDigest.of(perNode.getKey(), perNode.getTimestamp(), perNode.getPayload());
+  }
+
+  private static Object payloadOf(Base entry) {
+    return entry instanceof SharedDataMessage
+        ? ((SharedDataMessage) entry).getPayload()
+        : ((PerNodeDataMessage) entry).getPayload();
+  }
+}
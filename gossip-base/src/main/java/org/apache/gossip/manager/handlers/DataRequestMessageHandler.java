@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager.handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.udp.UdpDataRequestMessage;
+
+/** Sends the data entries another member asked for after comparing digests. */
+@Slf4j
+public class DataRequestMessageHandler implements MessageHandler {
+
+  /**
+   * @param gossipCore context.
+   * @param gossipManager context.
+   * @param base message reference.
+   * @return boolean indicating success.
+   */
+  @Override
+  public boolean invoke(GossipCore gossipCore, GossipManager gossipManager, Base base) {
+    UdpDataRequestMessage message = (UdpDataRequestMessage) base;
+    LocalMember member = gossipManager.getMember(message.getUriFrom());
+    if (member == null) {
+      // the replication strategies decide per member, so strangers get nothing.
+      log.debug("Data requested by unknown member {}", message.getUriFrom());
+      return true;
+    }
+    if (message.getOwner() == null) {
+      gossipCore.sendSharedData(
+          gossipManager.getMyself(), member, pick(gossipCore.getSharedData(), message));
+    } else {
+      Map<String, PerNodeDataMessage> nodeMap = gossipCore.getPerNodeData().get(message.getOwner());
+      if (nodeMap != null) {
+        gossipCore.sendPerNodeData(gossipManager.getMyself(), member, pick(nodeMap, message));
+      }
+    }
+    return true;
+  }
+
+  private static <T> List<T> pick(Map<String, T> entries, UdpDataRequestMessage message) {
+    List<T> result = new ArrayList<>();
+    for (String key : message.getKeys()) {
+      T entry = entries.get(key);
+      if (entry != null) {
+        result.add(entry);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager.handlers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.RangeHashTree;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.TreeHash;
+import org.apache.gossip.udp.UdpDataTreeMessage;
+
+/**
+ * Compares data tree hashes of another member with the local ones. Below a node that differs on
+ * both sides the comparison continues a few levels further down, with the local hashes sent back.
+ * Once the difference is narrowed to a bucket, or one side has nothing below the node, the digests
+ * below it are sent instead and the digest handlers take over.
+ */
+@Slf4j
+public class DataTreeMessageHandler implements MessageHandler {
+
+  /** Levels descended per round trip; 16 hashes per differing node keep the messages small. */
+  static final int LEVELS_PER_ROUND = 4;
+
+  /**
+   * @param gossipCore context.
+   * @param gossipManager context.
+   * @param base message reference.
+   * @return boolean indicating success.
+   */
+  @Override
+  public boolean invoke(GossipCore gossipCore, GossipManager gossipManager, Base base) {
+    UdpDataTreeMessage message = (UdpDataTreeMessage) base;
+    if (message.getDepth() != gossipCore.getDataTreeDepth()) {
+      log.debug(
+          "Ignoring data tree of depth {} from {}, ours is {}",
+          message.getDepth(),
+          message.getUriFrom(),
+          gossipCore.getDataTreeDepth());
+      return true;
+    }
+    LocalMember member = gossipManager.getMember(message.getUriFrom());
+    if (member == null) {
+      log.debug("Data tree from unknown member {}", message.getUriFrom());
+      return true;
+    }
+    List<TreeHash> deeper = new ArrayList<>();
+    Map<String, List<Integer>> covered = new HashMap<>();
+    for (TreeHash remote : message.getHashes()) {
+      RangeHashTree tree = gossipCore.getDataTree(remote.getOwner());
+      if (tree != null && !tree.isNode(remote.getNode())) {
+        continue;
+      }
+      long local = tree == null ? 0 : tree.hash(remote.getNode());
+      if (local == remote.getHash()) {
+        continue;
+      }
+      if (local != 0 && remote.getHash() != 0 && !tree.isLeaf(remote.getNode())) {
+        for (int node : tree.descendants(remote.getNode(), LEVELS_PER_ROUND)) {
+          deeper.add(new TreeHash(remote.getOwner(), node, tree.hash(node)));
+        }
+      } else {
+        // HashMap, because the shared data is owned by null.
+        covered.computeIfAbsent(remote.getOwner(), k -> new ArrayList<>()).add(remote.getNode());
+      }
+    }
+    if (!deeper.isEmpty()) {
+      gossipCore.sendDataTree(gossipManager.getMyself(), member.getUri(), deeper);
+    }
+    for (Map.Entry<String, List<Integer>> entry : covered.entrySet()) {
+      gossipCore.sendDataDigests(
+          gossipManager.getMyself(), member, entry.getKey(), entry.getValue());
+    }
+    return true;
+  }
+}
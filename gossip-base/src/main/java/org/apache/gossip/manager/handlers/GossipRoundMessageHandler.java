@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager.handlers;
+
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.udp.UdpGossipRoundMessage;
+
+/** Applies a combined gossip round: the membership list first, then the data updates it carries. */
+public class GossipRoundMessageHandler implements MessageHandler {
+
+  /**
+   * @param gossipCore context.
+   * @param gossipManager context.
+   * @param base message reference.
+   * @return boolean indicating success.
+   */
+  @Override
+  public boolean invoke(GossipCore gossipCore, GossipManager gossipManager, Base base) {
+    UdpGossipRoundMessage message = (UdpGossipRoundMessage) base;
+    // rounds are one way, unlike the plain membership gossip there is no ActiveGossipOk.
+    ActiveGossipMessageHandler.mergeMembers(
+        gossipCore,
+        gossipManager,
+        message.getMembers(),
+        message.getSuspects(),
+        message.getUriFrom(),
+        message.getUuid());
+    for (PerNodeDataMessage entry : message.getPerNodeData()) {
+      gossipCore.addPerNodeData(entry);
+    }
+    for (SharedDataMessage entry : message.getSharedData()) {
+      gossipCore.addSharedData(entry);
+    }
+    return true;
+  }
+}
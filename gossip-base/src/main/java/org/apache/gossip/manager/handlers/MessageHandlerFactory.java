@@ -35,7 +35,18 @@ public class MessageHandlerFactory {
         new TypedMessageHandlerWrapper(
             PerNodeDataBulkMessage.class, new PerNodeDataBulkMessageHandler()),
         new TypedMessageHandlerWrapper(
-            SharedDataBulkMessage.class, new SharedDataBulkMessageHandler()));
+            SharedDataBulkMessage.class, new SharedDataBulkMessageHandler()),
+        new TypedMessageHandlerWrapper(DataDigestMessage.class, new DataDigestMessageHandler()),
+        new TypedMessageHandlerWrapper(DataRequestMessage.class, new DataRequestMessageHandler()),
+        new TypedMessageHandlerWrapper(DataTreeMessage.class, new DataTreeMessageHandler()),
+        new TypedMessageHandlerWrapper(
+            PerNodeDataLogMessage.class, new PerNodeDataLogMessageHandler()),
+        new TypedMessageHandlerWrapper(
+            PerNodeDataAckMessage.class, new PerNodeDataAckMessageHandler()),
+        new TypedMessageHandlerWrapper(GossipRoundMessage.class, new GossipRoundMessageHandler()),
+        new TypedMessageHandlerWrapper(PingMessage.class, new PingMessageHandler()),
+        new TypedMessageHandlerWrapper(PingRequestMessage.class, new PingRequestMessageHandler()),
+        new TypedMessageHandlerWrapper(PingAck.class, new PingAckHandler()));
   }
 
   public static MessageHandler concurrentHandler(MessageHandler... handlers) {
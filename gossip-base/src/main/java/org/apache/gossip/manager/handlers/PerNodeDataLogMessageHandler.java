@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager.handlers;
+
+import java.net.URI;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.udp.UdpPerNodeDataAckMessage;
+import org.apache.gossip.udp.UdpPerNodeDataLogMessage;
+
+/** Applies a chunk of another member's change log and acknowledges it once applied. */
+@Slf4j
+public class PerNodeDataLogMessageHandler implements MessageHandler {
+
+  /**
+   * @param gossipCore context.
+   * @param gossipManager context.
+   * @param base message reference.
+   * @return boolean indicating success.
+   */
+  @Override
+  public boolean invoke(GossipCore gossipCore, GossipManager gossipManager, Base base) {
+    UdpPerNodeDataLogMessage message = (UdpPerNodeDataLogMessage) base;
+    URI sender;
+    try {
+      sender = URI.create(message.getUriFrom());
+    } catch (IllegalArgumentException e) {
+      log.debug("Change log message with faulty URI", e);
+      return true;
+    }
+    for (PerNodeDataMessage dataMsg : message.getMessages()) {
+      gossipCore.addPerNodeData(dataMsg);
+    }
+    UdpPerNodeDataAckMessage ack = new UdpPerNodeDataAckMessage();
+    ack.setUuid(UUID.randomUUID().toString());
+    ack.setUriFrom(gossipManager.getMyself().getUri().toASCIIString());
+    ack.setIncarnation(gossipCore.getIncarnation());
+    ack.setTo(message.getTo());
+    ack.setChunk(message.getChunk());
+    gossipCore.sendOneWay(ack, sender);
+    return true;
+  }
+}
@@ -41,6 +41,7 @@ public class ShutdownMessageHandler implements MessageHandler {
     m.setTimestamp(System.currentTimeMillis());
     m.setExpireAt(System.currentTimeMillis() + 30L * 1000L);
     gossipCore.addPerNodeData(m);
+    gossipManager.getMemberStateRefresher().evaluate(s.getNodeId());
     return true;
   }
 }
@@ -18,14 +18,29 @@
 package org.apache.gossip.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ActiveGossipMessage extends Base {
 
   private List<Member> members = new ArrayList<>();
 
+  /**
+   * members the sender suspects to have failed, by id, with the heartbeat they were suspected at.
+   */
+  private Map<String, Long> suspects = new HashMap<>();
+
   public ActiveGossipMessage() {}
 
+  public Map<String, Long> getSuspects() {
+    return suspects;
+  }
+
+  public void setSuspects(Map<String, Long> suspects) {
+    this.suspects = suspects;
+  }
+
   public List<Member> getMembers() {
     return members;
   }
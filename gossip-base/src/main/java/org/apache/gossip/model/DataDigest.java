@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.model;
+
+import java.util.Objects;
+import org.apache.gossip.crdt.Crdt;
+
+/**
+ * What a member holds for one key, in a few bytes: the timestamp of the entry and a hash of its
+ * payload. Equal digests mean there is nothing to exchange for the key.
+ */
+public class DataDigest {
+
+  private String key;
+  private Long timestamp;
+  private int hash;
+
+  public DataDigest() {}
+
+  public DataDigest(String key, Long timestamp, int hash) {
+    this.key = key;
+    this.timestamp = timestamp;
+    this.hash = hash;
+  }
+
+  public static DataDigest of(String key, Long timestamp, Object payload) {
+    return new DataDigest(key, timestamp, payloadHash(payload));
+  }
+
+  /**
+   * The {@link Crdt#stateHash()} of a CRDT and the {@link Object#hashCode()} of anything else,
+   * which has to agree between members as it does for strings and numbers. A payload with an
+   * identity hash code always looks different and is transferred as if digests were not used.
+   */
+  @SuppressWarnings("rawtypes")
+  public static int payloadHash(Object payload) {
+    return payload instanceof Crdt ? ((Crdt) payload).stateHash() : Objects.hashCode(payload);
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public void setKey(String key) {
+    this.key = key;
+  }
+
+  public Long getTimestamp() {
+    return timestamp;
+  }
+
+  public void setTimestamp(Long timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  public int getHash() {
+    return hash;
+  }
+
+  public void setHash(int hash) {
+    this.hash = hash;
+  }
+
+  @Override
+  public String toString() {
+    return "DataDigest [key=" + key + ", timestamp=" + timestamp + ", hash=" + hash + "]";
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Digests of (part of) the sender's shared data, or of the per-node data of one member. The
+ * receiver sends back what it holds newer and asks for what it is missing with a {@link
+ * DataRequestMessage}.
+ *
+ * <p>When the digests were picked from a hash tree, {@code covered} lists the tree nodes the sender
+ * listed everything under. The receiver also sends its entries below those nodes that the sender
+ * does not have at all.
+ */
+public class DataDigestMessage extends Base {
+  /** the member whose per-node data this is, null for shared data */
+  private String owner;
+
+  private List<Integer> covered = new ArrayList<>();
+  private List<DataDigest> digests = new ArrayList<>();
+
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  public List<Integer> getCovered() {
+    return covered;
+  }
+
+  public void setCovered(List<Integer> covered) {
+    this.covered = covered;
+  }
+
+  public void addDigest(DataDigest digest) {
+    digests.add(digest);
+  }
+
+  public List<DataDigest> getDigests() {
+    return digests;
+  }
+
+  @Override
+  public String toString() {
+    return "DataDigestMessage[owner="
+        + owner
+        + ", covered="
+        + covered
+        + ", digests="
+        + digests.stream().map(Object::toString).collect(Collectors.joining(","))
+        + "]";
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** The keys a member asks for after comparing a {@link DataDigestMessage}. */
+public class DataRequestMessage extends Base {
+  /** the member whose per-node data is asked for, null for shared data */
+  private String owner;
+
+  private List<String> keys = new ArrayList<>();
+
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  public void addKey(String key) {
+    keys.add(key);
+  }
+
+  public List<String> getKeys() {
+    return keys;
+  }
+
+  @Override
+  public String toString() {
+    return "DataRequestMessage[owner=" + owner + ", keys=" + String.join(",", keys) + "]";
+  }
+}
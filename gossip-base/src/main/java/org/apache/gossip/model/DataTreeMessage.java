@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Hashes of range hash tree nodes, to be compared with the receiver's trees. A round starts with
+ * the roots. The receiver answers with the hashes a few levels below every node it disagrees on,
+ * and so on, until the differences are narrowed down to buckets, which are exchanged as a {@link
+ * DataDigestMessage}.
+ */
+public class DataTreeMessage extends Base {
+  /** the depth of the sender's trees, which must be that of the receiver's */
+  private int depth;
+
+  private List<TreeHash> hashes = new ArrayList<>();
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public void setDepth(int depth) {
+    this.depth = depth;
+  }
+
+  public void addHash(TreeHash hash) {
+    hashes.add(hash);
+  }
+
+  public List<TreeHash> getHashes() {
+    return hashes;
+  }
+
+  @Override
+  public String toString() {
+    return "DataTreeMessage[depth="
+        + depth
+        + ", hashes="
+        + hashes.stream().map(Object::toString).collect(Collectors.joining(","))
+        + "]";
+  }
+}
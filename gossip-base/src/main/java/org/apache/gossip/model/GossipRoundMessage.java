@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Everything one gossip round has for a member in a single message: the sender's membership view,
+ * with the sender first, and the recent per-node and shared data updates that still fit. See
+ * GossipSettings#getCombinedGossipSize.
+ */
+public class GossipRoundMessage extends Base {
+
+  private List<Member> members = new ArrayList<>();
+
+  /**
+   * members the sender suspects to have failed, by id, with the heartbeat they were suspected at.
+   */
+  private Map<String, Long> suspects = new HashMap<>();
+
+  private List<PerNodeDataMessage> perNodeData = new ArrayList<>();
+  private List<SharedDataMessage> sharedData = new ArrayList<>();
+
+  public Map<String, Long> getSuspects() {
+    return suspects;
+  }
+
+  public void setSuspects(Map<String, Long> suspects) {
+    this.suspects = suspects;
+  }
+
+  public List<Member> getMembers() {
+    return members;
+  }
+
+  public void setMembers(List<Member> members) {
+    this.members = members;
+  }
+
+  public List<PerNodeDataMessage> getPerNodeData() {
+    return perNodeData;
+  }
+
+  public void setPerNodeData(List<PerNodeDataMessage> perNodeData) {
+    this.perNodeData = perNodeData;
+  }
+
+  public List<SharedDataMessage> getSharedData() {
+    return sharedData;
+  }
+
+  public void setSharedData(List<SharedDataMessage> sharedData) {
+    this.sharedData = sharedData;
+  }
+
+  @Override
+  public String toString() {
+    return "GossipRoundMessage[members="
+        + members
+        + ", suspects="
+        + suspects
+        + ", perNodeData="
+        + perNodeData.stream().map(Object::toString).collect(Collectors.joining(","))
+        + ", sharedData="
+        + sharedData.stream().map(Object::toString).collect(Collectors.joining(","))
+        + "]";
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.model;
+
+/** Acknowledges one chunk of a {@link PerNodeDataLogMessage}. */
+public class PerNodeDataAckMessage extends Base {
+  /**
+   * identifies the acknowledging process; when it changes the member restarted and lost what it
+   * acknowledged before
+   */
+  private String incarnation;
+
+  private long to;
+  private int chunk;
+
+  public String getIncarnation() {
+    return incarnation;
+  }
+
+  public void setIncarnation(String incarnation) {
+    this.incarnation = incarnation;
+  }
+
+  public long getTo() {
+    return to;
+  }
+
+  public void setTo(long to) {
+    this.to = to;
+  }
+
+  public int getChunk() {
+    return chunk;
+  }
+
+  public void setChunk(int chunk) {
+    this.chunk = chunk;
+  }
+
+  @Override
+  public String toString() {
+    return "PerNodeDataAckMessage[incarnation="
+        + incarnation
+        + ", to="
+        + to
+        + ", chunk="
+        + chunk
+        + "]";
+  }
+}
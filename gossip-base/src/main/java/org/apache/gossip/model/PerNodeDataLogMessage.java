@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Per-node data that changed since a member last acknowledged the sender's change log. One batch is
+ * split into {@code chunks} messages; the receiver acknowledges each with a {@link
+ * PerNodeDataAckMessage}, and only once all chunks are acknowledged does the sender count the
+ * member as caught up to sequence number {@code to}.
+ */
+public class PerNodeDataLogMessage extends Base {
+  /** the position in the sender's change log this batch brings the receiver up to */
+  private long to;
+
+  private int chunk;
+  private int chunks;
+  private List<PerNodeDataMessage> messages = new ArrayList<>();
+
+  public long getTo() {
+    return to;
+  }
+
+  public void setTo(long to) {
+    this.to = to;
+  }
+
+  public int getChunk() {
+    return chunk;
+  }
+
+  public void setChunk(int chunk) {
+    this.chunk = chunk;
+  }
+
+  public int getChunks() {
+    return chunks;
+  }
+
+  public void setChunks(int chunks) {
+    this.chunks = chunks;
+  }
+
+  public void addMessage(PerNodeDataMessage msg) {
+    messages.add(msg);
+  }
+
+  public List<PerNodeDataMessage> getMessages() {
+    return messages;
+  }
+
+  @Override
+  public String toString() {
+    return "PerNodeDataLogMessage[to="
+        + to
+        + ", chunk="
+        + chunk
+        + "/"
+        + chunks
+        + ", messages="
+        + messages.stream().map(Object::toString).collect(Collectors.joining(","))
+        + "]";
+  }
+}
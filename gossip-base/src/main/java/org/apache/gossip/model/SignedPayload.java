@@ -20,6 +20,7 @@ package org.apache.gossip.model;
 public class SignedPayload extends Base {
   private byte[] data;
   private byte[] signature;
+  private String signer;
 
   public byte[] getData() {
     return data;
@@ -36,4 +37,12 @@ public class SignedPayload extends Base {
   public void setSignature(byte[] signature) {
     this.signature = signature;
   }
+
+  public String getSigner() {
+    return signer;
+  }
+
+  public void setSigner(String signer) {
+    this.signer = signer;
+  }
 }
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.model;
+
+/** The hash of one node of the range hash tree over some data, see {@link DataTreeMessage}. */
+public class TreeHash {
+
+  /** the member whose per-node data the tree covers, null for shared data */
+  private String owner;
+
+  private int node;
+  private long hash;
+
+  public TreeHash() {}
+
+  public TreeHash(String owner, int node, long hash) {
+    this.owner = owner;
+    this.node = node;
+    this.hash = hash;
+  }
+
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  public int getNode() {
+    return node;
+  }
+
+  public void setNode(int node) {
+    this.node = node;
+  }
+
+  public long getHash() {
+    return hash;
+  }
+
+  public void setHash(long hash) {
+    this.hash = hash;
+  }
+
+  @Override
+  public String toString() {
+    return "TreeHash [owner=" + owner + ", node=" + node + ", hash=" + hash + "]";
+  }
+}
@@ -18,6 +18,8 @@
 package org.apache.gossip.protocol;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.apache.gossip.model.Base;
 
 /** interface for managing message marshaling. */
@@ -40,4 +42,36 @@ public interface ProtocolManager {
    * @throws IOException
    */
   Base read(byte[] buf) throws IOException;
+
+  /**
+   * Reads the next message from a region of a byte source. Transports that receive into a reused
+   * buffer call this so only the valid bytes are parsed. Implementations should override this to
+   * avoid the copy made by the default.
+   *
+   * @param buf
+   * @param offset index of the first byte of the message.
+   * @param length number of bytes in the message.
+   * @return a gossip message.
+   * @throws IOException
+   */
+  default Base read(byte[] buf, int offset, int length) throws IOException {
+    return read(Arrays.copyOfRange(buf, offset, offset + length));
+  }
+
+  /**
+   * Reads the next message from the remaining bytes of a buffer. The position of the buffer is not
+   * changed.
+   *
+   * @param buf heap or direct buffer holding exactly one message between position and limit.
+   * @return a gossip message.
+   * @throws IOException
+   */
+  default Base read(ByteBuffer buf) throws IOException {
+    if (buf.hasArray()) {
+      return read(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+    }
+    byte[] copy = new byte[buf.remaining()];
+    buf.duplicate().get(copy);
+    return read(copy);
+  }
 }
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.protocol.codec;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads what {@link BinaryOutput} wrote. The source is consumed from its current position; heap and
+ * direct buffers are both read in place. Truncated or corrupt input raises {@link IOException}.
+ */
+public class BinaryInput {
+
+  private final ByteBuffer buf;
+  private final List<String> symbols = new ArrayList<>();
+
+  public BinaryInput(ByteBuffer buf) {
+    this.buf = buf;
+  }
+
+  public BinaryInput(byte[] buf, int offset, int length) {
+    this(ByteBuffer.wrap(buf, offset, length));
+  }
+
+  public boolean hasRemaining() {
+    return buf.hasRemaining();
+  }
+
+  public int readByte() throws IOException {
+    try {
+      return buf.get() & 0xFF;
+    } catch (BufferUnderflowException e) {
+      throw new IOException("message is truncated", e);
+    }
+  }
+
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  public int readVarInt() throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = readByte();
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new IOException("malformed varint");
+  }
+
+  public long readVarLong() throws IOException {
+    long result = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      int b = readByte();
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new IOException("malformed varint");
+  }
+
+  public long readSignedVarLong() throws IOException {
+    long raw = readVarLong();
+    return (raw >>> 1) ^ -(raw & 1);
+  }
+
+  public Long readNullableSignedVarLong() throws IOException {
+    return readByte() == 0 ? null : readSignedVarLong();
+  }
+
+  public long readLong() throws IOException {
+    try {
+      return buf.getLong();
+    } catch (BufferUnderflowException e) {
+      throw new IOException("message is truncated", e);
+    }
+  }
+
+  public double readDouble() throws IOException {
+    return Double.longBitsToDouble(readLong());
+  }
+
+  public UUID readUuid() throws IOException {
+    return new UUID(readLong(), readLong());
+  }
+
+  public String readString() throws IOException {
+    int length = readLength();
+    if (length < 0) {
+      return null;
+    }
+    if (buf.hasArray()) {
+      String s =
+          new String(
+              buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+      buf.position(buf.position() + length);
+      return s;
+    }
+    byte[] utf8 = new byte[length];
+    buf.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  public String readSymbol() throws IOException {
+    int header = readVarInt();
+    if (header == 0) {
+      return null;
+    }
+    if ((header & 1) == 1) {
+      int index = header >>> 1;
+      if (index >= symbols.size()) {
+        throw new IOException("unknown symbol " + index);
+      }
+      return symbols.get(index);
+    }
+    String value = readString();
+    symbols.add(value);
+    return value;
+  }
+
+  public byte[] readBytes() throws IOException {
+    int length = readLength();
+    if (length < 0) {
+      return null;
+    }
+    byte[] result = new byte[length];
+    buf.get(result);
+    return result;
+  }
+
+  /**
+   * @return a copy of everything not read yet.
+   */
+  public byte[] readRemaining() {
+    byte[] result = new byte[buf.remaining()];
+    buf.get(result);
+    return result;
+  }
+
+  /**
+   * @return the length that follows, or -1 for null.
+   */
+  private int readLength() throws IOException {
+    int length = readVarInt() - 1;
+    if (length > buf.remaining()) {
+      throw new IOException("length " + length + " exceeds the " + buf.remaining() + " bytes left");
+    }
+    return length;
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.protocol.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A growable byte buffer with the primitive encodings of the binary protocol. Integers are written
+ * as unsigned LEB128 varints, signed values are zigzag encoded first so small negative numbers stay
+ * short, and strings are UTF-8 prefixed by their length. Nullable values reserve 0 for null and
+ * shift everything else up by one.
+ *
+ * <p>{@link #writeSymbol(String)} writes strings that repeat within one message, such as cluster
+ * names and property keys, only once; later occurrences are a back reference. An instance is not
+ * thread safe but may be {@link #reset()} and reused for the next message.
+ */
+public class BinaryOutput {
+
+  private byte[] buf;
+  private int size;
+  private final Map<String, Integer> symbols = new HashMap<>();
+
+  public BinaryOutput() {
+    this(256);
+  }
+
+  public BinaryOutput(int initialCapacity) {
+    buf = new byte[initialCapacity];
+  }
+
+  /** Discard the content and symbol table so the buffer can encode the next message. */
+  public void reset() {
+    size = 0;
+    symbols.clear();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return a copy of exactly the bytes written.
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buf, size);
+  }
+
+  private void ensure(int extra) {
+    if (size + extra > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+    }
+  }
+
+  public void writeByte(int b) {
+    ensure(1);
+    buf[size++] = (byte) b;
+  }
+
+  public void writeBoolean(boolean b) {
+    writeByte(b ? 1 : 0);
+  }
+
+  /** Unsigned varint; negative values take the full five bytes. */
+  public void writeVarInt(int value) {
+    ensure(5);
+    while ((value & ~0x7F) != 0) {
+      buf[size++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buf[size++] = (byte) value;
+  }
+
+  /** Unsigned varint; negative values take the full ten bytes. */
+  public void writeVarLong(long value) {
+    ensure(10);
+    while ((value & ~0x7FL) != 0) {
+      buf[size++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buf[size++] = (byte) value;
+  }
+
+  public void writeSignedVarLong(long value) {
+    writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  public void writeNullableSignedVarLong(Long value) {
+    if (value == null) {
+      writeByte(0);
+    } else {
+      writeByte(1);
+      writeSignedVarLong(value);
+    }
+  }
+
+  public void writeLong(long value) {
+    ensure(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buf[size++] = (byte) (value >>> shift);
+    }
+  }
+
+  public void writeDouble(double value) {
+    writeLong(Double.doubleToRawLongBits(value));
+  }
+
+  public void writeUuid(UUID uuid) {
+    writeLong(uuid.getMostSignificantBits());
+    writeLong(uuid.getLeastSignificantBits());
+  }
+
+  /** A nullable string, length prefixed. */
+  public void writeString(String value) {
+    if (value == null) {
+      writeVarInt(0);
+      return;
+    }
+    int length = value.length();
+    // the common case is ASCII, which can be copied without an intermediate array.
+    boolean ascii = true;
+    for (int i = 0; i < length && ascii; i++) {
+      ascii = value.charAt(i) < 0x80;
+    }
+    if (ascii) {
+      writeVarInt(length + 1);
+      ensure(length);
+      for (int i = 0; i < length; i++) {
+        buf[size++] = (byte) value.charAt(i);
+      }
+    } else {
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(utf8.length + 1);
+      writeRaw(utf8, 0, utf8.length);
+    }
+  }
+
+  /**
+   * A nullable string that is likely to occur again in the same message. The first occurrence is
+   * written in full and later ones as its index.
+   */
+  public void writeSymbol(String value) {
+    if (value == null) {
+      writeVarInt(0);
+      return;
+    }
+    Integer index = symbols.get(value);
+    if (index != null) {
+      writeVarInt((index << 1) | 1);
+    } else {
+      symbols.put(value, symbols.size());
+      writeVarInt(2);
+      writeString(value);
+    }
+  }
+
+  /** A nullable byte array, length prefixed. */
+  public void writeBytes(byte[] value) {
+    if (value == null) {
+      writeVarInt(0);
+      return;
+    }
+    writeVarInt(value.length + 1);
+    writeRaw(value, 0, value.length);
+  }
+
+  public void writeRaw(byte[] src, int offset, int length) {
+    ensure(length);
+    System.arraycopy(src, offset, buf, size, length);
+    size += length;
+  }
+}
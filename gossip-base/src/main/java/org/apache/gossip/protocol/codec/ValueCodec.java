@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.protocol.codec;
+
+import java.io.IOException;
+
+/**
+ * Encodes one type of payload value for the binary protocol. Implementations write nested values
+ * through the {@link ValueCodecs} they are given, so containers can hold anything that registry
+ * can.
+ *
+ * @param <T> the type of value handled
+ */
+public interface ValueCodec<T> {
+
+  void write(BinaryOutput out, T value, ValueCodecs codecs) throws IOException;
+
+  T read(BinaryInput in, ValueCodecs codecs) throws IOException;
+}
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.protocol.codec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The codecs the binary protocol uses for payload values, each identified on the wire by a one byte
+ * tag instead of a class name. Lookup is by exact class first; any other {@link Map}, {@link Set}
+ * or {@link List} is written as the generic container and read back as a {@link HashMap}, {@link
+ * HashSet} or {@link ArrayList}. Values nothing else claims go to the fallback codec, if one is
+ * set.
+ *
+ * <p>Tags below {@link #FIRST_USER_TAG} are reserved for the project. Register codecs before the
+ * registry is used to encode or decode; it is not safe to change while in use.
+ */
+public class ValueCodecs {
+
+  public static final int NULL = 0;
+  public static final int STRING = 1;
+  public static final int LONG = 2;
+  public static final int INTEGER = 3;
+  public static final int DOUBLE = 4;
+  public static final int BOOLEAN = 5;
+  public static final int FALLBACK = 6;
+  public static final int BYTES = 7;
+  public static final int LIST = 8;
+  public static final int SET = 9;
+  public static final int MAP = 10;
+  public static final int UUID_TAG = 11;
+  public static final int FIRST_USER_TAG = 64;
+  public static final int MAX_TAG = 127;
+
+  private final ValueCodec<?>[] byTag = new ValueCodec<?>[MAX_TAG + 1];
+  private final Map<Class<?>, Integer> tags = new HashMap<>();
+  private ValueCodec<Object> fallback;
+
+  public ValueCodecs() {
+    register(
+        STRING,
+        String.class,
+        new ValueCodec<String>() {
+          @Override
+          public void write(BinaryOutput out, String value, ValueCodecs codecs) {
+            out.writeString(value);
+          }
+
+          @Override
+          public String read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return in.readString();
+          }
+        });
+    register(
+        LONG,
+        Long.class,
+        new ValueCodec<Long>() {
+          @Override
+          public void write(BinaryOutput out, Long value, ValueCodecs codecs) {
+            out.writeSignedVarLong(value);
+          }
+
+          @Override
+          public Long read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return in.readSignedVarLong();
+          }
+        });
+    register(
+        INTEGER,
+        Integer.class,
+        new ValueCodec<Integer>() {
+          @Override
+          public void write(BinaryOutput out, Integer value, ValueCodecs codecs) {
+            out.writeSignedVarLong(value);
+          }
+
+          @Override
+          public Integer read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return (int) in.readSignedVarLong();
+          }
+        });
+    register(
+        DOUBLE,
+        Double.class,
+        new ValueCodec<Double>() {
+          @Override
+          public void write(BinaryOutput out, Double value, ValueCodecs codecs) {
+            out.writeDouble(value);
+          }
+
+          @Override
+          public Double read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return in.readDouble();
+          }
+        });
+    register(
+        BOOLEAN,
+        Boolean.class,
+        new ValueCodec<Boolean>() {
+          @Override
+          public void write(BinaryOutput out, Boolean value, ValueCodecs codecs) {
+            out.writeBoolean(value);
+          }
+
+          @Override
+          public Boolean read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return in.readBoolean();
+          }
+        });
+    register(
+        BYTES,
+        byte[].class,
+        new ValueCodec<byte[]>() {
+          @Override
+          public void write(BinaryOutput out, byte[] value, ValueCodecs codecs) {
+            out.writeBytes(value);
+          }
+
+          @Override
+          public byte[] read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return in.readBytes();
+          }
+        });
+    register(
+        UUID_TAG,
+        UUID.class,
+        new ValueCodec<UUID>() {
+          @Override
+          public void write(BinaryOutput out, UUID value, ValueCodecs codecs) {
+            out.writeUuid(value);
+          }
+
+          @Override
+          public UUID read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return in.readUuid();
+          }
+        });
+    byTag[LIST] =
+        new ValueCodec<List<Object>>() {
+          @Override
+          public void write(BinaryOutput out, List<Object> value, ValueCodecs codecs)
+              throws IOException {
+            codecs.writeCollection(out, value);
+          }
+
+          @Override
+          public List<Object> read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return codecs.readCollection(in, new ArrayList<>());
+          }
+        };
+    byTag[SET] =
+        new ValueCodec<Set<Object>>() {
+          @Override
+          public void write(BinaryOutput out, Set<Object> value, ValueCodecs codecs)
+              throws IOException {
+            codecs.writeCollection(out, value);
+          }
+
+          @Override
+          public Set<Object> read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return codecs.readCollection(in, new HashSet<>());
+          }
+        };
+    byTag[MAP] =
+        new ValueCodec<Map<Object, Object>>() {
+          @Override
+          public void write(BinaryOutput out, Map<Object, Object> value, ValueCodecs codecs)
+              throws IOException {
+            codecs.writeMap(out, value);
+          }
+
+          @Override
+          public Map<Object, Object> read(BinaryInput in, ValueCodecs codecs) throws IOException {
+            return codecs.readMap(in, new HashMap<>());
+          }
+        };
+    tags.put(ArrayList.class, LIST);
+    tags.put(HashSet.class, SET);
+    tags.put(HashMap.class, MAP);
+  }
+
+  /**
+   * @param tag the wire tag, unique within this registry.
+   * @param type values of exactly this class are written with the codec.
+   * @param codec the codec.
+   */
+  public <T> void register(int tag, Class<T> type, ValueCodec<T> codec) {
+    if (tag <= NULL || tag == FALLBACK || tag > MAX_TAG) {
+      throw new IllegalArgumentException("tag " + tag + " is out of range");
+    }
+    if (byTag[tag] != null) {
+      throw new IllegalArgumentException("tag " + tag + " is already registered");
+    }
+    byTag[tag] = codec;
+    tags.put(type, tag);
+  }
+
+  /** Use this codec for values no registered codec handles, for example by writing JSON. */
+  public void setFallback(ValueCodec<Object> fallback) {
+    this.fallback = fallback;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void writeValue(BinaryOutput out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+      return;
+    }
+    Integer tag = tags.get(value.getClass());
+    if (tag == null) {
+      if (value instanceof Map) {
+        tag = MAP;
+      } else if (value instanceof Set) {
+        tag = SET;
+      } else if (value instanceof List) {
+        tag = LIST;
+      } else if (fallback != null) {
+        out.writeByte(FALLBACK);
+        fallback.write(out, value, this);
+        return;
+      } else {
+        throw new IOException("no codec for " + value.getClass().getName());
+      }
+    }
+    out.writeByte(tag);
+    ((ValueCodec<Object>) byTag[tag]).write(out, value, this);
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> T readValue(BinaryInput in) throws IOException {
+    int tag = in.readByte();
+    if (tag == NULL) {
+      return null;
+    }
+    ValueCodec<?> codec = tag == FALLBACK ? fallback : tag <= MAX_TAG ? byTag[tag] : null;
+    if (codec == null) {
+      throw new IOException("no codec for tag " + tag);
+    }
+    return (T) codec.read(in, this);
+  }
+
+  public void writeCollection(BinaryOutput out, Collection<?> values) throws IOException {
+    out.writeVarInt(values.size());
+    for (Object value : values) {
+      writeValue(out, value);
+    }
+  }
+
+  public <T, C extends Collection<T>> C readCollection(BinaryInput in, C into) throws IOException {
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      into.add(readValue(in));
+    }
+    return into;
+  }
+
+  public void writeMap(BinaryOutput out, Map<?, ?> values) throws IOException {
+    out.writeVarInt(values.size());
+    for (Map.Entry<?, ?> entry : values.entrySet()) {
+      writeValue(out, entry.getKey());
+      writeValue(out, entry.getValue());
+    }
+  }
+
+  public <K, V, M extends Map<K, V>> M readMap(BinaryInput in, M into) throws IOException {
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      K key = readValue(in);
+      into.put(key, readValue(in));
+    }
+    return into;
+  }
+}
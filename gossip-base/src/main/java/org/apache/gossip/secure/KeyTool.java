@@ -30,11 +30,35 @@ import java.security.SecureRandom;
 
 public class KeyTool {
 
+  /**
+   * @param signatureAlgorithm a signature algorithm such as SHA1withDSA or Ed25519.
+   * @return the algorithm of the keys it signs with.
+   */
+  public static String keyAlgorithm(String signatureAlgorithm) {
+    int with = signatureAlgorithm.indexOf("with");
+    return with < 0 ? signatureAlgorithm : signatureAlgorithm.substring(with + "with".length());
+  }
+
   public static void generatePubandPrivateKeyFiles(String path, String id)
       throws NoSuchAlgorithmException, NoSuchProviderException, IOException {
-    SecureRandom r = new SecureRandom();
-    KeyPairGenerator keyGen = KeyPairGenerator.getInstance("DSA", "SUN");
-    keyGen.initialize(1024, r);
+    generatePubandPrivateKeyFiles(path, id, "SHA1withDSA");
+  }
+
+  /**
+   * Write a new key pair for the member {@code id} to the key store at {@code path}.
+   *
+   * @param signatureAlgorithm the signature algorithm the keys will be used with.
+   */
+  public static void generatePubandPrivateKeyFiles(
+      String path, String id, String signatureAlgorithm)
+      throws NoSuchAlgorithmException, NoSuchProviderException, IOException {
+    KeyPairGenerator keyGen;
+    if ("DSA".equals(keyAlgorithm(signatureAlgorithm))) {
+      keyGen = KeyPairGenerator.getInstance("DSA", "SUN");
+      keyGen.initialize(1024, new SecureRandom());
+    } else {
+      keyGen = KeyPairGenerator.getInstance(keyAlgorithm(signatureAlgorithm));
+    }
     KeyPair pair = keyGen.generateKeyPair();
     PrivateKey priv = pair.getPrivate();
     PublicKey pub = pair.getPublic();
@@ -52,6 +76,10 @@ public class KeyTool {
 
   public static void main(String[] args)
       throws NoSuchAlgorithmException, NoSuchProviderException, IOException {
-    generatePubandPrivateKeyFiles(args[0], args[1]);
+    if (args.length > 2) {
+      generatePubandPrivateKeyFiles(args[0], args[1], args[2]);
+    } else {
+      generatePubandPrivateKeyFiles(args[0], args[1]);
+    }
   }
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.secure;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import org.apache.gossip.GossipSettings;
+
+/**
+ * Signs outgoing messages with this member's private key, found in the key store as a file named
+ * after the member id. Each thread keeps its own initialized {@link Signature}, so signing neither
+ * looks up the algorithm nor contends on a lock.
+ */
+public class MessageSigner {
+
+  private final String id;
+  private final ThreadLocal<Signature> signatures;
+
+  public MessageSigner(GossipSettings settings, String id) {
+    this.id = id;
+    File privateKey = new File(settings.getPathToKeyStore(), id);
+    File publicKey = new File(settings.getPathToKeyStore(), id + ".pub");
+    if (!privateKey.exists()) {
+      throw new IllegalArgumentException("private key not found " + privateKey);
+    }
+    if (!publicKey.exists()) {
+      throw new IllegalArgumentException("public key not found " + publicKey);
+    }
+    String algorithm = settings.getSignatureAlgorithm();
+    PrivateKey key;
+    try {
+      PKCS8EncodedKeySpec privKeySpec =
+          new PKCS8EncodedKeySpec(Files.readAllBytes(privateKey.toPath()));
+      key = KeyFactory.getInstance(KeyTool.keyAlgorithm(algorithm)).generatePrivate(privKeySpec);
+      // fail now rather than on the first message.
+      Signature.getInstance(algorithm).initSign(key);
+    } catch (GeneralSecurityException | IOException e) {
+      throw new RuntimeException("failed hard", e);
+    }
+    signatures =
+        ThreadLocal.withInitial(
+            () -> {
+              try {
+                Signature signature = Signature.getInstance(algorithm);
+                signature.initSign(key);
+                return signature;
+              } catch (GeneralSecurityException e) {
+                throw new RuntimeException(e);
+              }
+            });
+  }
+
+  /**
+   * @return the id receivers look up the public key by.
+   */
+  public String getSignerId() {
+    return id;
+  }
+
+  public byte[] sign(byte[] data, int offset, int length) {
+    Signature signature = signatures.get();
+    try {
+      signature.update(data, offset, length);
+      return signature.sign();
+    } catch (GeneralSecurityException e) {
+      signatures.remove();
+      throw new RuntimeException(e);
+    }
+  }
+}
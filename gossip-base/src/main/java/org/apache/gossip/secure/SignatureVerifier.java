@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.secure;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.manager.PassiveGossipConstants;
+import org.apache.gossip.model.SignedPayload;
+
+/**
+ * Checks the signature of every received message against the public key of the member that signed
+ * it, read once from {@code <signer>.pub} in the key store. Every thread keeps one {@link
+ * Signature} per signer that is already initialized with the key, so a verification is only the
+ * cryptographic work itself.
+ */
+@Slf4j
+public class SignatureVerifier {
+
+  private final File keyStore;
+  private final String algorithm;
+  private final KeyFactory keyFactory;
+  private final Map<String, PublicKey> publicKeys = new ConcurrentHashMap<>();
+  private final ThreadLocal<Map<String, Signature>> signatures =
+      ThreadLocal.withInitial(HashMap::new);
+  private final Timer verifyTime;
+  private final Meter rejected;
+
+  public SignatureVerifier(GossipSettings settings, MetricRegistry registry) {
+    keyStore = new File(settings.getPathToKeyStore());
+    algorithm = settings.getSignatureAlgorithm();
+    try {
+      keyFactory = KeyFactory.getInstance(KeyTool.keyAlgorithm(algorithm));
+    } catch (GeneralSecurityException e) {
+      throw new RuntimeException(e);
+    }
+    verifyTime = registry.timer(PassiveGossipConstants.SIGNATURE_VERIFY_TIME);
+    rejected = registry.meter(PassiveGossipConstants.SIGNATURE_REJECTED);
+  }
+
+  /**
+   * @param payload a received signed message.
+   * @throws SignatureRejectedException if the signer is unknown or the signature does not match.
+   */
+  public void verify(SignedPayload payload) throws SignatureRejectedException {
+    String signer = payload.getSigner();
+    boolean valid = false;
+    try (Timer.Context ignored = verifyTime.time()) {
+      Signature signature = signatureFor(signer);
+      if (signature != null && payload.getData() != null && payload.getSignature() != null) {
+        try {
+          signature.update(payload.getData());
+          valid = signature.verify(payload.getSignature());
+        } catch (GeneralSecurityException e) {
+          // a malformed signature may leave the object mid-operation, start over next time.
+          signatures.get().remove(signer);
+        }
+      }
+    }
+    if (!valid) {
+      rejected.mark();
+      throw new SignatureRejectedException("invalid signature from " + signer);
+    }
+  }
+
+  /**
+   * Members that sign their messages accept no unsigned ones.
+   *
+   * @throws SignatureRejectedException always.
+   */
+  public void rejectUnsigned() throws SignatureRejectedException {
+    rejected.mark();
+    throw new SignatureRejectedException("message is not signed");
+  }
+
+  private Signature signatureFor(String signer) {
+    if (signer == null) {
+      return null;
+    }
+    Map<String, Signature> perThread = signatures.get();
+    Signature signature = perThread.get(signer);
+    if (signature == null) {
+      PublicKey key = publicKey(signer);
+      if (key == null) {
+        return null;
+      }
+      try {
+        signature = Signature.getInstance(algorithm);
+        signature.initVerify(key);
+      } catch (GeneralSecurityException e) {
+        log.warn("Unable to verify with the key of {}", signer, e);
+        return null;
+      }
+      perThread.put(signer, signature);
+    }
+    return signature;
+  }
+
+  private PublicKey publicKey(String signer) {
+    PublicKey key = publicKeys.get(signer);
+    if (key != null) {
+      return key;
+    }
+    File file = new File(keyStore, signer + ".pub");
+    // the signer id comes off the wire, it must not lead out of the key store.
+    if (!keyStore.equals(file.getParentFile()) || !file.isFile()) {
+      log.debug("No public key for signer {}", signer);
+      return null;
+    }
+    try {
+      byte[] encoded = Files.readAllBytes(file.toPath());
+      synchronized (keyFactory) {
+        key = keyFactory.generatePublic(new X509EncodedKeySpec(encoded));
+      }
+    } catch (GeneralSecurityException | IOException e) {
+      log.warn("Unable to read the public key {}", file, e);
+      return null;
+    }
+    publicKeys.put(signer, key);
+    return key;
+  }
+}
@@ -36,10 +36,14 @@ public abstract class AbstractTransportManager implements TransportManager {
   private final ExecutorService gossipThreadExecutor;
   private final AbstractActiveGossiper activeGossipThread;
 
+  /** Decodes and dispatches what the endpoint reads; started by the endpoint. */
+  protected final ReceivePipeline receivePipeline;
+
   public AbstractTransportManager(GossipManager gossipManager, GossipCore gossipCore) {
     this.gossipManager = gossipManager;
     this.gossipCore = gossipCore;
     gossipThreadExecutor = Executors.newCachedThreadPool();
+    receivePipeline = new ReceivePipeline(gossipManager, gossipCore);
     activeGossipThread =
         ReflectionUtils.constructWithReflection(
             gossipManager.getSettings().getActiveGossipClass(),
@@ -50,6 +54,7 @@ public abstract class AbstractTransportManager implements TransportManager {
   // shut down threads etc.
   @Override
   public void shutdown() {
+    receivePipeline.shutdown();
     gossipThreadExecutor.shutdown();
     if (activeGossipThread != null) {
       activeGossipThread.shutdown();
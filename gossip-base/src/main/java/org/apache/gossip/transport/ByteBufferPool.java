@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.transport;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of equally sized direct buffers used on the receive path. Direct buffers are
+ * expensive to allocate and are only reclaimed by the garbage collector, so transports take one per
+ * datagram and hand it back once the message has been decoded. When the pool is empty a new buffer
+ * is allocated, and when it is full a released buffer is simply dropped.
+ */
+public class ByteBufferPool {
+
+  private final int bufferSize;
+  private final BlockingQueue<ByteBuffer> free;
+
+  /**
+   * @param bufferSize capacity of every buffer handed out.
+   * @param maxPooled the most idle buffers kept for reuse.
+   */
+  public ByteBufferPool(int bufferSize, int maxPooled) {
+    this.bufferSize = bufferSize;
+    this.free = new ArrayBlockingQueue<>(maxPooled);
+  }
+
+  /**
+   * @return a cleared buffer of {@link #getBufferSize()} bytes.
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = free.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocateDirect(bufferSize);
+    }
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool. The caller must not touch the buffer afterwards.
+   *
+   * @param buffer a buffer previously obtained from {@link #acquire()}.
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer != null && buffer.capacity() == bufferSize && buffer.isDirect()) {
+      free.offer(buffer);
+    }
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * @return the number of idle buffers waiting to be reused.
+   */
+  public int available() {
+    return free.size();
+  }
+}
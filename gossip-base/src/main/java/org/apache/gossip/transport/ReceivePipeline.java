@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.transport;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.PassiveGossipConstants;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.secure.SignatureRejectedException;
+
+/**
+ * Decouples reading the socket from handling what was read. The transport's I/O thread only {@link
+ * #offer offers} raw messages into a bounded queue and goes straight back to the socket, while a
+ * pool of workers decodes each message and dispatches it to {@link GossipCore}. When the workers
+ * fall behind and the queue is full, new messages are dropped here rather than in the kernel socket
+ * buffer, where the loss would be invisible.
+ */
+@Slf4j
+public class ReceivePipeline implements PassiveGossipConstants {
+
+  private final GossipManager gossipManager;
+  private final GossipCore gossipCore;
+  private final BlockingQueue<Inbound> queue;
+  private final int workerCount;
+  private final boolean virtualThreads;
+  private final List<Thread> workers = new ArrayList<>();
+  private final AtomicBoolean keepRunning = new AtomicBoolean(true);
+  private final Meter dropped;
+  private final Timer queueWait;
+  private final Timer decodeTime;
+  private final Timer dispatchTime;
+
+  public ReceivePipeline(GossipManager gossipManager, GossipCore gossipCore) {
+    this.gossipManager = gossipManager;
+    this.gossipCore = gossipCore;
+    GossipSettings settings = gossipManager.getSettings();
+    queue = new ArrayBlockingQueue<>(settings.getReceiveQueueSize());
+    workerCount = settings.getReceiveWorkers();
+    virtualThreads = settings.isReceiveVirtualThreads();
+    MetricRegistry metrics = gossipManager.getRegistry();
+    metrics.register(RECEIVE_QUEUE_DEPTH, (Gauge<Integer>) queue::size);
+    dropped = metrics.meter(RECEIVE_DROPPED);
+    queueWait = metrics.timer(RECEIVE_QUEUE_WAIT);
+    decodeTime = metrics.timer(RECEIVE_DECODE_TIME);
+    dispatchTime = metrics.timer(RECEIVE_DISPATCH_TIME);
+  }
+
+  /** Start the workers. Transports call this when their endpoint starts. */
+  public synchronized void start() {
+    for (int i = 0; i < workerCount; i++) {
+      String name = "gossip-receive-" + gossipManager.getMyself().getId() + "-" + i;
+      Thread worker =
+          virtualThreads
+              ? Thread.ofVirtual().name(name).unstarted(this::work)
+              : Thread.ofPlatform().name(name).daemon().unstarted(this::work);
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  /**
+   * Hand a received message to the workers without blocking.
+   *
+   * @param message the message bytes between position and limit.
+   * @param owner the pool the buffer is returned to once it has been decoded, or null.
+   * @return false if the queue was full and the message was dropped.
+   */
+  public boolean offer(ByteBuffer message, ByteBufferPool owner) {
+    if (keepRunning.get() && queue.offer(new Inbound(message, owner, System.nanoTime()))) {
+      return true;
+    }
+    dropped.mark();
+    if (owner != null) {
+      owner.release(message);
+    }
+    return false;
+  }
+
+  /**
+   * Hand a received message to the workers without blocking.
+   *
+   * @param message exactly the bytes of one message.
+   * @return false if the queue was full and the message was dropped.
+   */
+  public boolean offer(byte[] message) {
+    return offer(ByteBuffer.wrap(message), null);
+  }
+
+  /**
+   * Hand a received message to the workers, waiting for room in the queue. Stream transports use
+   * this so a full queue slows the sender down instead of losing what the stream delivered.
+   *
+   * @param message exactly the bytes of one message.
+   * @return false if the pipeline was shut down or the caller interrupted before there was room.
+   */
+  public boolean put(byte[] message) {
+    ByteBuffer buffer = ByteBuffer.wrap(message);
+    try {
+      while (keepRunning.get()) {
+        // stamped per attempt, so waiting for room is not mistaken for a slow local member.
+        Inbound inbound = new Inbound(buffer, null, System.nanoTime());
+        if (queue.offer(inbound, 100, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  public void shutdown() {
+    keepRunning.set(false);
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+    Inbound leftover;
+    while ((leftover = queue.poll()) != null) {
+      leftover.release();
+    }
+  }
+
+  private void work() {
+    while (keepRunning.get()) {
+      Inbound inbound;
+      try {
+        inbound = queue.poll(100, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (inbound == null) {
+        continue;
+      }
+      long waited = System.nanoTime() - inbound.enqueuedAt;
+      queueWait.update(waited, TimeUnit.NANOSECONDS);
+      gossipManager.getLocalHealth().recordQueueWait(waited);
+      try {
+        Base message;
+        try (Timer.Context ignored = decodeTime.time()) {
+          message = gossipManager.getProtocolManager().read(inbound.buffer);
+        } finally {
+          inbound.release();
+        }
+        try (Timer.Context ignored = dispatchTime.time()) {
+          gossipCore.receive(message);
+        }
+      } catch (SignatureRejectedException ex) {
+        // counted by the verifier; logging each one would let a sender flood the log.
+        log.debug("Discarded message", ex);
+      } catch (IOException | RuntimeException ex) { // TODO trap json exception
+        log.error("Unable to process message", ex);
+      }
+    }
+  }
+
+  private static class Inbound {
+    private final ByteBuffer buffer;
+    private final ByteBufferPool owner;
+    private final long enqueuedAt;
+
+    Inbound(ByteBuffer buffer, ByteBufferPool owner, long enqueuedAt) {
+      this.buffer = buffer;
+      this.owner = owner;
+      this.enqueuedAt = enqueuedAt;
+    }
+
+    void release() {
+      if (owner != null) {
+        owner.release(buffer);
+      }
+    }
+  }
+}
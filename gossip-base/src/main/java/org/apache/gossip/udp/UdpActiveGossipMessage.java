@@ -48,6 +48,8 @@ public class UdpActiveGossipMessage extends ActiveGossipMessage implements Track
         + uuid
         + ", getMembers()="
         + getMembers()
+        + ", getSuspects()="
+        + getSuspects()
         + "]";
   }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.udp;
+
+import org.apache.gossip.model.DataDigestMessage;
+
+public class UdpDataDigestMessage extends DataDigestMessage implements Trackable {
+
+  private String uriFrom;
+  private String uuid;
+
+  public String getUriFrom() {
+    return uriFrom;
+  }
+
+  public void setUriFrom(String uriFrom) {
+    this.uriFrom = uriFrom;
+  }
+
+  public String getUuid() {
+    return uuid;
+  }
+
+  public void setUuid(String uuid) {
+    this.uuid = uuid;
+  }
+
+  @Override
+  public String toString() {
+    return "UdpDataDigestMessage [uriFrom="
+        + uriFrom
+        + ", uuid="
+        + uuid
+        + ", "
+        + super.toString()
+        + "]";
+  }
+}
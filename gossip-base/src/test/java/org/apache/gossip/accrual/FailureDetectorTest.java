@@ -110,6 +110,73 @@ public class FailureDetectorTest {
     checkDeadMonotonic.accept(20000, 20500, 5);
   }
 
+  @Test
+  public void exponentialInClosedForm() {
+    FailureDetector fd = new FailureDetector(1, 1000, "exponential");
+    for (int i = 0; i <= 10; i++) {
+      fd.recordHeartbeat(i * 100);
+    }
+    // -log10(e^(-delta / mean)) at delta = mean.
+    Assertions.assertEquals(1 / Math.log(10), fd.phi(1100), 1e-9);
+    Assertions.assertEquals(0, fd.phi(1000), 1e-9);
+  }
+
+  @Test
+  public void windowForgetsOldIntervals() {
+    FailureDetector fd = new FailureDetector(1, 5, "exponential");
+    long now = 0;
+    for (int i = 0; i < 12; i++) {
+      fd.recordHeartbeat(now);
+      now += 100;
+    }
+    // eleven more, so the window wraps twice and only the slow intervals remain.
+    for (int i = 0; i < 11; i++) {
+      now += 1000;
+      fd.recordHeartbeat(now);
+    }
+    Assertions.assertEquals(1 / Math.log(10), fd.phi(now + 1000), 1e-9);
+  }
+
+  @Test
+  public void certainFailureIsInfinite() {
+    FailureDetector fd = new FailureDetector(1, 1000, "normal");
+    Assertions.assertTrue(Double.isNaN(fd.phi(0)));
+    for (int i = 0; i <= 10; i++) {
+      fd.recordHeartbeat(i * 100);
+    }
+    Assertions.assertEquals(Double.POSITIVE_INFINITY, fd.phi(100000));
+  }
+
+  @Test
+  public void thresholdMatchesPhi() {
+    double[] thresholds = {-1, 0, 0.3, 1, 2.5, 8, 12, 20, 1e9, Double.POSITIVE_INFINITY};
+    for (String distribution : new String[] {"normal", "exponential"}) {
+      List<PhiThreshold> phiThresholds = new ArrayList<>();
+      for (double threshold : thresholds) {
+        phiThresholds.add(new PhiThreshold(threshold, distribution));
+      }
+      for (int d = 0; d < 100; d++) {
+        FailureDetector fd = new FailureDetector(5, 1000, distribution);
+        // some detectors only have a few heartbeats, too few for phi.
+        List<Integer> times = generateTimeList(0, (d % 10) * 100, 100);
+        for (Integer time : times) {
+          fd.recordHeartbeat(time);
+        }
+        // from just after the latest heartbeats to long after them.
+        for (long now = 850; now <= 1300; now += 30) {
+          double phi = fd.phi(now);
+          Assertions.assertEquals(!Double.isNaN(phi), fd.isKnown());
+          for (PhiThreshold threshold : phiThresholds) {
+            Assertions.assertEquals(
+                phi > threshold.getThreshold(),
+                fd.beyond(now, threshold),
+                distribution + " " + threshold.getThreshold() + " " + now);
+          }
+        }
+      }
+    }
+  }
+
   @FunctionalInterface
   interface TriConsumer<A, B, C> {
     void accept(A a, B b, C c);
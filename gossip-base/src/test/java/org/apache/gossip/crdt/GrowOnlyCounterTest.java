@@ -50,4 +50,36 @@ public class GrowOnlyCounterTest {
     gCounter3 = gCounter3.merge(gCounter2);
     Assert.assertEquals(6, (long) gCounter3.value());
   }
+
+  @Test
+  public void stateHashSeesCountsPerNode() {
+    Map<String, Long> node1Counter = new HashMap<>();
+    node1Counter.put("1", 1L);
+    Map<String, Long> node2Counter = new HashMap<>();
+    node2Counter.put("2", 1L);
+    GrowOnlyCounter gCounter1 = new GrowOnlyCounter(node1Counter);
+    GrowOnlyCounter gCounter2 = new GrowOnlyCounter(node2Counter);
+
+    // equal totals, but merging still changes both.
+    Assert.assertEquals(gCounter1, gCounter2);
+    Assert.assertEquals(gCounter1.hashCode(), gCounter2.hashCode());
+    Assert.assertNotEquals(gCounter1.stateHash(), gCounter2.stateHash());
+    Assert.assertEquals(
+        gCounter1.merge(gCounter2).stateHash(), gCounter2.merge(gCounter1).stateHash());
+  }
+
+  @Test
+  public void deltaHoldsOnlyIncrementedNodes() {
+    Map<String, Long> before = new HashMap<>();
+    before.put("1", 3L);
+    before.put("2", 5L);
+    Map<String, Long> after = new HashMap<>(before);
+    after.put("2", 6L);
+    GrowOnlyCounter previous = new GrowOnlyCounter(before);
+    GrowOnlyCounter current = new GrowOnlyCounter(after);
+    GrowOnlyCounter delta = current.delta(previous);
+    Assert.assertEquals(1, delta.getCounters().size());
+    Assert.assertEquals(9, (long) previous.merge(delta).value());
+    Assert.assertNull(previous.delta(current));
+  }
 }
@@ -35,4 +35,12 @@ public class GrowOnlySetTest {
         new GrowOnlySet<>(Arrays.asList("a", "b", "d")),
         a.merge("a", over, CrdtBiFunctionMerge::applyStatic));
   }
+
+  @Test
+  public void deltaHoldsOnlyNewElements() {
+    GrowOnlySet<String> previous = new GrowOnlySet<>(Arrays.asList("a", "b"));
+    GrowOnlySet<String> current = previous.merge(new GrowOnlySet<>(Arrays.asList("b", "c")));
+    Assert.assertEquals(new GrowOnlySet<>(Arrays.asList("c")), current.delta(previous));
+    Assert.assertNull(previous.delta(current));
+  }
 }
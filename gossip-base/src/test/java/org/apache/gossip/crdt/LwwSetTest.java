@@ -68,4 +68,14 @@ public class LwwSetTest extends AddRemoveStringSetTest<LwwSet<String>> {
     lww = lww.remove(25);
     Assert.assertEquals(lww, new LwwSet<>(25)); // 25 is still here
   }
+
+  @Test
+  public void deltaHoldsOnlyChangedElements() {
+    LwwSet<Integer> previous = new LwwSet<>(1, 2, 3);
+    LwwSet<Integer> current = previous.remove(2).add(4);
+    LwwSet<Integer> delta = current.delta(previous);
+    Assert.assertEquals(2, delta.getStruct().size());
+    Assert.assertEquals(current, previous.merge(delta));
+    Assert.assertNull(previous.delta(current));
+  }
 }
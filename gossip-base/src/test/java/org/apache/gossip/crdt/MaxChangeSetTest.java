@@ -63,4 +63,14 @@ public class MaxChangeSetTest extends AddRemoveStringSetTest<MaxChangeSet<String
     // full set still wins, repetitive removes don't increase number of operations too
     Assert.assertEquals(set1.merge(set2), new MaxChangeSet<>(1));
   }
+
+  @Test
+  public void deltaHoldsOnlyChangedElements() {
+    MaxChangeSet<Integer> previous = new MaxChangeSet<>(1, 2, 3);
+    MaxChangeSet<Integer> current = previous.remove(2).add(4);
+    MaxChangeSet<Integer> delta = current.delta(previous);
+    Assert.assertEquals(2, delta.getStruct().size());
+    Assert.assertEquals(current, previous.merge(delta));
+    Assert.assertNull(previous.delta(current));
+  }
 }
@@ -98,4 +98,19 @@ public class OrSetTest extends AddRemoveStringSetTest<OrSet<String>> {
     Assert.assertEquals(2, y.getElements().get(19).size());
     Assert.assertEquals(new OrSet<Integer>().value(), y.value());
   }
+
+  @Test
+  public void deltaHoldsOnlyNewTags() {
+    OrSet<Integer> big = new OrSet<>(1, 2, 3, 4, 5);
+    OrSet<Integer> added = big.add(6);
+    OrSet<Integer> delta = added.delta(big);
+    Assert.assertEquals(1, delta.getElements().size());
+    Assert.assertEquals(added, big.merge(delta));
+
+    OrSet<Integer> removed = added.remove(2);
+    delta = removed.delta(added);
+    Assert.assertTrue(delta.getElements().isEmpty());
+    Assert.assertEquals(removed, added.merge(delta));
+    Assert.assertNull(removed.delta(removed.merge(big)));
+  }
 }
@@ -132,4 +132,18 @@ public class PNCounterTest {
     counter2 = counter2.merge(counter3);
     Assert.assertEquals(1, (long) counter3.value());
   }
+
+  @Test
+  public void deltaHoldsOnlyChangedCounts() {
+    PNCounter previous =
+        new PNCounter(new PNCounter.Builder(mockManagers.get(0)).increment(3).decrement(1));
+    PNCounter current =
+        new PNCounter(previous, new PNCounter.Builder(mockManagers.get(1)).decrement(2));
+    PNCounter delta = current.delta(previous);
+    // only y decremented, the counts of x are not sent again.
+    Assert.assertFalse(delta.getPCounters().containsKey("x"));
+    Assert.assertFalse(delta.getNCounters().containsKey("x"));
+    Assert.assertEquals(current.value(), previous.merge(delta).value());
+    Assert.assertNull(current.delta(current));
+  }
 }
@@ -18,8 +18,14 @@
 package org.apache.gossip.event.data;
 
 import com.codahale.metrics.MetricRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -122,6 +128,41 @@ public class DataEventManagerTest {
     eventManager.unregisterSharedDataSubscriber(alice);
   }
 
+  // Test that shared data events only reach the handlers subscribed to the key
+  @Test
+  public void sharedDataKeyAndPrefixSubscribersTest() throws InterruptedException {
+    DataEventManager eventManager = new DataEventManager(new MetricRegistry());
+    Map<String, List<String>> received = new ConcurrentHashMap<>();
+    CountDownLatch latch = new CountDownLatch(8);
+    Function<String, UpdateSharedDataEventHandler> subscriber =
+        name ->
+            (key, oldValue, newValue) -> {
+              received.computeIfAbsent(name, n -> new CopyOnWriteArrayList<>()).add(key);
+              latch.countDown();
+            };
+    UpdateSharedDataEventHandler locks = subscriber.apply("locks");
+    eventManager.registerSharedDataSubscriber(subscriber.apply("all"));
+    eventManager.registerSharedDataSubscriber("lock", subscriber.apply("lock"));
+    eventManager.registerSharedDataPrefixSubscriber("lock/", locks);
+    eventManager.registerSharedDataSubscriber("lock/a", locks);
+    Assert.assertEquals(4, eventManager.getSharedDataSubscribersSize());
+
+    eventManager.notifySharedData("lock", 1, null);
+    eventManager.notifySharedData("lock/a", 1, null);
+    eventManager.notifySharedData("lock/b", 1, null);
+    eventManager.notifySharedData("other", 1, null);
+
+    Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+    Assert.assertEquals(4, received.get("all").size());
+    Assert.assertEquals(List.of("lock"), received.get("lock"));
+    // once for the prefix and once for the key.
+    Assert.assertEquals(
+        List.of("lock/a", "lock/a", "lock/b"), received.get("locks").stream().sorted().toList());
+
+    eventManager.unregisterSharedDataSubscriber(locks);
+    Assert.assertEquals(2, eventManager.getSharedDataSubscribersSize());
+  }
+
   // Test the MetricRegistry
   @Test
   public void metricRegistryTest() {
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import com.codahale.metrics.MetricRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveScheduleTest {
+
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  public void backsOffWhileQuietAndResetsOnChange() {
+    AtomicLong changes = new AtomicLong();
+    AdaptiveSchedule schedule =
+        new AdaptiveSchedule(100, 1000, 3, changes::get, new MetricRegistry(), 0);
+    long now = 0;
+    Assert.assertEquals(100, schedule.nextDelay(100, now));
+    now += 100 * MS;
+    Assert.assertEquals(100, schedule.nextDelay(100, now));
+    // each delay is the quiet time so far, which doubles it.
+    now += 100 * MS;
+    Assert.assertEquals(200, schedule.nextDelay(100, now));
+    now += 200 * MS;
+    Assert.assertEquals(400, schedule.nextDelay(100, now));
+    now += 400 * MS;
+    Assert.assertEquals(800, schedule.nextDelay(100, now));
+    now += 800 * MS;
+    Assert.assertEquals(1000, schedule.nextDelay(100, now));
+    // slower tasks never run faster than their own interval.
+    Assert.assertEquals(2000, schedule.nextDelay(2000, now));
+    changes.incrementAndGet();
+    Assert.assertEquals(100, schedule.nextDelay(100, now));
+    now += 300 * MS;
+    schedule.changed(now);
+    Assert.assertEquals(100, schedule.nextDelay(100, now));
+  }
+
+  @Test
+  public void fansOutWhileBusy() {
+    AtomicLong changes = new AtomicLong();
+    AdaptiveSchedule schedule =
+        new AdaptiveSchedule(100, 1000, 3, changes::get, new MetricRegistry(), 0);
+    Assert.assertEquals(1, schedule.fanout(1, 0));
+    Assert.assertEquals(2, schedule.fanout(3, 0));
+    Assert.assertEquals(3, schedule.fanout(4, 0));
+    Assert.assertEquals(3, schedule.fanout(100, 0));
+    Assert.assertEquals(1, schedule.fanout(0, 0));
+    long quiet = AdaptiveSchedule.ACTIVE_ROUNDS * 100 * MS;
+    Assert.assertEquals(1, schedule.fanout(100, quiet));
+    changes.incrementAndGet();
+    Assert.assertEquals(3, schedule.fanout(100, quiet));
+  }
+
+  @Test
+  public void reportsConvergenceTime() {
+    AtomicLong changes = new AtomicLong();
+    MetricRegistry registry = new MetricRegistry();
+    AdaptiveSchedule schedule = new AdaptiveSchedule(100, 1000, 3, changes::get, registry, 0);
+    long now = 0;
+    for (int i = 0; i < 5; i++) {
+      now += 100 * MS;
+      changes.incrementAndGet();
+      schedule.nextDelay(100, now);
+    }
+    now += AdaptiveSchedule.ACTIVE_ROUNDS * 100 * MS;
+    schedule.nextDelay(100, now);
+    schedule.sent(3);
+    Assert.assertEquals(
+        1, registry.histogram(GossipCoreConstants.ADAPTIVE_GOSSIP_CONVERGENCE_TIME).getCount());
+    Assert.assertEquals(
+        500,
+        registry
+            .histogram(GossipCoreConstants.ADAPTIVE_GOSSIP_CONVERGENCE_TIME)
+            .getSnapshot()
+            .getMax());
+    Assert.assertEquals(3, registry.meter(GossipCoreConstants.ADAPTIVE_GOSSIP_MESSAGES).getCount());
+    Assert.assertEquals(
+        1000L, registry.getGauges().get(GossipCoreConstants.ADAPTIVE_GOSSIP_INTERVAL).getValue());
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.event.GossipState;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.model.ShutdownMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GossipMemberStateRefresherTest {
+
+  private static LocalMember member(String id, long heartbeat) {
+    return new LocalMember(
+        "abc",
+        URI.create("udp://localhost:" + (7100 + Integer.parseInt(id))),
+        id,
+        heartbeat,
+        new HashMap<>(),
+        1000,
+        1,
+        "normal");
+  }
+
+  @Test
+  public void evaluateOnlyTouchesTheGivenMember() {
+    MemberStateMap members = new MemberStateMap();
+    Map<String, PerNodeDataMessage> shutdowns = new ConcurrentHashMap<>();
+    Map<String, GossipState> events = new ConcurrentHashMap<>();
+    LocalMember one = member("1", 10);
+    LocalMember two = member("2", 10);
+    members.put(one, GossipState.UP);
+    members.put(two, GossipState.UP);
+    GossipMemberStateRefresher refresher =
+        new GossipMemberStateRefresher(
+            members,
+            new GossipSettings(),
+            (member, state) -> events.put(member.getId(), state),
+            (nodeId, key) -> shutdowns.get(nodeId));
+
+    for (String id : new String[] {"1", "2"}) {
+      ShutdownMessage s = new ShutdownMessage();
+      s.setNodeId(id);
+      s.setShutdownAtNanos(20);
+      PerNodeDataMessage m = new PerNodeDataMessage();
+      m.setNodeId(id);
+      m.setKey(ShutdownMessage.PER_NODE_KEY);
+      m.setPayload(s);
+      shutdowns.put(id, m);
+    }
+
+    refresher.evaluate("1");
+    Assert.assertEquals(GossipState.DOWN, members.get(one));
+    Assert.assertEquals(GossipState.UP, members.get(two));
+    TUnit.assertThat(() -> events.get("1"))
+        .afterWaitingAtMost(5, TimeUnit.SECONDS)
+        .isEqualTo(GossipState.DOWN);
+
+    refresher.runOnce();
+    Assert.assertEquals(GossipState.DOWN, members.get(two));
+    refresher.shutdown();
+  }
+
+  @Test
+  public void listenersEndAtTheStateInTheMap() throws InterruptedException {
+    // pauses between changing a state and publishing it, where other threads could interleave.
+    MemberStateMap members =
+        new MemberStateMap() {
+          @Override
+          public GossipState put(LocalMember key, GossipState value) {
+            GossipState previous = super.put(key, value);
+            LockSupport.parkNanos(10_000);
+            return previous;
+          }
+        };
+    Map<String, GossipState> events = new ConcurrentHashMap<>();
+    List<LocalMember> all = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      LocalMember member = member(i + "", 10);
+      all.add(member);
+      members.put(member, GossipState.UP);
+    }
+    GossipMemberStateRefresher refresher =
+        new GossipMemberStateRefresher(
+            members,
+            new GossipSettings(),
+            (member, state) -> events.put(member.getId(), state),
+            (nodeId, key) -> null);
+
+    // the prober, receive workers and the sweep all flip the same members at once.
+    AtomicBoolean running = new AtomicBoolean(true);
+    List<Thread> threads = new ArrayList<>();
+    threads.add(
+        new Thread(
+            () -> {
+              while (running.get()) {
+                for (LocalMember member : all) {
+                  refresher.confirmDown(member, member.getHeartbeat());
+                }
+              }
+            }));
+    threads.add(
+        new Thread(
+            () -> {
+              while (running.get()) {
+                for (LocalMember member : all) {
+                  member.setHeartbeat(member.getHeartbeat() + 1);
+                  member.recordHeartbeat(System.nanoTime());
+                  refresher.evaluate(member);
+                }
+              }
+            }));
+    threads.add(
+        new Thread(
+            () -> {
+              while (running.get()) {
+                for (LocalMember member : all) {
+                  refresher.evaluate(member);
+                }
+              }
+            }));
+    threads.add(
+        new Thread(
+            () -> {
+              while (running.get()) {
+                refresher.runOnce();
+              }
+            }));
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    Thread.sleep(2000);
+    running.set(false);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    for (LocalMember member : all) {
+      TUnit.assertThat(() -> events.get(member.getId()))
+          .afterWaitingAtMost(5, TimeUnit.SECONDS)
+          .isEqualTo(members.get(member));
+    }
+    refresher.shutdown();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import com.codahale.metrics.MetricRegistry;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.event.GossipState;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ListenerQueueTest {
+
+  private final Queue<Runnable> tasks = new ArrayDeque<>();
+  private final List<String> events = new ArrayList<>();
+  private final MetricRegistry registry = new MetricRegistry();
+
+  private ListenerQueue queue(int capacity) {
+    return new ListenerQueue(
+        (member, state) -> events.add(member.getId() + " " + state),
+        tasks::add,
+        capacity,
+        registry.meter(GossipCoreConstants.LISTENER_OVERFLOWS));
+  }
+
+  private void runTasks() {
+    while (!tasks.isEmpty()) {
+      tasks.poll().run();
+    }
+  }
+
+  private static LocalMember member(int id) {
+    return new LocalMember(
+        "abc",
+        URI.create("udp://localhost:" + (7100 + id)),
+        id + "",
+        0,
+        new HashMap<>(),
+        1000,
+        1,
+        "normal");
+  }
+
+  @Test
+  public void deliversInOrderAndCoalescesEachMember() {
+    ListenerQueue queue = queue(16);
+    LocalMember one = member(1);
+    LocalMember two = member(2);
+    queue.offer(one, GossipState.UP);
+    queue.offer(two, GossipState.UP);
+    queue.offer(one, GossipState.DOWN);
+    // one drain task however many changes wait.
+    Assert.assertEquals(1, tasks.size());
+    runTasks();
+    Assert.assertEquals(List.of("1 DOWN", "2 UP"), events);
+
+    events.clear();
+    // down and back up before the listener caught up is no change to it.
+    queue.offer(two, GossipState.DOWN);
+    queue.offer(two, GossipState.UP);
+    queue.offer(one, GossipState.UP);
+    runTasks();
+    Assert.assertEquals(List.of("1 UP"), events);
+  }
+
+  @Test
+  public void overflowsAreCountedNotDropped() {
+    ListenerQueue queue = queue(4);
+    Set<String> expected = new HashSet<>();
+    for (int i = 0; i < 10; i++) {
+      queue.offer(member(i), GossipState.UP);
+      expected.add(i + " UP");
+    }
+    runTasks();
+    Assert.assertEquals(6, registry.meter(GossipCoreConstants.LISTENER_OVERFLOWS).getCount());
+    // the ring in order, then the overflow.
+    Assert.assertEquals(List.of("0 UP", "1 UP", "2 UP", "3 UP"), events.subList(0, 4));
+    Assert.assertEquals(10, events.size());
+    Assert.assertEquals(expected, new HashSet<>(events));
+  }
+
+  @Test
+  public void failingListenerDoesNotStopDelivery() {
+    List<String> seen = new ArrayList<>();
+    ListenerQueue queue =
+        new ListenerQueue(
+            (member, state) -> {
+              seen.add(member.getId());
+              throw new IllegalStateException("listener failure");
+            },
+            Runnable::run,
+            16,
+            registry.meter(GossipCoreConstants.LISTENER_OVERFLOWS));
+    queue.offer(member(1), GossipState.UP);
+    queue.offer(member(2), GossipState.UP);
+    Assert.assertEquals(List.of("1", "2"), seen);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import com.codahale.metrics.MetricRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LocalHealthTest {
+
+  private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+  @Test
+  public void scoreStaysWithinBounds() {
+    MetricRegistry registry = new MetricRegistry();
+    LocalHealth health = new LocalHealth(2, registry);
+    Assert.assertEquals(1, health.getMultiplier());
+    health.recover();
+    Assert.assertEquals(0, health.getScore());
+    for (int i = 0; i < 5; i++) {
+      health.degrade();
+    }
+    Assert.assertEquals(3, health.getMultiplier());
+    Assert.assertEquals(2, registry.meter(GossipCoreConstants.LOCAL_HEALTH_RAISED).getCount());
+    health.recover();
+    Assert.assertEquals(1, health.getScore());
+  }
+
+  @Test
+  public void disabledHealthNeverRises() {
+    LocalHealth health = new LocalHealth(0, new MetricRegistry());
+    health.degrade();
+    health.tick(INTERVAL, INTERVAL);
+    health.tick(INTERVAL * 10, INTERVAL);
+    Assert.assertEquals(1, health.getMultiplier());
+  }
+
+  @Test
+  public void lateTicksAndQueueLagRaiseTheScore() {
+    LocalHealth health = new LocalHealth(8, new MetricRegistry());
+    long now = INTERVAL;
+    health.tick(now, INTERVAL);
+    // a pause of half a second.
+    now += INTERVAL * 5;
+    health.tick(now, INTERVAL);
+    Assert.assertEquals(1, health.getScore());
+    health.recordQueueWait(INTERVAL * 3);
+    now += INTERVAL;
+    health.tick(now, INTERVAL);
+    Assert.assertEquals(2, health.getScore());
+    // a second of ticks on time recovers one step.
+    for (int i = 0; i < 10; i++) {
+      now += INTERVAL;
+      health.tick(now, INTERVAL);
+    }
+    Assert.assertEquals(1, health.getScore());
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LogProgressTest {
+
+  @Test
+  public void batchAcknowledgedInChunks() {
+    LogProgress progress = new LogProgress();
+    progress.expect(5, 2);
+    progress.acknowledge("a", 5, 0);
+    Assert.assertEquals(0, progress.acknowledged());
+    progress.acknowledge("a", 5, 1);
+    Assert.assertEquals(5, progress.acknowledged());
+    Assert.assertEquals(0, progress.pending());
+  }
+
+  @Test
+  public void changeBetweenSendAndAckKeepsEarlierBatch() {
+    LogProgress progress = new LogProgress();
+    progress.expect(5, 1);
+    // a change lands and the next round goes out before the first ack comes back.
+    progress.expect(6, 1);
+    progress.acknowledge("a", 5, 0);
+    Assert.assertEquals(5, progress.acknowledged());
+    Assert.assertEquals(1, progress.pending());
+    progress.acknowledge("a", 6, 0);
+    Assert.assertEquals(6, progress.acknowledged());
+  }
+
+  @Test
+  public void steadyTrickleStillMovesForward() {
+    LogProgress progress = new LogProgress();
+    // every ack arrives one round late, after the next batch was sent.
+    progress.expect(1, 1);
+    for (long to = 2; to <= 20; to++) {
+      progress.expect(to, 1);
+      progress.acknowledge("a", to - 1, 0);
+      Assert.assertEquals(to - 1, progress.acknowledged());
+    }
+  }
+
+  @Test
+  public void laterBatchSupersedesEarlierOnes() {
+    LogProgress progress = new LogProgress();
+    progress.expect(3, 1);
+    progress.expect(4, 1);
+    progress.expect(7, 1);
+    progress.acknowledge("a", 7, 0);
+    Assert.assertEquals(7, progress.acknowledged());
+    Assert.assertEquals(0, progress.pending());
+    // a late ack for a batch already covered changes nothing.
+    progress.acknowledge("a", 3, 0);
+    Assert.assertEquals(7, progress.acknowledged());
+  }
+
+  @Test
+  public void unansweredBatchesAreBounded() {
+    LogProgress progress = new LogProgress();
+    for (long to = 1; to <= LogProgress.MAX_PENDING * 2; to++) {
+      progress.expect(to, 1);
+    }
+    Assert.assertEquals(LogProgress.MAX_PENDING, progress.pending());
+    progress.acknowledge("a", 1, 0);
+    Assert.assertEquals(0, progress.acknowledged());
+  }
+
+  @Test
+  public void restartedMemberStartsOver() {
+    LogProgress progress = new LogProgress();
+    progress.expect(5, 1);
+    progress.acknowledge("a", 5, 0);
+    progress.expect(8, 1);
+    progress.acknowledge("b", 8, 0);
+    Assert.assertEquals(0, progress.acknowledged());
+    Assert.assertEquals(0, progress.pending());
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.net.URI;
+import java.util.List;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.event.GossipState;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemberStateMapTest {
+
+  private static LocalMember member(int id) {
+    return new LocalMember(
+        "cluster1", URI.create("udp://127.0.0.1:" + id), id + "", 0, null, 1, 0, "");
+  }
+
+  @Test
+  public void listsAreKeptUntilAStateChanges() {
+    MemberStateMap members = new MemberStateMap();
+    LocalMember one = member(1);
+    LocalMember two = member(2);
+    members.put(one, GossipState.UP);
+    members.put(two, GossipState.UP);
+    List<LocalMember> live = members.getLive();
+    Assert.assertEquals(2, live.size());
+    Assert.assertTrue(members.getDead().isEmpty());
+    long version = members.getVersion();
+    // the refresher puts every state again each run.
+    members.put(one, GossipState.UP);
+    Assert.assertSame(live, members.getLive());
+    Assert.assertEquals(version, members.getVersion());
+
+    members.put(two, GossipState.DOWN);
+    Assert.assertEquals(1, members.getLive().size());
+    Assert.assertEquals(two, members.getDead().get(0));
+    Assert.assertEquals(2, live.size());
+
+    members.remove(two);
+    Assert.assertTrue(members.getDead().isEmpty());
+    members.keySet().remove(one);
+    Assert.assertTrue(members.getLive().isEmpty());
+    members.touch();
+    Assert.assertTrue(members.getVersion() > version);
+  }
+
+  @Test
+  public void indexesMembersById() {
+    MemberStateMap members = new MemberStateMap();
+    LocalMember one = member(1);
+    members.put(one, GossipState.UP);
+    Assert.assertSame(one, members.getById("1"));
+    // the same address again keeps the member already there.
+    members.putIfAbsent(member(1), GossipState.DOWN);
+    Assert.assertSame(one, members.getById("1"));
+    members.remove(member(1));
+    Assert.assertNull(members.getById("1"));
+    Assert.assertNull(members.getById(null));
+    members.put(one, GossipState.UP);
+    members.clear();
+    Assert.assertNull(members.getById("1"));
+  }
+
+  @Test
+  public void indexesMembersByUri() {
+    MemberStateMap members = new MemberStateMap();
+    LocalMember one = member(1);
+    members.put(one, GossipState.UP);
+    Assert.assertSame(one, members.getByUri("udp://127.0.0.1:1"));
+    Assert.assertNull(members.getByUri("udp://127.0.0.1:2"));
+    members.keySet().remove(member(1));
+    Assert.assertNull(members.getByUri("udp://127.0.0.1:1"));
+    Assert.assertNull(members.getByUri(null));
+    members.put(one, GossipState.UP);
+    members.clear();
+    Assert.assertNull(members.getByUri("udp://127.0.0.1:1"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void listsAreReadOnly() {
+    MemberStateMap members = new MemberStateMap();
+    members.put(member(1), GossipState.UP);
+    members.getLive().clear();
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.util.Arrays;
+import org.apache.gossip.crdt.OrSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RangeHashTreeTest {
+
+  @Test
+  public void updatesInAnyOrderGiveTheSameHashes() {
+    RangeHashTree first = new RangeHashTree(6);
+    RangeHashTree second = new RangeHashTree(6);
+    long a = RangeHashTree.entryHash("a", 1L, "x");
+    long b = RangeHashTree.entryHash("b", 2L, "y");
+    long b2 = RangeHashTree.entryHash("b", 3L, "z");
+    first.update("a", 0, a);
+    first.update("b", 0, b);
+    first.update("b", b, b2);
+    second.update("b", 0, b2);
+    second.update("a", 0, a);
+    for (int node = RangeHashTree.ROOT; first.isNode(node); node++) {
+      Assert.assertEquals(first.hash(node), second.hash(node));
+    }
+    first.update("a", a, 0);
+    first.update("b", b2, 0);
+    Assert.assertEquals(0, first.hash(RangeHashTree.ROOT));
+  }
+
+  @Test
+  public void entryHashIgnoresTheTimestampOfCrdts() {
+    Assert.assertEquals(
+        RangeHashTree.entryHash("k", 1L, new OrSet<>("a")),
+        RangeHashTree.entryHash("k", 2L, new OrSet<>("a")));
+    Assert.assertNotEquals(
+        RangeHashTree.entryHash("k", 1L, "a"), RangeHashTree.entryHash("k", 2L, "a"));
+  }
+
+  @Test
+  public void nodesCoverTheirLeaves() {
+    RangeHashTree tree = new RangeHashTree(4);
+    int leaf = tree.leaf("key");
+    Assert.assertTrue(tree.isLeaf(leaf));
+    Assert.assertTrue(tree.covers(RangeHashTree.ROOT, leaf));
+    Assert.assertTrue(tree.covers(leaf >>> 2, leaf));
+    Assert.assertTrue(tree.covers(leaf, leaf));
+    Assert.assertFalse(tree.covers(leaf ^ 1, leaf));
+    Assert.assertEquals(Arrays.asList(2, 3), tree.descendants(RangeHashTree.ROOT, 1));
+    Assert.assertEquals(Arrays.asList(16, 17, 18, 19), tree.descendants(4, 4));
+    Assert.assertEquals(Arrays.asList(leaf), tree.descendants(leaf, 4));
+  }
+}
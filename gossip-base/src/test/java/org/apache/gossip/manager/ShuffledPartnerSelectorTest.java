@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.manager;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.gossip.LocalMember;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShuffledPartnerSelectorTest {
+
+  private static LocalMember member(int id) {
+    return new LocalMember(
+        "cluster1", URI.create("udp://127.0.0.1:" + id), id + "", 0, null, 1, 0, "");
+  }
+
+  private static List<LocalMember> members(int from, int to) {
+    List<LocalMember> members = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      members.add(member(i));
+    }
+    return members;
+  }
+
+  @Test
+  public void everyMemberOncePerPass() {
+    PartnerSelector selector = new ShuffledPartnerSelector();
+    List<LocalMember> members = members(1, 11);
+    for (int pass = 0; pass < 5; pass++) {
+      Set<LocalMember> chosen = new HashSet<>();
+      for (int i = 0; i < members.size(); i++) {
+        chosen.add(selector.select(members));
+      }
+      Assert.assertEquals(members.size(), chosen.size());
+    }
+  }
+
+  @Test
+  public void joinedMembersAreChosenThisPass() {
+    PartnerSelector selector = new ShuffledPartnerSelector();
+    List<LocalMember> members = members(1, 11);
+    Set<LocalMember> chosen = new HashSet<>();
+    for (int i = 0; i < 5; i++) {
+      chosen.add(selector.select(members));
+    }
+    members.remove(9);
+    members.addAll(members(11, 14));
+    // the rest of the pass reaches those not chosen yet, the joined ones included.
+    int left = 0;
+    for (LocalMember member : members) {
+      if (!chosen.contains(member)) {
+        left++;
+      }
+    }
+    for (int i = 0; i < left; i++) {
+      chosen.add(selector.select(members));
+    }
+    Assert.assertTrue(chosen.containsAll(members));
+  }
+
+  @Test
+  public void fanoutIsDistinct() {
+    PartnerSelector selector = new ShuffledPartnerSelector();
+    List<LocalMember> members = members(1, 4);
+    for (int i = 0; i < 20; i++) {
+      List<LocalMember> chosen = selector.select(members, 2);
+      Assert.assertEquals(2, new HashSet<>(chosen).size());
+    }
+    Assert.assertEquals(3, selector.select(members, 5).size());
+    Assert.assertNull(selector.select(new ArrayList<>()));
+  }
+}
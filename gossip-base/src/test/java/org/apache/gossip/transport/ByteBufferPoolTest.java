@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.transport;
+
+import java.nio.ByteBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteBufferPoolTest {
+
+  @Test
+  public void releasedBuffersAreReused() {
+    ByteBufferPool pool = new ByteBufferPool(64, 2);
+    ByteBuffer first = pool.acquire();
+    Assert.assertTrue(first.isDirect());
+    Assert.assertEquals(64, first.capacity());
+    first.put((byte) 1);
+    pool.release(first);
+    Assert.assertEquals(1, pool.available());
+    ByteBuffer second = pool.acquire();
+    Assert.assertSame(first, second);
+    Assert.assertEquals(0, second.position());
+    Assert.assertEquals(64, second.limit());
+  }
+
+  @Test
+  public void poolIsBounded() {
+    ByteBufferPool pool = new ByteBufferPool(16, 1);
+    pool.release(pool.acquire());
+    pool.release(ByteBuffer.allocateDirect(16));
+    Assert.assertEquals(1, pool.available());
+  }
+
+  @Test
+  public void foreignBuffersAreIgnored() {
+    ByteBufferPool pool = new ByteBufferPool(16, 4);
+    pool.release(ByteBuffer.allocate(16));
+    pool.release(ByteBuffer.allocateDirect(32));
+    pool.release(null);
+    Assert.assertEquals(0, pool.available());
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.transport;
+
+import com.codahale.metrics.MetricRegistry;
+import io.teknek.tunit.TUnit;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.manager.PassiveGossipConstants;
+import org.apache.gossip.udp.UdpSharedDataMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReceivePipelineTest {
+
+  private final MetricRegistry registry = new MetricRegistry();
+
+  private GossipManager manager(GossipSettings settings, int port) {
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass("org.apache.gossip.transport.UnitTestTransportManager");
+    settings.setProtocolManagerClass("org.apache.gossip.protocol.UnitTestProtocolManager");
+    GossipManager gm =
+        GossipManagerBuilder.newBuilder()
+            .cluster("abc")
+            .gossipSettings(settings)
+            .id("1")
+            .uri(URI.create("udp://localhost:" + port))
+            .registry(registry)
+            .build();
+    gm.init();
+    return gm;
+  }
+
+  // the unit test transport has no reader, so its pipeline is only driven from here.
+  private static ReceivePipeline pipeline(GossipManager gm) {
+    return ((AbstractTransportManager) gm.getTransportManager()).receivePipeline;
+  }
+
+  @Test
+  public void workersDispatchQueuedMessages() throws IOException {
+    GossipSettings settings = new GossipSettings();
+    settings.setReceiveWorkers(2);
+    GossipManager gm = manager(settings, 6100);
+    ReceivePipeline pipeline = pipeline(gm);
+    pipeline.start();
+    UdpSharedDataMessage message = new UdpSharedDataMessage();
+    message.setKey("key");
+    message.setPayload("a");
+    message.setTimestamp(System.currentTimeMillis());
+    message.setExpireAt(Long.MAX_VALUE);
+    Assert.assertTrue(pipeline.offer(gm.getProtocolManager().write(message)));
+    TUnit.assertThat(() -> gm.findSharedGossipData("key") == null ? null : "found")
+        .afterWaitingAtMost(5, TimeUnit.SECONDS)
+        .isEqualTo("found");
+    TUnit.assertThat(() -> registry.timer(PassiveGossipConstants.RECEIVE_DISPATCH_TIME).getCount())
+        .afterWaitingAtMost(5, TimeUnit.SECONDS)
+        .isEqualTo(1L);
+    gm.shutdown();
+  }
+
+  @Test
+  public void fullQueueDropsAndCounts() {
+    GossipSettings settings = new GossipSettings();
+    settings.setReceiveQueueSize(1);
+    GossipManager gm = manager(settings, 6101);
+    // never started, so nothing drains the queue.
+    ReceivePipeline pipeline = pipeline(gm);
+    Assert.assertTrue(pipeline.offer(new byte[] {1}));
+    Assert.assertFalse(pipeline.offer(new byte[] {2}));
+    Assert.assertEquals(1, registry.meter(PassiveGossipConstants.RECEIVE_DROPPED).getCount());
+    Assert.assertEquals(
+        1, registry.getGauges().get(PassiveGossipConstants.RECEIVE_QUEUE_DEPTH).getValue());
+    gm.shutdown();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.benchmark;
+
+import com.codahale.metrics.MetricRegistry;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.Member;
+import org.apache.gossip.RemoteMember;
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merges a gossiped member list into the members already known, the work done for every membership
+ * message received. The time per merge should grow linearly with the number of members.
+ *
+ * <p>Build with {@code mvn -pl gossip-benchmark -am package -DskipTests}, then run {@code java -jar
+ * gossip-benchmark/target/benchmarks.jar MergeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MergeBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int members;
+
+  private GossipManager gossipManager;
+  private GossipCore gossipCore;
+  private RemoteMember sender;
+  private List<Member> remoteList;
+
+  @Setup
+  public void setup() throws Exception {
+    String cluster = "benchmark";
+    GossipSettings settings = new GossipSettings();
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    gossipManager =
+        GossipManagerBuilder.newBuilder()
+            .cluster(cluster)
+            .uri(new URI("udp://10.1.0.0:2000"))
+            .id("me")
+            .gossipSettings(settings)
+            .build();
+    gossipCore = new GossipCore(gossipManager, new MetricRegistry());
+    remoteList = new ArrayList<>();
+    for (int i = 0; i < members; i++) {
+      Map<String, String> properties = new HashMap<>();
+      properties.put("datacenter", "dc" + (i % 2));
+      properties.put("rack", "rack" + (i % 4));
+      remoteList.add(
+          new RemoteMember(
+              cluster,
+              new URI("udp://10.0." + (i / 250) + "." + (i % 250) + ":2000"),
+              i + "",
+              System.nanoTime(),
+              properties));
+    }
+    sender = (RemoteMember) remoteList.get(0);
+    // from now on every merge finds all members known, as in a settled cluster.
+    gossipCore.mergeLists(sender, remoteList);
+  }
+
+  @Benchmark
+  public int merge() {
+    gossipCore.mergeLists(sender, remoteList);
+    return gossipManager.getMembers().size();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.benchmark;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.LocalMember;
+import org.apache.gossip.accrual.PhiThreshold;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finds the members beyond the convict threshold, as the member state refresher does every 100 ms:
+ * computing phi for each member, boxed or not, or comparing with the threshold turned into a time
+ * since the latest heartbeat.
+ *
+ * <p>Build with {@code mvn -pl gossip-benchmark -am package -DskipTests}, then run {@code java -jar
+ * gossip-benchmark/target/benchmarks.jar PhiBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhiBenchmark {
+
+  private static final double THRESHOLD = new GossipSettings().getConvictThreshold();
+
+  private PhiThreshold threshold;
+
+  @Param({"5000"})
+  public int members;
+
+  @Param({"normal", "exponential"})
+  public String distribution;
+
+  private final List<LocalMember> localMembers = new ArrayList<>();
+  private long now;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    long interval = TimeUnit.MILLISECONDS.toNanos(100);
+    for (int i = 0; i < members; i++) {
+      LocalMember member =
+          new LocalMember(
+              "benchmark",
+              URI.create("udp://10.0." + (i / 250) + "." + (i % 250) + ":2000"),
+              i + "",
+              0,
+              null,
+              1000,
+              10,
+              distribution);
+      long time = 0;
+      for (int j = 0; j < 1000; j++) {
+        time += interval + random.nextInt((int) (interval / 10));
+        member.recordHeartbeat(time);
+      }
+      now = Math.max(now, time);
+      localMembers.add(member);
+    }
+    now += interval;
+    threshold = new PhiThreshold(THRESHOLD, distribution);
+  }
+
+  @Benchmark
+  public int boxed() {
+    int convicted = 0;
+    for (LocalMember member : localMembers) {
+      Double phi = member.detect(now);
+      if (phi != null && phi > THRESHOLD) {
+        convicted++;
+      }
+    }
+    return convicted;
+  }
+
+  @Benchmark
+  public int perMember() {
+    int convicted = 0;
+    for (LocalMember member : localMembers) {
+      if (member.phi(now) > THRESHOLD) {
+        convicted++;
+      }
+    }
+    return convicted;
+  }
+
+  @Benchmark
+  public int threshold() {
+    int convicted = 0;
+    for (LocalMember member : localMembers) {
+      if (member.phiBeyond(now, threshold)) {
+        convicted++;
+      }
+    }
+    return convicted;
+  }
+}
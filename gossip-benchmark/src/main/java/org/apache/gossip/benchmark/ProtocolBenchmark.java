@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.benchmark;
+
+import com.codahale.metrics.MetricRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.crdt.OrSet;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.Member;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.protocol.ProtocolManager;
+import org.apache.gossip.protocol.binary.BinaryProtocolManager;
+import org.apache.gossip.protocol.json.JacksonProtocolManager;
+import org.apache.gossip.replication.AllReplicable;
+import org.apache.gossip.secure.KeyTool;
+import org.apache.gossip.udp.UdpActiveGossipMessage;
+import org.apache.gossip.udp.UdpSharedDataBulkMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the protocol managers on the two messages that dominate gossip traffic: the membership
+ * list sent every round and a bulk shared data message. The encoded size of each message is printed
+ * during setup. Add {@code -prof gc} to the command line below to see the bytes allocated per
+ * operation.
+ *
+ * <p>Build with {@code mvn -pl gossip-benchmark -am package -DskipTests}, then run {@code java -jar
+ * gossip-benchmark/target/benchmarks.jar ProtocolBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolBenchmark {
+
+  @Param({"json", "smile", "cbor", "binary"})
+  public String protocol;
+
+  @Param({"membership", "sharedData"})
+  public String message;
+
+  @Param({"false", "true"})
+  public boolean signed;
+
+  private ProtocolManager protocolManager;
+  private Base decoded;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() throws Exception {
+    GossipSettings settings = new GossipSettings();
+    if (signed) {
+      File keys = Files.createTempDirectory("gossip-keys").toFile();
+      KeyTool.generatePubandPrivateKeyFiles(keys.getPath(), "1");
+      settings.setPathToKeyStore(keys.getPath());
+      settings.setSignMessages(true);
+    }
+    MetricRegistry registry = new MetricRegistry();
+    if ("binary".equals(protocol)) {
+      protocolManager = new BinaryProtocolManager(settings, "1", registry);
+    } else {
+      settings.setProtocolEncoding(protocol);
+      protocolManager = new JacksonProtocolManager(settings, "1", registry);
+    }
+    decoded = "membership".equals(message) ? membership(50) : sharedData(10);
+    encoded = protocolManager.write(decoded);
+    System.out.printf(
+        "%n%s %s%s: %d bytes%n", protocol, message, signed ? " signed" : "", encoded.length);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    return protocolManager.write(decoded);
+  }
+
+  @Benchmark
+  public Base decode() throws IOException {
+    return protocolManager.read(encoded);
+  }
+
+  static UdpActiveGossipMessage membership(int members) {
+    String cluster = UUID.randomUUID().toString();
+    UdpActiveGossipMessage message = new UdpActiveGossipMessage();
+    message.setUriFrom("udp://10.0.0.1:2000");
+    message.setUuid(UUID.randomUUID().toString());
+    for (int i = 0; i < members; i++) {
+      Member member = new Member(cluster, "udp://10.0.0." + i + ":2000", i + "", System.nanoTime());
+      Map<String, String> properties = new HashMap<>();
+      properties.put("datacenter", "dc" + (i % 2));
+      properties.put("rack", "rack" + (i % 4));
+      member.setProperties(properties);
+      message.getMembers().add(member);
+    }
+    return message;
+  }
+
+  static UdpSharedDataBulkMessage sharedData(int entries) {
+    UdpSharedDataBulkMessage bulk = new UdpSharedDataBulkMessage();
+    bulk.setUriFrom("1");
+    bulk.setUuid(UUID.randomUUID().toString());
+    for (int i = 0; i < entries; i++) {
+      SharedDataMessage entry = new SharedDataMessage();
+      entry.setNodeId("1");
+      entry.setKey("key" + i);
+      entry.setTimestamp(System.currentTimeMillis());
+      entry.setExpireAt(Long.MAX_VALUE);
+      entry.setReplicable(new AllReplicable<>());
+      if (i % 2 == 0) {
+        entry.setPayload(new OrSet<>("member-" + i, "member-" + (i + 1), "member-" + (i + 2)));
+      } else {
+        entry.setPayload("value-" + i);
+      }
+      bulk.addMessage(entry);
+    }
+    return bulk;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.examples;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.Member;
+import org.apache.gossip.RemoteMember;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+
+/**
+ * Starts a whole cluster inside this JVM on the in-memory transport and reports how long it takes
+ * until every member sees every other member alive, and how much CPU that cost per member.
+ *
+ * <p>Usage: {@code InMemoryCluster [members] [seeds] [latencyMillis] [jitterMillis] [loss]
+ * [maxSeconds]}, for example {@code InMemoryCluster 1000 3 5 10 0.01 600}.
+ */
+public class InMemoryCluster {
+
+  public static void main(String[] args) throws Exception {
+    int members = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+    int seeds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    long latency = args.length > 2 ? Long.parseLong(args[2]) : 0;
+    long jitter = args.length > 3 ? Long.parseLong(args[3]) : 0;
+    double loss = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+    long maxSeconds = args.length > 5 ? Long.parseLong(args[5]) : 300;
+
+    GossipSettings settings = new GossipSettings(1000, 30000, 1000, 1, 8, "exponential", false);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    // a thousand members would otherwise need two platform threads each just to receive, the
+    // transport's reader and the worker; virtual ones cost next to nothing while they wait.
+    settings.setReceiveWorkers(1);
+    settings.setReceiveVirtualThreads(true);
+
+    String cluster = UUID.randomUUID().toString();
+    Switchboard switchboard = Switchboard.forCluster(cluster);
+    switchboard.setLatency(latency, jitter);
+    switchboard.setLossProbability(loss);
+
+    List<Member> startupMembers = new ArrayList<>();
+    for (int i = 1; i <= seeds; i++) {
+      startupMembers.add(new RemoteMember(cluster, uri(i), i + ""));
+    }
+    com.sun.management.OperatingSystemMXBean os =
+        (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    long cpuStart = os.getProcessCpuTime();
+    long start = System.nanoTime();
+    List<GossipManager> clients = new ArrayList<>();
+    for (int i = 1; i <= members; i++) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(uri(i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+
+    long expected = (long) members * (members - 1);
+    long live;
+    do {
+      Thread.sleep(1000);
+      live = 0;
+      for (GossipManager client : clients) {
+        live += client.getLiveMembers().size();
+      }
+      System.out.printf(
+          "%6.1fs  %5.1f%% of live views  delivered %d  dropped %d%n",
+          (System.nanoTime() - start) / 1e9,
+          100.0 * live / expected,
+          switchboard.getDelivered(),
+          switchboard.getDropped());
+    } while (live < expected && System.nanoTime() - start < maxSeconds * 1_000_000_000L);
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    double cpuMillis = (os.getProcessCpuTime() - cpuStart) / 1e6;
+    System.out.printf(
+        "%d members %s in %.1fs using %.1f ms CPU per member%n",
+        members, live < expected ? "did not converge" : "converged", seconds, cpuMillis / members);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+
+  private static URI uri(int i) {
+    return URI.create("udp://127.0.0.1:" + i);
+  }
+}
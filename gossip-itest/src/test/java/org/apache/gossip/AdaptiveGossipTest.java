@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.gossip.event.GossipState;
+import org.apache.gossip.manager.GossipCoreConstants;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveGossipTest {
+
+  private static long interval(GossipManager client) {
+    return (Long)
+        client
+            .getRegistry()
+            .getGauges()
+            .get(GossipCoreConstants.ADAPTIVE_GOSSIP_INTERVAL)
+            .getValue();
+  }
+
+  @Test
+  public void backsOffWhenQuietAndStillSpreadsChanges() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(100, 10000, 1000, 1, 2.0, "exponential", true);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    settings.setMaxGossipInterval(2000);
+    // the default threshold, heartbeats backing off with the data would be convicted by it.
+    settings.setConvictThreshold(10);
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final AtomicInteger convicted = new AtomicInteger();
+    final int clusterMembers = 5;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      gossipService.registerGossipListener(
+          (member, state) -> {
+            if (state == GossipState.DOWN) {
+              convicted.incrementAndGet();
+            }
+          });
+      clients.add(gossipService);
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                total += client.getLiveMembers().size();
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+    convicted.set(0);
+    TUnit.assertThat(() -> interval(clients.get(0)) > 1000)
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(true);
+    // heartbeats keep their interval while the data rounds back off, so nobody is convicted.
+    try {
+      Thread.sleep(5000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    Assert.assertEquals(0, convicted.get());
+    Assert.assertTrue(interval(clients.get(0)) > 1000);
+
+    SharedDataMessage shared = new SharedDataMessage();
+    shared.setKey("leader");
+    shared.setPayload("3");
+    shared.setTimestamp(System.currentTimeMillis());
+    shared.setExpireAt(Long.MAX_VALUE);
+    clients.get(2).gossipSharedData(shared);
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                SharedDataMessage leader = client.findSharedGossipData("leader");
+                if (leader != null && "3".equals(leader.getPayload())) {
+                  total++;
+                }
+              }
+              return total;
+            })
+        .afterWaitingAtMost(10, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers);
+    TUnit.assertThat(() -> interval(clients.get(0)))
+        .afterWaitingAtMost(5, TimeUnit.SECONDS)
+        .isEqualTo(100L);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+}
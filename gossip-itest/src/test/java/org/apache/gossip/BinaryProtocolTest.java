@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.crdt.OrSet;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.protocol.binary.BinaryProtocolManager;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+import org.junit.Test;
+
+public class BinaryProtocolTest {
+
+  @Test
+  public void membershipAndDataOverBinary() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(100, 10000, 1000, 1, 2.0, "exponential", false);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    settings.setProtocolManagerClass(BinaryProtocolManager.class.getName());
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final int clusterMembers = 5;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                total += client.getLiveMembers().size();
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    SharedDataMessage shared = new SharedDataMessage();
+    shared.setKey("set");
+    shared.setPayload(new OrSet<>("a", "b"));
+    shared.setTimestamp(System.currentTimeMillis());
+    shared.setExpireAt(Long.MAX_VALUE);
+    clients.get(0).merge(shared);
+    PerNodeDataMessage perNode = new PerNodeDataMessage();
+    perNode.setKey("count");
+    perNode.setPayload(42L);
+    perNode.setTimestamp(System.currentTimeMillis());
+    perNode.setExpireAt(Long.MAX_VALUE);
+    clients.get(1).gossipPerNodeData(perNode);
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                if (new OrSet<>("a", "b").equals(client.findCrdt("set"))) {
+                  total++;
+                }
+                PerNodeDataMessage found = client.findPerNodeGossipData("2", "count");
+                if (found != null && Long.valueOf(42).equals(found.getPayload())) {
+                  total++;
+                }
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * 2);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+import org.junit.Test;
+
+public class CombinedGossipTest {
+
+  @Test
+  public void dataRidesAlongWithMembership() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(100, 10000, 1000, 1, 2.0, "exponential", true);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    settings.setCombinedGossipSize(1400);
+    // far beyond the test, so the data can only spread on the combined rounds.
+    settings.setAntiEntropyInterval(600000);
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final int clusterMembers = 5;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                total += client.getLiveMembers().size();
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    PerNodeDataMessage perNode = new PerNodeDataMessage();
+    perNode.setKey("color");
+    perNode.setPayload("blue");
+    perNode.setTimestamp(System.currentTimeMillis());
+    perNode.setExpireAt(Long.MAX_VALUE);
+    clients.get(1).gossipPerNodeData(perNode);
+    SharedDataMessage shared = new SharedDataMessage();
+    shared.setKey("leader");
+    shared.setPayload("3");
+    shared.setTimestamp(System.currentTimeMillis());
+    shared.setExpireAt(Long.MAX_VALUE);
+    clients.get(2).gossipSharedData(shared);
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                PerNodeDataMessage found = client.findPerNodeGossipData("2", "color");
+                if (found != null && "blue".equals(found.getPayload())) {
+                  total++;
+                }
+                SharedDataMessage leader = client.findSharedGossipData("leader");
+                if (leader != null && "3".equals(leader.getPayload())) {
+                  total++;
+                }
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * 2);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+
+  @Test
+  public void oversizedDataDoesNotBlockTheRound() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(100, 10000, 1000, 1, 2.0, "exponential", true);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    settings.setCombinedGossipSize(1400);
+    settings.setAntiEntropyInterval(600000);
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final int clusterMembers = 5;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+      if (i == 1) {
+        // never fits a round, and sorts first as the least piggybacked update.
+        StringBuilder large = new StringBuilder();
+        while (large.length() < 4000) {
+          large.append(UUID.randomUUID());
+        }
+        SharedDataMessage oversized = new SharedDataMessage();
+        oversized.setKey("large");
+        oversized.setPayload(large.toString());
+        oversized.setTimestamp(System.currentTimeMillis());
+        oversized.setExpireAt(Long.MAX_VALUE);
+        gossipService.gossipSharedData(oversized);
+        SharedDataMessage small = new SharedDataMessage();
+        small.setKey("leader");
+        small.setPayload("1");
+        small.setTimestamp(System.currentTimeMillis());
+        small.setExpireAt(Long.MAX_VALUE);
+        gossipService.gossipSharedData(small);
+      }
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                total += client.getLiveMembers().size();
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                SharedDataMessage leader = client.findSharedGossipData("leader");
+                if (leader != null && "1".equals(leader.getPayload())) {
+                  total++;
+                }
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+}
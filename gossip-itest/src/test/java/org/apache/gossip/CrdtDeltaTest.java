@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.crdt.Crdt;
+import org.apache.gossip.crdt.GrowOnlyCounter;
+import org.apache.gossip.crdt.OrSet;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+import org.junit.Test;
+
+public class CrdtDeltaTest {
+
+  private static SharedDataMessage shared(String key, Object payload) {
+    SharedDataMessage message = new SharedDataMessage();
+    message.setKey(key);
+    message.setPayload(payload);
+    message.setTimestamp(System.currentTimeMillis());
+    message.setExpireAt(Long.MAX_VALUE);
+    return message;
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static int holding(List<GossipManager> clients, String key, Object value) {
+    int total = 0;
+    for (GossipManager client : clients) {
+      Crdt found = client.findCrdt(key);
+      if (found != null && value.equals(found.value())) {
+        total++;
+      }
+    }
+    return total;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void changesSpreadAsDeltas() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(100, 10000, 1000, 1, 2.0, "exponential", true);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    settings.setCrdtDeltaRounds(3);
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final int clusterMembers = 5;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                total += client.getLiveMembers().size();
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    OrSet<String> expected = new OrSet<>();
+    for (int i = 0; i < clusterMembers; i++) {
+      GossipManager client = clients.get(i);
+      client.merge(shared("set", new OrSet<>("e" + i)));
+      client.merge(
+          shared(
+              "counter", new GrowOnlyCounter(new GrowOnlyCounter.Builder(client).increment(2L))));
+      expected = expected.add("e" + i);
+    }
+    final OrSet<String> all = expected;
+    TUnit.assertThat(() -> holding(clients, "set", all.value()) + holding(clients, "counter", 10L))
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * 2);
+
+    // a removal is a delta of tombstones only.
+    clients
+        .get(4)
+        .merge(shared("set", ((OrSet<String>) clients.get(4).findCrdt("set")).remove("e0")));
+    TUnit.assertThat(() -> holding(clients, "set", all.remove("e0").value()))
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.crdt.OrSet;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+import org.junit.Test;
+
+public class DataTreeTest {
+
+  private static final int KEYS = 100;
+
+  private static SharedDataMessage shared(String key, Object payload, long timestamp) {
+    SharedDataMessage message = new SharedDataMessage();
+    message.setKey(key);
+    message.setPayload(payload);
+    message.setTimestamp(timestamp);
+    message.setExpireAt(Long.MAX_VALUE);
+    return message;
+  }
+
+  private static PerNodeDataMessage perNode(String key, Object payload, long timestamp) {
+    PerNodeDataMessage message = new PerNodeDataMessage();
+    message.setKey(key);
+    message.setPayload(payload);
+    message.setTimestamp(timestamp);
+    message.setExpireAt(Long.MAX_VALUE);
+    return message;
+  }
+
+  private static int holding(List<GossipManager> clients, String key, Object payload) {
+    int total = 0;
+    for (GossipManager client : clients) {
+      SharedDataMessage found = client.findSharedGossipData(key);
+      if (found != null && payload.equals(found.getPayload())) {
+        total++;
+      }
+    }
+    return total;
+  }
+
+  private static int holding(
+      List<GossipManager> clients, String owner, String key, Object payload) {
+    int total = 0;
+    for (GossipManager client : clients) {
+      PerNodeDataMessage found = client.findPerNodeGossipData(owner, key);
+      if (found != null && payload.equals(found.getPayload())) {
+        total++;
+      }
+    }
+    return total;
+  }
+
+  @Test
+  public void dataConvergesThroughTrees() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(100, 10000, 1000, 1, 2.0, "exponential", true);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    settings.setDataTreeDepth(8);
+    settings.setBulkTransferSize(20);
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final int clusterMembers = 4;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                total += client.getLiveMembers().size();
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < KEYS; i++) {
+      clients.get(i % clusterMembers).gossipSharedData(shared("key" + i, "value" + i, now));
+    }
+    for (int i = 0; i < 10; i++) {
+      clients.get(0).gossipPerNodeData(perNode("node" + i, "value" + i, now));
+    }
+    clients.get(0).merge(shared("set", new OrSet<>("a"), now));
+    clients.get(1).merge(shared("set", new OrSet<>("b"), now));
+    TUnit.assertThat(
+            () -> {
+              int total = holding(clients, "set", new OrSet<>("a", "b"));
+              for (int i = 0; i < KEYS; i++) {
+                total += holding(clients, "key" + i, "value" + i);
+              }
+              for (int i = 0; i < 10; i++) {
+                total += holding(clients, "1", "node" + i, "value" + i);
+              }
+              return total;
+            })
+        .afterWaitingAtMost(30, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (KEYS + 11));
+
+    // once the trees agree a single change is found by descending to its bucket.
+    clients.get(3).gossipSharedData(shared("key0", "changed", now + 1));
+    clients.get(0).gossipPerNodeData(perNode("node0", "changed", now + 1));
+    TUnit.assertThat(
+            () -> holding(clients, "key0", "changed") + holding(clients, "1", "node0", "changed"))
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * 2);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemoryTransportTest {
+
+  private static int totalLive(List<GossipManager> clients) {
+    int total = 0;
+    for (GossipManager client : clients) {
+      total += client.getLiveMembers().size();
+    }
+    return total;
+  }
+
+  @Test
+  public void partitionAndHeal() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(100, 10000, 1000, 1, 2.0, "exponential", false);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    String cluster = UUID.randomUUID().toString();
+    Switchboard switchboard = Switchboard.forCluster(cluster);
+    switchboard.setLatency(2, 5);
+    switchboard.setLossProbability(0.05);
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final List<URI> left = new ArrayList<>();
+    final int clusterMembers = 10;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      URI uri = new URI("udp://127.0.0.1:" + i);
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(uri)
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+      if (i <= clusterMembers / 2) {
+        left.add(uri);
+      }
+    }
+    TUnit.assertThat(() -> totalLive(clients))
+        .afterWaitingAtMost(30, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    switchboard.partition(left);
+    int half = clusterMembers / 2;
+    TUnit.assertThat(() -> totalLive(clients))
+        .afterWaitingAtMost(30, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (half - 1));
+
+    switchboard.heal();
+    TUnit.assertThat(() -> totalLive(clients))
+        .afterWaitingAtMost(30, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+    Assert.assertTrue(switchboard.getDelivered() > 0);
+    Assert.assertTrue(switchboard.getDropped() > 0);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+}
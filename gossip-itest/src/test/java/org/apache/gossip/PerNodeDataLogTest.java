@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+import org.junit.Test;
+
+public class PerNodeDataLogTest {
+
+  private static PerNodeDataMessage perNode(String key, Object payload, long timestamp) {
+    PerNodeDataMessage message = new PerNodeDataMessage();
+    message.setKey(key);
+    message.setPayload(payload);
+    message.setTimestamp(timestamp);
+    message.setExpireAt(Long.MAX_VALUE);
+    return message;
+  }
+
+  private static int holding(
+      List<GossipManager> clients, String owner, String key, Object payload) {
+    int total = 0;
+    for (GossipManager client : clients) {
+      PerNodeDataMessage found = client.findPerNodeGossipData(owner, key);
+      if (found != null && payload.equals(found.getPayload())) {
+        total++;
+      }
+    }
+    return total;
+  }
+
+  @Test
+  public void changesSpreadFromTheLog() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(100, 10000, 1000, 1, 2.0, "exponential", true);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    // smaller than the first burst of changes, so members start from a full transfer.
+    settings.setPerNodeDataLogSize(8);
+    settings.setBulkTransferSize(4);
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final int clusterMembers = 4;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                total += client.getLiveMembers().size();
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < 20; i++) {
+      clients.get(i % clusterMembers).gossipPerNodeData(perNode("key" + i, "value" + i, now));
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (int i = 0; i < 20; i++) {
+                String owner = (i % clusterMembers + 1) + "";
+                total += holding(clients, owner, "key" + i, "value" + i);
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * 20);
+
+    // once everyone acknowledged, a change is all the log has to send.
+    clients.get(2).gossipPerNodeData(perNode("key2", "changed", now + 1));
+    TUnit.assertThat(() -> holding(clients, "3", "key2", "changed"))
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.crdt.OrSet;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+import org.junit.Test;
+
+public class SharedDataDigestTest {
+
+  private static SharedDataMessage shared(String key, Object payload, long timestamp) {
+    SharedDataMessage message = new SharedDataMessage();
+    message.setKey(key);
+    message.setPayload(payload);
+    message.setTimestamp(timestamp);
+    message.setExpireAt(Long.MAX_VALUE);
+    return message;
+  }
+
+  private static int holding(List<GossipManager> clients, String key, Object payload) {
+    int total = 0;
+    for (GossipManager client : clients) {
+      SharedDataMessage found = client.findSharedGossipData(key);
+      if (found != null && payload.equals(found.getPayload())) {
+        total++;
+      }
+    }
+    return total;
+  }
+
+  @Test
+  public void dataConvergesThroughDigests() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(100, 10000, 1000, 1, 2.0, "exponential", true);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    settings.setSharedDataDigest(true);
+    settings.setBulkTransferSize(2);
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final int clusterMembers = 5;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                total += client.getLiveMembers().size();
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < 5; i++) {
+      clients.get(i % clusterMembers).gossipSharedData(shared("key" + i, "value" + i, now));
+    }
+    clients.get(0).merge(shared("set", new OrSet<>("a"), now));
+    clients.get(1).merge(shared("set", new OrSet<>("b"), now));
+    TUnit.assertThat(
+            () -> {
+              int total = holding(clients, "set", new OrSet<>("a", "b"));
+              for (int i = 0; i < 5; i++) {
+                total += holding(clients, "key" + i, "value" + i);
+              }
+              return total;
+            })
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * 6);
+
+    // a newer value written anywhere replaces the old one everywhere.
+    clients.get(3).gossipSharedData(shared("key0", "changed", now + 1));
+    TUnit.assertThat(() -> holding(clients, "key0", "changed"))
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers);
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.transport.memory.MemoryTransportManager;
+import org.apache.gossip.transport.memory.Switchboard;
+import org.junit.Test;
+
+public class SwimProberTest {
+
+  private static int live(List<GossipManager> clients) {
+    int total = 0;
+    for (GossipManager client : clients) {
+      total += client.getLiveMembers().size();
+    }
+    return total;
+  }
+
+  @Test
+  public void probesFindAnUnreachableMember() throws URISyntaxException {
+    // a threshold the heartbeats take long to reach, so it is the probes that find the member.
+    GossipSettings settings = new GossipSettings(100, 600000, 1000, 1, 1e9, "exponential", true);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(MemoryTransportManager.class.getName());
+    settings.setProbeInterval(100);
+    settings.setProbeTimeout(40);
+    settings.setSuspicionMultiplier(2);
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:1"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final int clusterMembers = 5;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + i))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+    TUnit.assertThat(() -> live(clients))
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    // cut off the last member without a shutdown message.
+    Switchboard switchboard = Switchboard.forCluster(cluster);
+    switchboard.partition(Collections.singletonList(new URI("udp://127.0.0.1:" + clusterMembers)));
+    List<GossipManager> reachable = clients.subList(0, clusterMembers - 1);
+    // well before the heartbeats alone would tell.
+    TUnit.assertThat(() -> live(reachable))
+        .afterWaitingAtMost(4, TimeUnit.SECONDS)
+        .isEqualTo((clusterMembers - 1) * (clusterMembers - 2));
+
+    // it refutes the suspicion with its next heartbeat once it can be reached again.
+    switchboard.heal();
+    TUnit.assertThat(() -> live(clients))
+        .afterWaitingAtMost(20, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+    Switchboard.remove(cluster);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip;
+
+import io.teknek.tunit.TUnit;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.gossip.manager.GossipCoreConstants;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.manager.PassiveGossipConstants;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.transport.tcp.TcpTransportManager;
+import org.apache.gossip.udp.UdpSharedDataMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TcpTransportTest {
+
+  @Test
+  public void largeMessagesAreStreamed() throws URISyntaxException {
+    GossipSettings settings = new GossipSettings(1000, 10000, 1000, 1, 1.6, "exponential", false);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(TcpTransportManager.class.getName());
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:30411"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    final int clusterMembers = 4;
+    for (int i = 1; i < clusterMembers + 1; ++i) {
+      URI uri = new URI("udp://" + "127.0.0.1" + ":" + (30410 + i));
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(uri)
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                total += client.getLiveMembers().size();
+              }
+              return total;
+            })
+        .afterWaitingAtMost(40, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers * (clusterMembers - 1));
+
+    // far larger than a datagram can carry.
+    StringBuilder large = new StringBuilder();
+    while (large.length() < 200_000) {
+      large.append(UUID.randomUUID());
+    }
+    SharedDataMessage message = new SharedDataMessage();
+    message.setKey("large");
+    message.setPayload(large.toString());
+    message.setTimestamp(System.currentTimeMillis());
+    message.setExpireAt(Long.MAX_VALUE);
+    clients.get(0).gossipSharedData(message);
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (GossipManager client : clients) {
+                SharedDataMessage found = client.findSharedGossipData("large");
+                if (found != null && large.toString().equals(found.getPayload())) {
+                  total++;
+                }
+              }
+              return total;
+            })
+        .afterWaitingAtMost(40, TimeUnit.SECONDS)
+        .isEqualTo(clusterMembers);
+
+    for (GossipManager client : clients) {
+      Assert.assertTrue(
+          client.getRegistry().timer(GossipCoreConstants.MESSAGE_TRANSMISSION_TIME).getCount() > 0);
+      client.shutdown();
+    }
+  }
+
+  @Test
+  public void fullReceiveQueueHoldsBackTheSender() throws URISyntaxException, IOException {
+    GossipSettings settings = new GossipSettings(1000, 10000, 1000, 1, 1.6, "exponential", false);
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass(TcpTransportManager.class.getName());
+    // a single slot fills at once, so the stream has to wait instead of losing frames.
+    settings.setReceiveQueueSize(1);
+    settings.setReceiveWorkers(1);
+    String cluster = UUID.randomUUID().toString();
+    List<Member> startupMembers = new ArrayList<>();
+    startupMembers.add(new RemoteMember(cluster, new URI("udp://127.0.0.1:30421"), "1"));
+    final List<GossipManager> clients = new ArrayList<>();
+    for (int i = 1; i < 3; ++i) {
+      GossipManager gossipService =
+          GossipManagerBuilder.newBuilder()
+              .cluster(cluster)
+              .uri(new URI("udp://127.0.0.1:" + (30420 + i)))
+              .id(i + "")
+              .gossipSettings(settings)
+              .gossipMembers(startupMembers)
+              .build();
+      gossipService.init();
+      clients.add(gossipService);
+    }
+    GossipManager sender = clients.get(0);
+    GossipManager receiver = clients.get(1);
+    final int messages = 2000;
+    for (int i = 0; i < messages; i++) {
+      UdpSharedDataMessage message = new UdpSharedDataMessage();
+      message.setUuid(UUID.randomUUID().toString());
+      message.setUriFrom(sender.getMyself().getId());
+      message.setKey("flood" + i);
+      message.setPayload("value" + i);
+      message.setTimestamp(System.currentTimeMillis());
+      message.setExpireAt(Long.MAX_VALUE);
+      sender
+          .getTransportManager()
+          .send(receiver.getMyself().getUri(), sender.getProtocolManager().write(message));
+    }
+    TUnit.assertThat(
+            () -> {
+              int total = 0;
+              for (int i = 0; i < messages; i++) {
+                if (receiver.findSharedGossipData("flood" + i) != null) {
+                  total++;
+                }
+              }
+              return total;
+            })
+        .afterWaitingAtMost(40, TimeUnit.SECONDS)
+        .isEqualTo(messages);
+    Assert.assertEquals(
+        0, receiver.getRegistry().meter(PassiveGossipConstants.RECEIVE_DROPPED).getCount());
+
+    for (GossipManager client : clients) {
+      client.shutdown();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.protocol.binary;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.crdt.CrdtCodecs;
+import org.apache.gossip.manager.PassiveGossipConstants;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.SignedPayload;
+import org.apache.gossip.protocol.ProtocolManager;
+import org.apache.gossip.protocol.codec.BinaryInput;
+import org.apache.gossip.protocol.codec.BinaryOutput;
+import org.apache.gossip.protocol.codec.ValueCodecs;
+import org.apache.gossip.protocol.json.JacksonProtocolManager;
+import org.apache.gossip.secure.MessageSigner;
+import org.apache.gossip.secure.SignatureVerifier;
+
+/**
+ * Writes messages in a compact binary form instead of JSON: a numeric type id, then the fields as
+ * varints, length prefixed strings and tagged payload values, without any field or class names.
+ * Payload types without a codec of their own, and message types without a type id, are embedded as
+ * JSON. Both ends of a cluster must use the same protocol manager.
+ *
+ * <p>This class is constructed by reflection in GossipManager.
+ */
+public class BinaryProtocolManager implements ProtocolManager {
+
+  private final ValueCodecs codecs = new ValueCodecs();
+  private final MessageCodecs messages;
+  private final ThreadLocal<BinaryOutput> buffers = ThreadLocal.withInitial(BinaryOutput::new);
+
+  /** both null unless messages are signed. */
+  private final MessageSigner signer;
+
+  private final SignatureVerifier verifier;
+  private final Meter signed;
+  private final Meter unsigned;
+
+  /** required for reflection to work! */
+  public BinaryProtocolManager(GossipSettings settings, String id, MetricRegistry registry) {
+    messages = new MessageCodecs(JacksonProtocolManager.buildObjectMapper(settings));
+    CrdtCodecs.registerAll(codecs);
+    messages.registerValues(codecs);
+
+    // set up message signing.
+    if (settings.isSignMessages()) {
+      signer = new MessageSigner(settings, id);
+      verifier = new SignatureVerifier(settings, registry);
+    } else {
+      signer = null;
+      verifier = null;
+    }
+
+    signed = registry.meter(PassiveGossipConstants.SIGNED_MESSAGE);
+    unsigned = registry.meter(PassiveGossipConstants.UNSIGNED_MESSAGE);
+  }
+
+  /**
+   * @return the registry of payload codecs, to register codecs for application types before the
+   *     protocol manager is used.
+   */
+  public ValueCodecs getValueCodecs() {
+    return codecs;
+  }
+
+  /**
+   * @return the registry of message codecs.
+   */
+  public MessageCodecs getMessageCodecs() {
+    return messages;
+  }
+
+  @Override
+  public byte[] write(Base message) throws IOException {
+    BinaryOutput out = buffers.get();
+    out.reset();
+    messages.write(out, message, codecs);
+    if (signer == null) {
+      return out.toByteArray();
+    }
+    SignedPayload p = new SignedPayload();
+    p.setData(out.toByteArray());
+    p.setSignature(signer.sign(p.getData(), 0, p.getData().length));
+    p.setSigner(signer.getSignerId());
+    out.reset();
+    messages.write(out, p, codecs);
+    return out.toByteArray();
+  }
+
+  @Override
+  public Base read(byte[] buf) throws IOException {
+    return read(ByteBuffer.wrap(buf));
+  }
+
+  @Override
+  public Base read(byte[] buf, int offset, int length) throws IOException {
+    return read(ByteBuffer.wrap(buf, offset, length));
+  }
+
+  @Override
+  public Base read(ByteBuffer buf) throws IOException {
+    Base message = decode(buf.duplicate());
+    if (message instanceof SignedPayload) {
+      signed.mark();
+      if (verifier != null) {
+        verifier.verify((SignedPayload) message);
+      }
+      return decode(ByteBuffer.wrap(((SignedPayload) message).getData()));
+    }
+    unsigned.mark();
+    if (verifier != null) {
+      verifier.rejectUnsigned();
+    }
+    return message;
+  }
+
+  private Base decode(ByteBuffer buf) throws IOException {
+    try {
+      return messages.read(new BinaryInput(buf), codecs);
+    } catch (RuntimeException e) {
+      // a corrupt length or tag surfaces as an unchecked exception deep inside a codec.
+      throw new IOException("malformed message", e);
+    }
+  }
+}
@@ -0,0 +1,727 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.protocol.binary;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.gossip.model.ActiveGossipMessage;
+import org.apache.gossip.model.ActiveGossipOk;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.DataDigest;
+import org.apache.gossip.model.Member;
+import org.apache.gossip.model.NotAMemberFault;
+import org.apache.gossip.model.PerNodeDataBulkMessage;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.model.SharedDataBulkMessage;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.model.ShutdownMessage;
+import org.apache.gossip.model.SignedPayload;
+import org.apache.gossip.model.TreeHash;
+import org.apache.gossip.protocol.codec.BinaryInput;
+import org.apache.gossip.protocol.codec.BinaryOutput;
+import org.apache.gossip.protocol.codec.ValueCodec;
+import org.apache.gossip.protocol.codec.ValueCodecs;
+import org.apache.gossip.replication.AllReplicable;
+import org.apache.gossip.replication.DataCenterReplicable;
+import org.apache.gossip.replication.NotReplicable;
+import org.apache.gossip.replication.Replicable;
+import org.apache.gossip.udp.Trackable;
+import org.apache.gossip.udp.UdpActiveGossipMessage;
+import org.apache.gossip.udp.UdpActiveGossipOk;
+import org.apache.gossip.udp.UdpDataDigestMessage;
+import org.apache.gossip.udp.UdpDataRequestMessage;
+import org.apache.gossip.udp.UdpDataTreeMessage;
+import org.apache.gossip.udp.UdpGossipRoundMessage;
+import org.apache.gossip.udp.UdpNotAMemberFault;
+import org.apache.gossip.udp.UdpPerNodeDataAckMessage;
+import org.apache.gossip.udp.UdpPerNodeDataBulkMessage;
+import org.apache.gossip.udp.UdpPerNodeDataLogMessage;
+import org.apache.gossip.udp.UdpPerNodeDataMessage;
+import org.apache.gossip.udp.UdpPingAck;
+import org.apache.gossip.udp.UdpPingMessage;
+import org.apache.gossip.udp.UdpPingRequestMessage;
+import org.apache.gossip.udp.UdpSharedDataBulkMessage;
+import org.apache.gossip.udp.UdpSharedDataMessage;
+
+/**
+ * Maps each {@link Base} subtype to a numeric type id and the codec for its fields. A message
+ * starts with its type id as a varint. Type id 0 is reserved for messages of any other class, which
+ * are written as JSON by the given mapper so that nothing the JSON protocol can send is lost.
+ *
+ * <p>Strings that repeat across the members of one message, such as cluster names, node ids and
+ * property keys, are written as symbols.
+ */
+public class MessageCodecs {
+
+  public static final int JSON = 0;
+
+  /** Value tags of the replication strategies and the nested message types used as payloads. */
+  public static final int ALL_REPLICABLE = 48;
+
+  public static final int NOT_REPLICABLE = 49;
+  public static final int DATA_CENTER_REPLICABLE = 50;
+  public static final int SHUTDOWN_PAYLOAD = 51;
+
+  private final Map<Class<?>, Integer> ids = new HashMap<>();
+  private final Map<Integer, ValueCodec<? extends Base>> byId = new HashMap<>();
+  private final ObjectMapper objectMapper;
+
+  public MessageCodecs(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    register(
+        1,
+        UdpActiveGossipMessage.class,
+        of(MessageCodecs::writeGossip, in -> readGossip(in, new UdpActiveGossipMessage())));
+    register(
+        2,
+        UdpActiveGossipOk.class,
+        of(
+            (out, m, c) -> writeTrackable(out, m),
+            in -> readTrackable(in, new UdpActiveGossipOk())));
+    register(
+        3,
+        UdpNotAMemberFault.class,
+        of(MessageCodecs::writeFault, in -> readFault(in, new UdpNotAMemberFault())));
+    register(
+        4,
+        UdpPerNodeDataMessage.class,
+        of(
+            MessageCodecs::writePerNode,
+            (in, c) -> readPerNode(in, c, readTrackable(in, new UdpPerNodeDataMessage()))));
+    register(
+        5,
+        UdpPerNodeDataBulkMessage.class,
+        of(
+            MessageCodecs::writePerNodeBulk,
+            (in, c) -> readPerNodeBulk(in, c, new UdpPerNodeDataBulkMessage())));
+    register(
+        6,
+        UdpSharedDataMessage.class,
+        of(
+            MessageCodecs::writeShared,
+            (in, c) -> readShared(in, c, readTrackable(in, new UdpSharedDataMessage()))));
+    register(
+        7,
+        UdpSharedDataBulkMessage.class,
+        of(
+            MessageCodecs::writeSharedBulk,
+            (in, c) -> readSharedBulk(in, c, new UdpSharedDataBulkMessage())));
+    register(
+        8, ShutdownMessage.class, of((out, m, c) -> writeShutdown(out, m), in -> readShutdown(in)));
+    register(9, SignedPayload.class, of(MessageCodecs::writeSigned, in -> readSigned(in)));
+    register(
+        10,
+        ActiveGossipMessage.class,
+        of(MessageCodecs::writeGossip, in -> readGossip(in, new ActiveGossipMessage())));
+    register(11, ActiveGossipOk.class, of((out, m, c) -> {}, in -> new ActiveGossipOk()));
+    register(
+        12,
+        NotAMemberFault.class,
+        of(MessageCodecs::writeFault, in -> readFault(in, new NotAMemberFault())));
+    register(
+        13,
+        PerNodeDataMessage.class,
+        of(MessageCodecs::writePerNode, (in, c) -> readPerNode(in, c, new PerNodeDataMessage())));
+    register(
+        14,
+        PerNodeDataBulkMessage.class,
+        of(
+            MessageCodecs::writePerNodeBulk,
+            (in, c) -> readPerNodeBulk(in, c, new PerNodeDataBulkMessage())));
+    register(
+        15,
+        SharedDataMessage.class,
+        of(MessageCodecs::writeShared, (in, c) -> readShared(in, c, new SharedDataMessage())));
+    register(
+        16,
+        SharedDataBulkMessage.class,
+        of(
+            MessageCodecs::writeSharedBulk,
+            (in, c) -> readSharedBulk(in, c, new SharedDataBulkMessage())));
+    register(
+        17,
+        UdpDataDigestMessage.class,
+        of(
+            (out, m, c) -> writeDigests(out, m),
+            in -> readDigests(in, readTrackable(in, new UdpDataDigestMessage()))));
+    register(
+        18,
+        UdpDataRequestMessage.class,
+        of(
+            (out, m, c) -> writeRequest(out, m),
+            in -> readRequest(in, readTrackable(in, new UdpDataRequestMessage()))));
+    register(
+        19,
+        UdpDataTreeMessage.class,
+        of(
+            (out, m, c) -> writeTree(out, m),
+            in -> readTree(in, readTrackable(in, new UdpDataTreeMessage()))));
+    register(
+        20,
+        UdpPerNodeDataLogMessage.class,
+        of(
+            MessageCodecs::writePerNodeLog,
+            (in, c) -> readPerNodeLog(in, c, readTrackable(in, new UdpPerNodeDataLogMessage()))));
+    register(
+        21,
+        UdpPerNodeDataAckMessage.class,
+        of(
+            (out, m, c) -> writePerNodeAck(out, m),
+            in -> readPerNodeAck(in, readTrackable(in, new UdpPerNodeDataAckMessage()))));
+    register(
+        22,
+        UdpGossipRoundMessage.class,
+        of(
+            MessageCodecs::writeGossipRound,
+            (in, c) -> readGossipRound(in, c, readTrackable(in, new UdpGossipRoundMessage()))));
+    register(
+        23,
+        UdpPingMessage.class,
+        of(
+            (out, m, c) -> {
+              writeTrackable(out, m);
+              out.writeString(m.getRelay());
+            },
+            in -> {
+              UdpPingMessage ping = readTrackable(in, new UdpPingMessage());
+              ping.setRelay(in.readString());
+              return ping;
+            }));
+    register(
+        24,
+        UdpPingRequestMessage.class,
+        of(
+            (out, m, c) -> {
+              writeTrackable(out, m);
+              out.writeString(m.getTarget());
+            },
+            in -> {
+              UdpPingRequestMessage request = readTrackable(in, new UdpPingRequestMessage());
+              request.setTarget(in.readString());
+              return request;
+            }));
+    register(
+        25,
+        UdpPingAck.class,
+        of((out, m, c) -> writeTrackable(out, m), in -> readTrackable(in, new UdpPingAck())));
+  }
+
+  /**
+   * Register the value codecs for the types that only messages put into payloads, and the JSON
+   * fallback for values no codec handles.
+   */
+  public void registerValues(ValueCodecs codecs) {
+    codecs.register(
+        ALL_REPLICABLE, AllReplicable.class, of((out, v, c) -> {}, in -> new AllReplicable<>()));
+    codecs.register(
+        NOT_REPLICABLE, NotReplicable.class, of((out, v, c) -> {}, in -> new NotReplicable<>()));
+    codecs.register(
+        DATA_CENTER_REPLICABLE,
+        DataCenterReplicable.class,
+        of((out, v, c) -> {}, in -> new DataCenterReplicable<>()));
+    codecs.register(
+        SHUTDOWN_PAYLOAD,
+        ShutdownMessage.class,
+        of((out, m, c) -> writeShutdown(out, m), in -> readShutdown(in)));
+    codecs.setFallback(
+        of(
+            (out, value, c) ->
+                out.writeBytes(objectMapper.writerFor(Object.class).writeValueAsBytes(value)),
+            in -> objectMapper.readValue(in.readBytes(), Object.class)));
+  }
+
+  /**
+   * @param id the type id, unique and greater than 0.
+   * @param type messages of exactly this class are written with the codec.
+   * @param codec the codec.
+   */
+  public <T extends Base> void register(int id, Class<T> type, ValueCodec<T> codec) {
+    if (id <= JSON) {
+      throw new IllegalArgumentException("type id " + id + " is out of range");
+    }
+    if (byId.putIfAbsent(id, codec) != null) {
+      throw new IllegalArgumentException("type id " + id + " is already registered");
+    }
+    ids.put(type, id);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void write(BinaryOutput out, Base message, ValueCodecs codecs) throws IOException {
+    Integer id = ids.get(message.getClass());
+    if (id == null) {
+      out.writeVarInt(JSON);
+      byte[] json = objectMapper.writeValueAsBytes(message);
+      out.writeRaw(json, 0, json.length);
+      return;
+    }
+    out.writeVarInt(id);
+    ((ValueCodec<Base>) byId.get(id)).write(out, message, codecs);
+  }
+
+  public Base read(BinaryInput in, ValueCodecs codecs) throws IOException {
+    int id = in.readVarInt();
+    if (id == JSON) {
+      return objectMapper.readValue(in.readRemaining(), Base.class);
+    }
+    ValueCodec<? extends Base> codec = byId.get(id);
+    if (codec == null) {
+      throw new IOException("unknown message type " + id);
+    }
+    return codec.read(in, codecs);
+  }
+
+  private interface Writer<T> {
+    void write(BinaryOutput out, T value, ValueCodecs codecs) throws IOException;
+  }
+
+  private interface Reader<T> {
+    T read(BinaryInput in, ValueCodecs codecs) throws IOException;
+  }
+
+  private interface SimpleReader<T> {
+    T read(BinaryInput in) throws IOException;
+  }
+
+  private static <T> ValueCodec<T> of(Writer<T> writer, Reader<T> reader) {
+    return new ValueCodec<T>() {
+      @Override
+      public void write(BinaryOutput out, T value, ValueCodecs codecs) throws IOException {
+        writer.write(out, value, codecs);
+      }
+
+      @Override
+      public T read(BinaryInput in, ValueCodecs codecs) throws IOException {
+        return reader.read(in, codecs);
+      }
+    };
+  }
+
+  private static <T> ValueCodec<T> of(Writer<T> writer, SimpleReader<T> reader) {
+    return of(writer, (in, codecs) -> reader.read(in));
+  }
+
+  private static void writeTrackable(BinaryOutput out, Trackable message) {
+    out.writeSymbol(message.getUriFrom());
+    writeUuid(out, message.getUuid());
+  }
+
+  private static <T extends Trackable> T readTrackable(BinaryInput in, T message)
+      throws IOException {
+    message.setUriFrom(in.readSymbol());
+    message.setUuid(readUuid(in));
+    return message;
+  }
+
+  /** Request ids are random UUIDs in practice, which fit in 16 bytes instead of 36 characters. */
+  private static void writeUuid(BinaryOutput out, String uuid) {
+    if (uuid != null && uuid.length() == 36) {
+      try {
+        UUID parsed = UUID.fromString(uuid);
+        if (parsed.toString().equals(uuid)) {
+          out.writeByte(1);
+          out.writeUuid(parsed);
+          return;
+        }
+      } catch (IllegalArgumentException e) {
+        // not a canonical UUID, sent as the string below.
+      }
+    }
+    out.writeByte(0);
+    out.writeString(uuid);
+  }
+
+  private static String readUuid(BinaryInput in) throws IOException {
+    return in.readByte() == 1 ? in.readUuid().toString() : in.readString();
+  }
+
+  private static void writeGossip(
+      BinaryOutput out, ActiveGossipMessage message, ValueCodecs codecs) {
+    if (message instanceof Trackable) {
+      writeTrackable(out, (Trackable) message);
+    }
+    writeMembers(out, message.getMembers());
+    writeSuspects(out, message.getSuspects());
+  }
+
+  private static void writeSuspects(BinaryOutput out, Map<String, Long> suspects) {
+    if (suspects == null) {
+      out.writeVarInt(0);
+      return;
+    }
+    out.writeVarInt(suspects.size());
+    for (Map.Entry<String, Long> suspect : suspects.entrySet()) {
+      out.writeSymbol(suspect.getKey());
+      out.writeNullableSignedVarLong(suspect.getValue());
+    }
+  }
+
+  private static Map<String, Long> readSuspects(BinaryInput in) throws IOException {
+    int size = in.readVarInt();
+    Map<String, Long> suspects = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      String id = in.readSymbol();
+      suspects.put(id, in.readNullableSignedVarLong());
+    }
+    return suspects;
+  }
+
+  private static void writeMembers(BinaryOutput out, List<Member> members) {
+    out.writeVarInt(members.size());
+    for (Member member : members) {
+      out.writeSymbol(member.getCluster());
+      out.writeString(member.getUri());
+      out.writeSymbol(member.getId());
+      out.writeNullableSignedVarLong(member.getHeartbeat());
+      Map<String, String> properties = member.getProperties();
+      if (properties == null) {
+        out.writeVarInt(0);
+      } else {
+        out.writeVarInt(properties.size() + 1);
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+          out.writeSymbol(entry.getKey());
+          out.writeSymbol(entry.getValue());
+        }
+      }
+    }
+  }
+
+  private static <T extends ActiveGossipMessage> T readGossip(BinaryInput in, T message)
+      throws IOException {
+    if (message instanceof Trackable) {
+      readTrackable(in, (Trackable) message);
+    }
+    message.setMembers(readMembers(in));
+    message.setSuspects(readSuspects(in));
+    return message;
+  }
+
+  private static List<Member> readMembers(BinaryInput in) throws IOException {
+    int size = in.readVarInt();
+    List<Member> members = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Member member = new Member();
+      member.setCluster(in.readSymbol());
+      member.setUri(in.readString());
+      member.setId(in.readSymbol());
+      member.setHeartbeat(in.readNullableSignedVarLong());
+      int properties = in.readVarInt() - 1;
+      if (properties >= 0) {
+        Map<String, String> map = new HashMap<>();
+        for (int j = 0; j < properties; j++) {
+          String key = in.readSymbol();
+          map.put(key, in.readSymbol());
+        }
+        member.setProperties(map);
+      }
+      members.add(member);
+    }
+    return members;
+  }
+
+  private static void writeFault(BinaryOutput out, NotAMemberFault fault, ValueCodecs codecs) {
+    if (fault instanceof Trackable) {
+      writeTrackable(out, (Trackable) fault);
+    }
+    out.writeString(fault.getException());
+  }
+
+  private static <T extends NotAMemberFault> T readFault(BinaryInput in, T fault)
+      throws IOException {
+    if (fault instanceof Trackable) {
+      readTrackable(in, (Trackable) fault);
+    }
+    fault.setException(in.readString());
+    return fault;
+  }
+
+  private static void writeShutdown(BinaryOutput out, ShutdownMessage message) {
+    out.writeSymbol(message.getNodeId());
+    out.writeSignedVarLong(message.getShutdownAtNanos());
+  }
+
+  private static ShutdownMessage readShutdown(BinaryInput in) throws IOException {
+    ShutdownMessage message = new ShutdownMessage();
+    message.setNodeId(in.readSymbol());
+    message.setShutdownAtNanos(in.readSignedVarLong());
+    return message;
+  }
+
+  private static void writeSigned(BinaryOutput out, SignedPayload payload, ValueCodecs codecs) {
+    out.writeBytes(payload.getData());
+    out.writeBytes(payload.getSignature());
+    out.writeSymbol(payload.getSigner());
+  }
+
+  private static SignedPayload readSigned(BinaryInput in) throws IOException {
+    SignedPayload payload = new SignedPayload();
+    payload.setData(in.readBytes());
+    payload.setSignature(in.readBytes());
+    payload.setSigner(in.readSymbol());
+    return payload;
+  }
+
+  private static void writePerNode(BinaryOutput out, PerNodeDataMessage message, ValueCodecs codecs)
+      throws IOException {
+    if (message instanceof Trackable) {
+      writeTrackable(out, (Trackable) message);
+    }
+    writePerNodeFields(out, message, codecs);
+  }
+
+  /** The fields without the tracking ids, which the entries of a bulk message do not carry. */
+  private static void writePerNodeFields(
+      BinaryOutput out, PerNodeDataMessage message, ValueCodecs codecs) throws IOException {
+    out.writeSymbol(message.getNodeId());
+    out.writeSymbol(message.getKey());
+    codecs.writeValue(out, message.getPayload());
+    out.writeNullableSignedVarLong(message.getTimestamp());
+    out.writeNullableSignedVarLong(message.getExpireAt());
+    codecs.writeValue(out, message.getReplicable());
+  }
+
+  private static <T extends PerNodeDataMessage> T readPerNode(
+      BinaryInput in, ValueCodecs codecs, T message) throws IOException {
+    message.setNodeId(in.readSymbol());
+    message.setKey(in.readSymbol());
+    message.setPayload(codecs.readValue(in));
+    message.setTimestamp(in.readNullableSignedVarLong());
+    message.setExpireAt(in.readNullableSignedVarLong());
+    message.setReplicable(codecs.<Replicable<PerNodeDataMessage>>readValue(in));
+    return message;
+  }
+
+  private static void writePerNodeBulk(
+      BinaryOutput out, PerNodeDataBulkMessage message, ValueCodecs codecs) throws IOException {
+    if (message instanceof Trackable) {
+      writeTrackable(out, (Trackable) message);
+    }
+    out.writeVarInt(message.getMessages().size());
+    for (PerNodeDataMessage inner : message.getMessages()) {
+      writePerNodeFields(out, inner, codecs);
+    }
+  }
+
+  private static <T extends PerNodeDataBulkMessage> T readPerNodeBulk(
+      BinaryInput in, ValueCodecs codecs, T message) throws IOException {
+    if (message instanceof Trackable) {
+      readTrackable(in, (Trackable) message);
+    }
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      message.addMessage(readPerNode(in, codecs, new PerNodeDataMessage()));
+    }
+    return message;
+  }
+
+  private static void writeShared(BinaryOutput out, SharedDataMessage message, ValueCodecs codecs)
+      throws IOException {
+    if (message instanceof Trackable) {
+      writeTrackable(out, (Trackable) message);
+    }
+    writeSharedFields(out, message, codecs);
+  }
+
+  /** The fields without the tracking ids, which the entries of a bulk message do not carry. */
+  private static void writeSharedFields(
+      BinaryOutput out, SharedDataMessage message, ValueCodecs codecs) throws IOException {
+    out.writeSymbol(message.getNodeId());
+    out.writeSymbol(message.getKey());
+    codecs.writeValue(out, message.getPayload());
+    out.writeNullableSignedVarLong(message.getTimestamp());
+    out.writeNullableSignedVarLong(message.getExpireAt());
+    codecs.writeValue(out, message.getReplicable());
+  }
+
+  private static <T extends SharedDataMessage> T readShared(
+      BinaryInput in, ValueCodecs codecs, T message) throws IOException {
+    message.setNodeId(in.readSymbol());
+    message.setKey(in.readSymbol());
+    message.setPayload(codecs.readValue(in));
+    message.setTimestamp(in.readNullableSignedVarLong());
+    message.setExpireAt(in.readNullableSignedVarLong());
+    message.setReplicable(codecs.<Replicable<SharedDataMessage>>readValue(in));
+    return message;
+  }
+
+  private static void writeSharedBulk(
+      BinaryOutput out, SharedDataBulkMessage message, ValueCodecs codecs) throws IOException {
+    if (message instanceof Trackable) {
+      writeTrackable(out, (Trackable) message);
+    }
+    out.writeVarInt(message.getMessages().size());
+    for (SharedDataMessage inner : message.getMessages()) {
+      writeSharedFields(out, inner, codecs);
+    }
+  }
+
+  private static <T extends SharedDataBulkMessage> T readSharedBulk(
+      BinaryInput in, ValueCodecs codecs, T message) throws IOException {
+    if (message instanceof Trackable) {
+      readTrackable(in, (Trackable) message);
+    }
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      message.addMessage(readShared(in, codecs, new SharedDataMessage()));
+    }
+    return message;
+  }
+
+  private static void writeDigests(BinaryOutput out, UdpDataDigestMessage message) {
+    writeTrackable(out, message);
+    out.writeSymbol(message.getOwner());
+    out.writeVarInt(message.getCovered().size());
+    for (int node : message.getCovered()) {
+      out.writeVarInt(node);
+    }
+    out.writeVarInt(message.getDigests().size());
+    for (DataDigest digest : message.getDigests()) {
+      out.writeString(digest.getKey());
+      out.writeNullableSignedVarLong(digest.getTimestamp());
+      out.writeVarInt(digest.getHash());
+    }
+  }
+
+  private static UdpDataDigestMessage readDigests(BinaryInput in, UdpDataDigestMessage message)
+      throws IOException {
+    message.setOwner(in.readSymbol());
+    int covered = in.readVarInt();
+    for (int i = 0; i < covered; i++) {
+      message.getCovered().add(in.readVarInt());
+    }
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      message.addDigest(
+          new DataDigest(in.readString(), in.readNullableSignedVarLong(), in.readVarInt()));
+    }
+    return message;
+  }
+
+  private static void writeRequest(BinaryOutput out, UdpDataRequestMessage message) {
+    writeTrackable(out, message);
+    out.writeSymbol(message.getOwner());
+    out.writeVarInt(message.getKeys().size());
+    for (String key : message.getKeys()) {
+      out.writeString(key);
+    }
+  }
+
+  private static UdpDataRequestMessage readRequest(BinaryInput in, UdpDataRequestMessage message)
+      throws IOException {
+    message.setOwner(in.readSymbol());
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      message.addKey(in.readString());
+    }
+    return message;
+  }
+
+  private static void writeTree(BinaryOutput out, UdpDataTreeMessage message) {
+    writeTrackable(out, message);
+    out.writeVarInt(message.getDepth());
+    out.writeVarInt(message.getHashes().size());
+    for (TreeHash hash : message.getHashes()) {
+      out.writeSymbol(hash.getOwner());
+      out.writeVarInt(hash.getNode());
+      out.writeLong(hash.getHash());
+    }
+  }
+
+  private static UdpDataTreeMessage readTree(BinaryInput in, UdpDataTreeMessage message)
+      throws IOException {
+    message.setDepth(in.readVarInt());
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      message.addHash(new TreeHash(in.readSymbol(), in.readVarInt(), in.readLong()));
+    }
+    return message;
+  }
+
+  private static void writePerNodeLog(
+      BinaryOutput out, UdpPerNodeDataLogMessage message, ValueCodecs codecs) throws IOException {
+    writeTrackable(out, message);
+    out.writeVarLong(message.getTo());
+    out.writeVarInt(message.getChunk());
+    out.writeVarInt(message.getChunks());
+    out.writeVarInt(message.getMessages().size());
+    for (PerNodeDataMessage inner : message.getMessages()) {
+      writePerNodeFields(out, inner, codecs);
+    }
+  }
+
+  private static UdpPerNodeDataLogMessage readPerNodeLog(
+      BinaryInput in, ValueCodecs codecs, UdpPerNodeDataLogMessage message) throws IOException {
+    message.setTo(in.readVarLong());
+    message.setChunk(in.readVarInt());
+    message.setChunks(in.readVarInt());
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      message.addMessage(readPerNode(in, codecs, new PerNodeDataMessage()));
+    }
+    return message;
+  }
+
+  private static void writePerNodeAck(BinaryOutput out, UdpPerNodeDataAckMessage message) {
+    writeTrackable(out, message);
+    out.writeString(message.getIncarnation());
+    out.writeVarLong(message.getTo());
+    out.writeVarInt(message.getChunk());
+  }
+
+  private static UdpPerNodeDataAckMessage readPerNodeAck(
+      BinaryInput in, UdpPerNodeDataAckMessage message) throws IOException {
+    message.setIncarnation(in.readString());
+    message.setTo(in.readVarLong());
+    message.setChunk(in.readVarInt());
+    return message;
+  }
+
+  private static void writeGossipRound(
+      BinaryOutput out, UdpGossipRoundMessage message, ValueCodecs codecs) throws IOException {
+    writeTrackable(out, message);
+    writeMembers(out, message.getMembers());
+    writeSuspects(out, message.getSuspects());
+    out.writeVarInt(message.getPerNodeData().size());
+    for (PerNodeDataMessage inner : message.getPerNodeData()) {
+      writePerNodeFields(out, inner, codecs);
+    }
+    out.writeVarInt(message.getSharedData().size());
+    for (SharedDataMessage inner : message.getSharedData()) {
+      writeSharedFields(out, inner, codecs);
+    }
+  }
+
+  private static UdpGossipRoundMessage readGossipRound(
+      BinaryInput in, ValueCodecs codecs, UdpGossipRoundMessage message) throws IOException {
+    message.setMembers(readMembers(in));
+    message.setSuspects(readSuspects(in));
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      message.getPerNodeData().add(readPerNode(in, codecs, new PerNodeDataMessage()));
+    }
+    size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      message.getSharedData().add(readShared(in, codecs, new SharedDataMessage()));
+    }
+    return message;
+  }
+}
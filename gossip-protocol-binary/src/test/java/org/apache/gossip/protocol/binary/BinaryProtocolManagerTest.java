@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.protocol.binary;
+
+import com.codahale.metrics.MetricRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.gossip.GossipSettings;
+import org.apache.gossip.crdt.GrowOnlyCounter;
+import org.apache.gossip.crdt.LwwSet;
+import org.apache.gossip.crdt.MaxChangeSet;
+import org.apache.gossip.crdt.OrSet;
+import org.apache.gossip.crdt.PNCounter;
+import org.apache.gossip.crdt.TwoPhaseSet;
+import org.apache.gossip.lock.vote.MajorityVote;
+import org.apache.gossip.lock.vote.Vote;
+import org.apache.gossip.lock.vote.VoteCandidate;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.DataDigest;
+import org.apache.gossip.model.Member;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.model.ShutdownMessage;
+import org.apache.gossip.model.TreeHash;
+import org.apache.gossip.protocol.ProtocolManager;
+import org.apache.gossip.protocol.json.JacksonProtocolManager;
+import org.apache.gossip.replication.AllReplicable;
+import org.apache.gossip.secure.KeyTool;
+import org.apache.gossip.secure.SignatureRejectedException;
+import org.apache.gossip.udp.UdpActiveGossipMessage;
+import org.apache.gossip.udp.UdpActiveGossipOk;
+import org.apache.gossip.udp.UdpDataDigestMessage;
+import org.apache.gossip.udp.UdpDataRequestMessage;
+import org.apache.gossip.udp.UdpDataTreeMessage;
+import org.apache.gossip.udp.UdpGossipRoundMessage;
+import org.apache.gossip.udp.UdpNotAMemberFault;
+import org.apache.gossip.udp.UdpPerNodeDataAckMessage;
+import org.apache.gossip.udp.UdpPerNodeDataBulkMessage;
+import org.apache.gossip.udp.UdpPerNodeDataLogMessage;
+import org.apache.gossip.udp.UdpPingAck;
+import org.apache.gossip.udp.UdpPingMessage;
+import org.apache.gossip.udp.UdpPingRequestMessage;
+import org.apache.gossip.udp.UdpSharedDataMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BinaryProtocolManagerTest {
+
+  private static final String CLUSTER = "cluster";
+
+  /** A message type the binary protocol has no type id for. */
+  public static class CustomMessage extends SharedDataMessage {}
+
+  private final BinaryProtocolManager binary =
+      new BinaryProtocolManager(new GossipSettings(), "1", new MetricRegistry());
+
+  private static UdpActiveGossipMessage membership(int members) {
+    UdpActiveGossipMessage message = new UdpActiveGossipMessage();
+    message.setUriFrom("udp://10.0.0.1:2000");
+    message.setUuid(UUID.randomUUID().toString());
+    for (int i = 0; i < members; i++) {
+      Member member = new Member(CLUSTER, "udp://10.0.0." + i + ":2000", i + "", System.nanoTime());
+      Map<String, String> properties = new HashMap<>();
+      properties.put("datacenter", "dc1");
+      properties.put("rack", "rack" + (i % 3));
+      member.setProperties(properties);
+      message.getMembers().add(member);
+    }
+    return message;
+  }
+
+  private static UdpSharedDataMessage shared(String key, Object payload) {
+    UdpSharedDataMessage message = new UdpSharedDataMessage();
+    message.setUriFrom("1");
+    message.setUuid("not-a-uuid");
+    message.setNodeId("1");
+    message.setKey(key);
+    message.setPayload(payload);
+    message.setTimestamp(System.currentTimeMillis());
+    message.setExpireAt(Long.MAX_VALUE);
+    message.setReplicable(new AllReplicable<>());
+    return message;
+  }
+
+  private static GossipManager manager() {
+    GossipSettings settings = new GossipSettings();
+    settings.setPersistRingState(false);
+    settings.setPersistDataState(false);
+    settings.setTransportManagerClass("org.apache.gossip.transport.UnitTestTransportManager");
+    settings.setProtocolManagerClass(BinaryProtocolManager.class.getName());
+    return GossipManagerBuilder.newBuilder()
+        .cluster(CLUSTER)
+        .uri(URI.create("udp://127.0.0.1:30000"))
+        .id("1")
+        .gossipSettings(settings)
+        .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Base> T roundTrip(T message) throws IOException {
+    return (T) binary.read(binary.write(message));
+  }
+
+  @Test
+  public void membershipRoundTrip() throws IOException {
+    UdpActiveGossipMessage message = membership(5);
+    message.getSuspects().put("3", 42L);
+    UdpActiveGossipMessage read = roundTrip(message);
+    Assert.assertEquals(message.getUriFrom(), read.getUriFrom());
+    Assert.assertEquals(message.getUuid(), read.getUuid());
+    Assert.assertEquals(message.getMembers().toString(), read.getMembers().toString());
+    Assert.assertEquals(message.getSuspects(), read.getSuspects());
+  }
+
+  @Test
+  public void responsesRoundTrip() throws IOException {
+    UdpActiveGossipOk ok = new UdpActiveGossipOk();
+    ok.setUriFrom("udp://10.0.0.1:2000");
+    ok.setUuid(UUID.randomUUID().toString());
+    Assert.assertEquals(ok.getUuid(), roundTrip(ok).getUuid());
+
+    UdpNotAMemberFault fault = new UdpNotAMemberFault();
+    fault.setUuid(ok.getUuid());
+    fault.setException("not a member");
+    UdpNotAMemberFault readFault = roundTrip(fault);
+    Assert.assertEquals("not a member", readFault.getException());
+    Assert.assertNull(readFault.getUriFrom());
+
+    ShutdownMessage shutdown = new ShutdownMessage();
+    shutdown.setNodeId("3");
+    shutdown.setShutdownAtNanos(-42);
+    Assert.assertEquals(shutdown.toString(), roundTrip(shutdown).toString());
+  }
+
+  @Test
+  public void digestsRoundTrip() throws IOException {
+    UdpDataDigestMessage digests = new UdpDataDigestMessage();
+    digests.setUriFrom("udp://10.0.0.1:2000");
+    digests.setUuid(UUID.randomUUID().toString());
+    digests.addDigest(DataDigest.of("a", 1L, "value"));
+    digests.addDigest(DataDigest.of("b", null, new OrSet<>("x")));
+    digests.addDigest(new DataDigest("c", -5L, -1));
+    Assert.assertEquals(digests.toString(), roundTrip(digests).toString());
+    digests.setOwner("2");
+    digests.setCovered(Arrays.asList(1, 70000));
+    Assert.assertEquals(digests.toString(), roundTrip(digests).toString());
+
+    UdpDataRequestMessage request = new UdpDataRequestMessage();
+    request.setUriFrom("udp://10.0.0.2:2000");
+    request.setUuid(digests.getUuid());
+    request.addKey("a");
+    request.addKey("c");
+    Assert.assertEquals(request.toString(), roundTrip(request).toString());
+    request.setOwner("2");
+    Assert.assertEquals(request.toString(), roundTrip(request).toString());
+  }
+
+  @Test
+  public void changeLogRoundTrip() throws IOException {
+    UdpPerNodeDataLogMessage changes = new UdpPerNodeDataLogMessage();
+    changes.setUriFrom("udp://10.0.0.1:2000");
+    changes.setUuid(UUID.randomUUID().toString());
+    changes.setTo(1L << 40);
+    changes.setChunk(2);
+    changes.setChunks(3);
+    PerNodeDataMessage entry = new PerNodeDataMessage();
+    entry.setNodeId("1");
+    entry.setKey("k");
+    entry.setPayload("v");
+    entry.setTimestamp(5L);
+    entry.setExpireAt(Long.MAX_VALUE);
+    changes.addMessage(entry);
+    Assert.assertEquals(changes.toString(), roundTrip(changes).toString());
+
+    UdpPerNodeDataAckMessage ack = new UdpPerNodeDataAckMessage();
+    ack.setUriFrom("udp://10.0.0.2:2000");
+    ack.setUuid(UUID.randomUUID().toString());
+    ack.setIncarnation(UUID.randomUUID().toString());
+    ack.setTo(changes.getTo());
+    ack.setChunk(2);
+    Assert.assertEquals(ack.toString(), roundTrip(ack).toString());
+  }
+
+  @Test
+  public void gossipRoundRoundTrip() throws IOException {
+    UdpGossipRoundMessage round = new UdpGossipRoundMessage();
+    round.setUriFrom("udp://10.0.0.1:2000");
+    round.setUuid(UUID.randomUUID().toString());
+    for (int i = 1; i <= 2; i++) {
+      Member member = new Member();
+      member.setCluster("c");
+      member.setUri("udp://10.0.0." + i + ":2000");
+      member.setId(i + "");
+      member.setHeartbeat(1000L * i);
+      member.setProperties(Collections.singletonMap("rack", "r1"));
+      round.getMembers().add(member);
+    }
+    PerNodeDataMessage perNode = new PerNodeDataMessage();
+    perNode.setNodeId("2");
+    perNode.setKey("k");
+    perNode.setPayload("v");
+    perNode.setTimestamp(5L);
+    perNode.setExpireAt(Long.MAX_VALUE);
+    round.getPerNodeData().add(perNode);
+    SharedDataMessage shared = new SharedDataMessage();
+    shared.setNodeId("1");
+    shared.setKey("s");
+    shared.setPayload(7L);
+    shared.setTimestamp(6L);
+    shared.setExpireAt(Long.MAX_VALUE);
+    round.getSharedData().add(shared);
+    round.getSuspects().put("2", 1999L);
+    Assert.assertEquals(round.toString(), roundTrip(round).toString());
+  }
+
+  @Test
+  public void probesRoundTrip() throws IOException {
+    UdpPingMessage ping = new UdpPingMessage();
+    ping.setUriFrom("udp://10.0.0.1:2000");
+    ping.setUuid(UUID.randomUUID().toString());
+    ping.setRelay("udp://10.0.0.2:2000");
+    Assert.assertEquals(ping.toString(), roundTrip(ping).toString());
+
+    UdpPingRequestMessage request = new UdpPingRequestMessage();
+    request.setUriFrom(ping.getUriFrom());
+    request.setUuid(ping.getUuid());
+    request.setTarget("udp://10.0.0.3:2000");
+    Assert.assertEquals(request.toString(), roundTrip(request).toString());
+
+    UdpPingAck ack = new UdpPingAck();
+    ack.setUriFrom(ping.getUriFrom());
+    ack.setUuid(ping.getUuid());
+    Assert.assertEquals(ack.toString(), roundTrip(ack).toString());
+  }
+
+  @Test
+  public void treeHashesRoundTrip() throws IOException {
+    UdpDataTreeMessage tree = new UdpDataTreeMessage();
+    tree.setUriFrom("udp://10.0.0.1:2000");
+    tree.setUuid(UUID.randomUUID().toString());
+    tree.setDepth(12);
+    tree.addHash(new TreeHash(null, 1, Long.MIN_VALUE));
+    tree.addHash(new TreeHash("2", 4095, -1L));
+    tree.addHash(new TreeHash("2", 8191, 0L));
+    Assert.assertEquals(tree.toString(), roundTrip(tree).toString());
+  }
+
+  @Test
+  public void crdtPayloadsRoundTrip() throws IOException {
+    Map<String, Vote> votes = new HashMap<>();
+    votes.put("2", new Vote("2", true, false, Arrays.asList("1", "2"), null));
+    Map<String, VoteCandidate> candidates = new HashMap<>();
+    candidates.put("1", new VoteCandidate("1", "lock", votes));
+    Object[] payloads = {
+      new OrSet<>("a", "b", 3L),
+      new LwwSet<>("x", "y").remove("x"),
+      new MaxChangeSet<>("x").remove("x"),
+      new TwoPhaseSet<>("a", "b").remove("a"),
+      new GrowOnlyCounter(new GrowOnlyCounter.Builder(manager()).increment(5L)),
+      new PNCounter(new PNCounter.Builder(manager()).increment(5L).decrement(7L)),
+      new MajorityVote(candidates),
+      Arrays.asList("a", 1, 2.5, true, null, new byte[0]).subList(0, 5),
+    };
+    for (Object payload : payloads) {
+      UdpSharedDataMessage read = roundTrip(shared("k", payload));
+      Assert.assertEquals(payload, read.getPayload());
+      Assert.assertEquals("not-a-uuid", read.getUuid());
+      Assert.assertTrue(read.getReplicable() instanceof AllReplicable);
+    }
+  }
+
+  @Test
+  public void unknownPayloadFallsBackToJson() throws IOException {
+    ShutdownMessage nested = new ShutdownMessage();
+    nested.setNodeId("1");
+    UdpPerNodeDataBulkMessage bulk = new UdpPerNodeDataBulkMessage();
+    bulk.setUuid(UUID.randomUUID().toString());
+    for (Object payload : new Object[] {nested, new java.util.Date(5), "plain"}) {
+      PerNodeDataMessage entry = new PerNodeDataMessage();
+      entry.setKey("k");
+      entry.setPayload(payload);
+      bulk.addMessage(entry);
+    }
+    UdpPerNodeDataBulkMessage read = roundTrip(bulk);
+    Assert.assertEquals(3, read.getMessages().size());
+    Assert.assertEquals(nested.toString(), read.getMessages().get(0).getPayload().toString());
+    Assert.assertEquals(new java.util.Date(5), read.getMessages().get(1).getPayload());
+    Assert.assertEquals("plain", read.getMessages().get(2).getPayload());
+  }
+
+  @Test
+  public void unknownMessageFallsBackToJson() throws IOException {
+    SharedDataMessage message = new CustomMessage();
+    message.setKey("k");
+    Base read = binary.read(binary.write(message));
+    Assert.assertTrue(read instanceof CustomMessage);
+    Assert.assertEquals("k", ((CustomMessage) read).getKey());
+  }
+
+  @Test
+  public void readsSlicesAndDirectBuffers() throws IOException {
+    byte[] encoded = binary.write(membership(3));
+    byte[] padded = new byte[encoded.length + 10];
+    System.arraycopy(encoded, 0, padded, 5, encoded.length);
+    Assert.assertEquals(
+        3, ((UdpActiveGossipMessage) binary.read(padded, 5, encoded.length)).getMembers().size());
+    ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+    direct.put(encoded).flip();
+    Assert.assertEquals(3, ((UdpActiveGossipMessage) binary.read(direct)).getMembers().size());
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedInputIsAnIOException() throws IOException {
+    byte[] encoded = binary.write(membership(3));
+    binary.read(Arrays.copyOf(encoded, encoded.length / 2));
+  }
+
+  @Test
+  public void smallerThanJson() throws IOException {
+    ProtocolManager json =
+        new JacksonProtocolManager(new GossipSettings(), "1", new MetricRegistry());
+    UdpActiveGossipMessage membership = membership(50);
+    int jsonSize = json.write(membership).length;
+    int binarySize = binary.write(membership).length;
+    Assert.assertTrue(jsonSize + " vs " + binarySize, binarySize * 3 < jsonSize);
+  }
+
+  @Test
+  public void signedRoundTripAndTampering() throws Exception {
+    File keys = Files.createTempDirectory("gossip-keys").toFile();
+    KeyTool.generatePubandPrivateKeyFiles(keys.getPath(), "1", "Ed25519");
+    GossipSettings settings = new GossipSettings();
+    settings.setSignMessages(true);
+    settings.setPathToKeyStore(keys.getPath());
+    settings.setSignatureAlgorithm("Ed25519");
+    BinaryProtocolManager signing = new BinaryProtocolManager(settings, "1", new MetricRegistry());
+    UdpSharedDataMessage message = shared("key", "value");
+    Assert.assertEquals(
+        message.getPayload(),
+        ((SharedDataMessage) signing.read(signing.write(message))).getPayload());
+
+    byte[] bytes = signing.write(message);
+    bytes[bytes.length / 2] ^= 1;
+    try {
+      signing.read(bytes);
+      Assert.fail("tampered message was accepted");
+    } catch (IOException expected) {
+    }
+    try {
+      signing.read(binary.write(message));
+      Assert.fail("unsigned message was accepted");
+    } catch (SignatureRejectedException expected) {
+    }
+  }
+}
@@ -20,31 +20,45 @@ package org.apache.gossip.protocol.json;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.File;
-import java.io.FileInputStream;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.security.InvalidKeyException;
-import java.security.KeyFactory;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
-import java.security.PrivateKey;
-import java.security.Signature;
-import java.security.SignatureException;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
+import java.nio.ByteBuffer;
 import org.apache.gossip.GossipSettings;
 import org.apache.gossip.crdt.CrdtModule;
 import org.apache.gossip.manager.PassiveGossipConstants;
 import org.apache.gossip.model.Base;
 import org.apache.gossip.model.SignedPayload;
 import org.apache.gossip.protocol.ProtocolManager;
+import org.apache.gossip.secure.MessageSigner;
+import org.apache.gossip.secure.SignatureVerifier;
 
 // this class is constructed by reflection in GossipManager.
 public class JacksonProtocolManager implements ProtocolManager {
 
   private final ObjectMapper objectMapper;
-  private final PrivateKey privKey;
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+
+  /** the type id of a {@link SignedPayload} in this encoding, for writing the envelope by hand. */
+  private final String signedPayloadTypeId;
+
+  /** per thread, reused for the encoded message and for the signed envelope around it. */
+  private final ThreadLocal<Buffer> dataBuffers = ThreadLocal.withInitial(Buffer::new);
+
+  private final ThreadLocal<Buffer> envelopeBuffers = ThreadLocal.withInitial(Buffer::new);
+
+  /** both null unless messages are signed. */
+  private final MessageSigner signer;
+
+  private final SignatureVerifier verifier;
   private final Meter signed;
   private final Meter unsigned;
 
@@ -52,29 +66,26 @@ public class JacksonProtocolManager implements ProtocolManager {
   public JacksonProtocolManager(GossipSettings settings, String id, MetricRegistry registry) {
     // set up object mapper.
     objectMapper = buildObjectMapper(settings);
+    reader = objectMapper.readerFor(Base.class);
+    writer = objectMapper.writer();
+    try {
+      signedPayloadTypeId =
+          objectMapper
+              .getSerializerProviderInstance()
+              .findTypeSerializer(objectMapper.constructType(Base.class))
+              .getTypeIdResolver()
+              .idFromValueAndType(null, SignedPayload.class);
+    } catch (JsonMappingException e) {
+      throw new RuntimeException(e);
+    }
 
     // set up message signing.
     if (settings.isSignMessages()) {
-      File privateKey = new File(settings.getPathToKeyStore(), id);
-      File publicKey = new File(settings.getPathToKeyStore(), id + ".pub");
-      if (!privateKey.exists()) {
-        throw new IllegalArgumentException("private key not found " + privateKey);
-      }
-      if (!publicKey.exists()) {
-        throw new IllegalArgumentException("public key not found " + publicKey);
-      }
-      try (FileInputStream keyfis = new FileInputStream(privateKey)) {
-        byte[] encKey = new byte[keyfis.available()];
-        keyfis.read(encKey);
-        keyfis.close();
-        PKCS8EncodedKeySpec privKeySpec = new PKCS8EncodedKeySpec(encKey);
-        KeyFactory keyFactory = KeyFactory.getInstance("DSA");
-        privKey = keyFactory.generatePrivate(privKeySpec);
-      } catch (NoSuchAlgorithmException | InvalidKeySpecException | IOException e) {
-        throw new RuntimeException("failed hard", e);
-      }
+      signer = new MessageSigner(settings, id);
+      verifier = new SignatureVerifier(settings, registry);
     } else {
-      privKey = null;
+      signer = null;
+      verifier = null;
     }
 
     signed = registry.meter(PassiveGossipConstants.SIGNED_MESSAGE);
@@ -82,53 +93,103 @@ public class JacksonProtocolManager implements ProtocolManager {
   }
 
   public static ObjectMapper buildObjectMapper(GossipSettings settings) {
-    ObjectMapper om = new ObjectMapper();
+    ObjectMapper om;
+    switch (settings.getProtocolEncoding()) {
+      case "json":
+        om = new ObjectMapper();
+        break;
+      case "smile":
+        // repeated type ids and keys, as in a list of members, are written as back references.
+        om =
+            new ObjectMapper(
+                SmileFactory.builder()
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                    .build());
+        break;
+      case "cbor":
+        om = new ObjectMapper(new CBORFactory());
+        break;
+      default:
+        throw new IllegalArgumentException(
+            "unknown protocol encoding " + settings.getProtocolEncoding());
+    }
     om.enableDefaultTyping();
     // todo: should be specified in the configuration.
     om.registerModule(new CrdtModule());
+    if (!"json".equals(settings.getProtocolEncoding())) {
+      // JSON keeps class names so it stays readable by older members.
+      om.addMixIn(Base.class, MessageTypeIdMixin.class);
+    }
     om.configure(JsonGenerator.Feature.WRITE_NUMBERS_AS_STRINGS, false);
     return om;
   }
 
-  private static byte[] sign(byte[] bytes, PrivateKey pk) {
-    Signature dsa;
-    try {
-      dsa = Signature.getInstance("SHA1withDSA", "SUN");
-      dsa.initSign(pk);
-      dsa.update(bytes);
-      return dsa.sign();
-    } catch (NoSuchAlgorithmException
-        | NoSuchProviderException
-        | InvalidKeyException
-        | SignatureException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
   @Override
   public byte[] write(Base message) throws IOException {
-    byte[] json_bytes;
-    if (privKey == null) {
-      json_bytes = objectMapper.writeValueAsBytes(message);
-    } else {
-      SignedPayload p = new SignedPayload();
-      p.setData(objectMapper.writeValueAsString(message).getBytes());
-      p.setSignature(sign(p.getData(), privKey));
-      json_bytes = objectMapper.writeValueAsBytes(p);
+    Buffer data = dataBuffers.get();
+    data.reset();
+    writer.writeValue(data, message);
+    if (signer == null) {
+      return data.toByteArray();
+    }
+    byte[] signature = signer.sign(data.array(), 0, data.size());
+    // the envelope is written field by field, so the message is not copied into a SignedPayload.
+    Buffer envelope = envelopeBuffers.get();
+    envelope.reset();
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(envelope)) {
+      generator.writeStartObject();
+      generator.writeStringField("type", signedPayloadTypeId);
+      generator.writeFieldName("data");
+      generator.writeBinary(data.array(), 0, data.size());
+      generator.writeFieldName("signature");
+      generator.writeBinary(signature);
+      generator.writeStringField("signer", signer.getSignerId());
+      generator.writeEndObject();
     }
-    return json_bytes;
+    return envelope.toByteArray();
   }
 
   @Override
   public Base read(byte[] buf) throws IOException {
-    Base activeGossipMessage = objectMapper.readValue(buf, Base.class);
+    return unwrap(reader.readValue(buf));
+  }
+
+  @Override
+  public Base read(byte[] buf, int offset, int length) throws IOException {
+    return unwrap(reader.readValue(buf, offset, length));
+  }
+
+  @Override
+  public Base read(ByteBuffer buf) throws IOException {
+    if (buf.hasArray()) {
+      return read(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+    }
+    // direct buffers are streamed straight into the parser rather than copied to the heap.
+    return unwrap(reader.readValue(new ByteBufferBackedInputStream(buf.duplicate())));
+  }
+
+  private Base unwrap(Base activeGossipMessage) throws IOException {
     if (activeGossipMessage instanceof SignedPayload) {
       SignedPayload s = (SignedPayload) activeGossipMessage;
       signed.mark();
-      return objectMapper.readValue(s.getData(), Base.class);
+      if (verifier != null) {
+        verifier.verify(s);
+      }
+      // the signature covers exactly these bytes, so the message is parsed from them as they are.
+      return reader.readValue(s.getData());
     } else {
       unsigned.mark();
+      if (verifier != null) {
+        verifier.rejectUnsigned();
+      }
       return activeGossipMessage;
     }
   }
+
+  /** Exposes the backing array so it can be signed and encoded without a copy. */
+  private static final class Buffer extends ByteArrayOutputStream {
+    byte[] array() {
+      return buf;
+    }
+  }
 }
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.protocol.json;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.gossip.model.ActiveGossipMessage;
+import org.apache.gossip.model.ActiveGossipOk;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.Message;
+import org.apache.gossip.model.NotAMemberFault;
+import org.apache.gossip.model.PerNodeDataBulkMessage;
+import org.apache.gossip.model.PerNodeDataMessage;
+import org.apache.gossip.model.SharedDataBulkMessage;
+import org.apache.gossip.model.SharedDataMessage;
+import org.apache.gossip.model.ShutdownMessage;
+import org.apache.gossip.model.SignedPayload;
+import org.apache.gossip.udp.UdpActiveGossipMessage;
+import org.apache.gossip.udp.UdpActiveGossipOk;
+import org.apache.gossip.udp.UdpDataDigestMessage;
+import org.apache.gossip.udp.UdpDataRequestMessage;
+import org.apache.gossip.udp.UdpDataTreeMessage;
+import org.apache.gossip.udp.UdpGossipRoundMessage;
+import org.apache.gossip.udp.UdpNotAMemberFault;
+import org.apache.gossip.udp.UdpPerNodeDataAckMessage;
+import org.apache.gossip.udp.UdpPerNodeDataBulkMessage;
+import org.apache.gossip.udp.UdpPerNodeDataLogMessage;
+import org.apache.gossip.udp.UdpPerNodeDataMessage;
+import org.apache.gossip.udp.UdpPingAck;
+import org.apache.gossip.udp.UdpPingMessage;
+import org.apache.gossip.udp.UdpPingRequestMessage;
+import org.apache.gossip.udp.UdpSharedDataBulkMessage;
+import org.apache.gossip.udp.UdpSharedDataMessage;
+
+@JsonTypeInfo(use = Id.CUSTOM, include = JsonTypeInfo.As.PROPERTY, property = "type")
+@JsonTypeIdResolver(MessageTypeIdResolver.class)
+abstract class MessageTypeIdMixin {}
+
+/**
+ * Identifies the message types of the project by their simple class name instead of the fully
+ * qualified one. Any other {@link Base} subtype keeps its class name as type id, so applications
+ * can still send their own messages.
+ */
+class MessageTypeIdResolver extends TypeIdResolverBase {
+
+  private static final Map<String, Class<?>> byName = new HashMap<>();
+  private static final Map<Class<?>, String> names = new HashMap<>();
+
+  static {
+    for (Class<?> type :
+        new Class<?>[] {
+          ActiveGossipMessage.class,
+          ActiveGossipOk.class,
+          Message.class,
+          NotAMemberFault.class,
+          PerNodeDataBulkMessage.class,
+          PerNodeDataMessage.class,
+          SharedDataBulkMessage.class,
+          SharedDataMessage.class,
+          ShutdownMessage.class,
+          SignedPayload.class,
+          UdpActiveGossipMessage.class,
+          UdpActiveGossipOk.class,
+          UdpDataDigestMessage.class,
+          UdpDataRequestMessage.class,
+          UdpDataTreeMessage.class,
+          UdpGossipRoundMessage.class,
+          UdpNotAMemberFault.class,
+          UdpPerNodeDataAckMessage.class,
+          UdpPerNodeDataBulkMessage.class,
+          UdpPerNodeDataLogMessage.class,
+          UdpPerNodeDataMessage.class,
+          UdpPingAck.class,
+          UdpPingMessage.class,
+          UdpPingRequestMessage.class,
+          UdpSharedDataBulkMessage.class,
+          UdpSharedDataMessage.class
+        }) {
+      byName.put(type.getSimpleName(), type);
+      names.put(type, type.getSimpleName());
+    }
+  }
+
+  private JavaType baseType;
+
+  @Override
+  public void init(JavaType baseType) {
+    this.baseType = baseType;
+  }
+
+  @Override
+  public String idFromValue(Object value) {
+    return idFromValueAndType(value, value.getClass());
+  }
+
+  @Override
+  public String idFromValueAndType(Object value, Class<?> suggestedType) {
+    String name = names.get(suggestedType);
+    return name != null ? name : suggestedType.getName();
+  }
+
+  @Override
+  public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+    Class<?> type = byName.get(id);
+    if (type != null) {
+      return context.constructType(type);
+    }
+    return context.resolveAndValidateSubType(
+        baseType, id, context.getConfig().getPolymorphicTypeValidator());
+  }
+
+  @Override
+  public Id getMechanism() {
+    return Id.CUSTOM;
+  }
+}
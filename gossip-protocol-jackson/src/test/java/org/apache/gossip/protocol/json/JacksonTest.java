@@ -22,10 +22,14 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import org.apache.gossip.GossipSettings;
@@ -36,7 +40,13 @@ import org.apache.gossip.crdt.OrSet;
 import org.apache.gossip.crdt.TwoPhaseSet;
 import org.apache.gossip.manager.GossipManager;
 import org.apache.gossip.manager.GossipManagerBuilder;
+import org.apache.gossip.manager.PassiveGossipConstants;
+import org.apache.gossip.model.Base;
+import org.apache.gossip.model.SignedPayload;
 import org.apache.gossip.protocol.ProtocolManager;
+import org.apache.gossip.secure.KeyTool;
+import org.apache.gossip.secure.SignatureRejectedException;
+import org.apache.gossip.udp.UdpSharedDataMessage;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -153,4 +163,126 @@ public class JacksonTest {
           a.getMapOfThings(), b.getMapOfThings()); // concerned about that one, so explicit check.
     }
   }
+
+  @Test
+  public void testReadFromSliceAndBuffer() throws Exception {
+    ProtocolManager mgr =
+        new JacksonProtocolManager(
+            simpleSettings(new GossipSettings()), "foo", new MetricRegistry());
+    TestMessage a = new TestMessage(Long.toHexString(System.nanoTime()));
+    byte[] bytes = mgr.write(a);
+
+    // surround the message with garbage, the way a recycled receive buffer would.
+    byte[] padded = new byte[bytes.length + 64];
+    Arrays.fill(padded, (byte) 'x');
+    System.arraycopy(bytes, 0, padded, 16, bytes.length);
+    assertEquals(a, mgr.read(padded, 16, bytes.length));
+
+    ByteBuffer heap = ByteBuffer.wrap(padded, 16, bytes.length);
+    assertEquals(a, mgr.read(heap));
+    assertEquals(16, heap.position());
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(padded.length);
+    direct.put(padded).position(16).limit(16 + bytes.length);
+    assertEquals(a, mgr.read(direct));
+    assertEquals(16, direct.position());
+  }
+
+  @Test
+  public void testBinaryEncodingsRoundTrip() throws Exception {
+    ProtocolManager json =
+        new JacksonProtocolManager(
+            simpleSettings(new GossipSettings()), "foo", new MetricRegistry());
+    UdpSharedDataMessage message = new UdpSharedDataMessage();
+    message.setUuid(UUID.randomUUID().toString());
+    message.setUriFrom("udp://127.0.0.1:1");
+    message.setKey("set");
+    message.setPayload(new OrSet<>("1", "2", "3").remove("2"));
+    message.setTimestamp(System.currentTimeMillis());
+    message.setExpireAt(Long.MAX_VALUE);
+    int jsonSize = json.write(message).length;
+    for (String encoding : new String[] {"smile", "cbor"}) {
+      GossipSettings settings = simpleSettings(new GossipSettings());
+      settings.setProtocolEncoding(encoding);
+      ProtocolManager mgr = new JacksonProtocolManager(settings, "foo", new MetricRegistry());
+      byte[] bytes = mgr.write(message);
+      assertTrue(bytes.length < jsonSize, encoding);
+      UdpSharedDataMessage back = (UdpSharedDataMessage) mgr.read(bytes);
+      assertEquals(message.getUuid(), back.getUuid());
+      assertEquals(message.getPayload(), back.getPayload());
+
+      // messages the project does not know keep their class name as type id.
+      TestMessage a = new TestMessage(Long.toHexString(System.nanoTime()));
+      assertEquals(a, mgr.read(mgr.write(a)));
+    }
+  }
+
+  @Test
+  public void testUnknownEncoding() {
+    GossipSettings settings = simpleSettings(new GossipSettings());
+    settings.setProtocolEncoding("xml");
+    assertThrows(
+        IllegalArgumentException.class, () -> JacksonProtocolManager.buildObjectMapper(settings));
+  }
+
+  @Test
+  public void testSignedRoundTrip() throws Exception {
+    File keys = Files.createTempDirectory("gossip-keys").toFile();
+    KeyTool.generatePubandPrivateKeyFiles(keys.getPath(), "foo");
+    for (String encoding : new String[] {"json", "smile", "cbor"}) {
+      GossipSettings settings = withSigning(simpleSettings(new GossipSettings()));
+      settings.setPathToKeyStore(keys.getPath());
+      settings.setProtocolEncoding(encoding);
+      MetricRegistry registry = new MetricRegistry();
+      ProtocolManager mgr = new JacksonProtocolManager(settings, "foo", registry);
+      TestMessage a = new TestMessage(Long.toHexString(System.nanoTime()));
+      byte[] bytes = mgr.write(a);
+      assertTrue(mgr.read(bytes) instanceof TestMessage, encoding);
+      assertEquals(a, mgr.read(bytes));
+      assertEquals(2, registry.meter(PassiveGossipConstants.SIGNED_MESSAGE).getCount());
+    }
+  }
+
+  @Test
+  public void testTamperedMessageRejected() throws Exception {
+    File keys = Files.createTempDirectory("gossip-keys").toFile();
+    KeyTool.generatePubandPrivateKeyFiles(keys.getPath(), "foo");
+    GossipSettings settings = withSigning(simpleSettings(new GossipSettings()));
+    settings.setPathToKeyStore(keys.getPath());
+    MetricRegistry registry = new MetricRegistry();
+    ProtocolManager mgr = new JacksonProtocolManager(settings, "foo", registry);
+    ObjectMapper om = JacksonProtocolManager.buildObjectMapper(settings);
+
+    SignedPayload payload =
+        (SignedPayload) om.readValue(mgr.write(new TestMessage("hello")), Base.class);
+    assertEquals("foo", payload.getSigner());
+    payload.setData(om.writeValueAsBytes(new TestMessage("goodbye")));
+    assertThrows(SignatureRejectedException.class, () -> mgr.read(om.writeValueAsBytes(payload)));
+
+    payload.setData(om.writeValueAsBytes(new TestMessage("hello")));
+    payload.setSigner("bar");
+    assertThrows(SignatureRejectedException.class, () -> mgr.read(om.writeValueAsBytes(payload)));
+    payload.setSigner("../foo");
+    assertThrows(SignatureRejectedException.class, () -> mgr.read(om.writeValueAsBytes(payload)));
+
+    byte[] unsigned = om.writeValueAsBytes(new TestMessage("hello"));
+    assertThrows(SignatureRejectedException.class, () -> mgr.read(unsigned));
+    assertEquals(4, registry.meter(PassiveGossipConstants.SIGNATURE_REJECTED).getCount());
+  }
+
+  @Test
+  public void testEd25519RoundTrip() throws Exception {
+    File keys = Files.createTempDirectory("gossip-keys").toFile();
+    KeyTool.generatePubandPrivateKeyFiles(keys.getPath(), "foo", "Ed25519");
+    KeyTool.generatePubandPrivateKeyFiles(keys.getPath(), "bar", "Ed25519");
+    GossipSettings settings = withSigning(simpleSettings(new GossipSettings()));
+    settings.setPathToKeyStore(keys.getPath());
+    settings.setSignatureAlgorithm("Ed25519");
+    ProtocolManager foo = new JacksonProtocolManager(settings, "foo", new MetricRegistry());
+    MetricRegistry registry = new MetricRegistry();
+    ProtocolManager bar = new JacksonProtocolManager(settings, "bar", registry);
+    TestMessage a = new TestMessage(Long.toHexString(System.nanoTime()));
+    assertEquals(a, bar.read(foo.write(a)));
+    assertEquals(1, registry.timer(PassiveGossipConstants.SIGNATURE_VERIFY_TIME).getCount());
+  }
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.transport.memory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.transport.AbstractTransportManager;
+
+/**
+ * This class is constructed by reflection in GossipManager. It exchanges messages with the other
+ * members of the cluster through the cluster's {@link Switchboard} instead of the network, so large
+ * clusters can run inside one JVM. The member's URI is only used as an address on the switchboard.
+ * Delivered messages wait in a bounded queue, as they would in a socket buffer, until the receive
+ * thread reads them; a message arriving at a full queue is dropped. The receive thread is virtual
+ * when the receive workers are, so a large cluster does not need a platform thread per member.
+ */
+@Slf4j
+public class MemoryTransportManager extends AbstractTransportManager implements Runnable {
+
+  private final URI endpoint;
+
+  private final Switchboard switchboard;
+
+  private final BlockingQueue<byte[]> received;
+
+  private final Thread me;
+
+  private final AtomicBoolean keepRunning = new AtomicBoolean(true);
+
+  /** required for reflection to work! */
+  public MemoryTransportManager(GossipManager gossipManager, GossipCore gossipCore) {
+    super(gossipManager, gossipCore);
+    endpoint = gossipManager.getMyself().getUri();
+    switchboard = Switchboard.forCluster(gossipManager.getMyself().getClusterName());
+    received = new ArrayBlockingQueue<>(gossipManager.getSettings().getReceiveQueueSize());
+    switchboard.register(endpoint, this);
+    String name = "gossip-memory-" + gossipManager.getMyself().getId();
+    me =
+        gossipManager.getSettings().isReceiveVirtualThreads()
+            ? Thread.ofVirtual().name(name).unstarted(this)
+            : Thread.ofPlatform().name(name).daemon().unstarted(this);
+  }
+
+  @Override
+  public void run() {
+    while (keepRunning.get()) {
+      try {
+        receivePipeline.offer(read());
+      } catch (IOException e) {
+        // interrupted by shutdown, completely normal.
+        if (keepRunning.get()) {
+          log.error("Error", e);
+        }
+        keepRunning.set(false);
+      }
+    }
+  }
+
+  @Override
+  public void send(URI endpoint, byte[] buf) throws IOException {
+    switchboard.route(this.endpoint, endpoint, buf);
+  }
+
+  /**
+   * blocking read a message.
+   *
+   * @return the next delivered message.
+   * @throws IOException if interrupted while waiting, as on shutdown.
+   */
+  @Override
+  public byte[] read() throws IOException {
+    try {
+      return received.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+  }
+
+  boolean deliver(byte[] buf) {
+    return keepRunning.get() && received.offer(buf);
+  }
+
+  @Override
+  public void shutdown() {
+    keepRunning.set(false);
+    switchboard.unregister(endpoint, this);
+    super.shutdown();
+    me.interrupt();
+    received.clear();
+  }
+
+  @Override
+  public void startEndpoint() {
+    receivePipeline.start();
+    me.start();
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.transport.memory;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes messages between the {@link MemoryTransportManager}s of one cluster inside a single JVM.
+ * The network it simulates can be made worse at any time: every message can be delayed by a fixed
+ * latency plus a random jitter (which also reorders messages), dropped with a given probability, or
+ * refused because sender and receiver are on different sides of a partition. Like UDP, a message
+ * that is not delivered is lost without telling the sender.
+ */
+public class Switchboard {
+
+  private static final ConcurrentHashMap<String, Switchboard> switchboards =
+      new ConcurrentHashMap<>();
+
+  private final ConcurrentHashMap<URI, MemoryTransportManager> endpoints =
+      new ConcurrentHashMap<>();
+
+  /** Side of the partition per endpoint; endpoints not listed are all on side 0. */
+  private final ConcurrentHashMap<URI, Integer> sides = new ConcurrentHashMap<>();
+
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  private volatile long latencyMillis;
+  private volatile long jitterMillis;
+  private volatile double lossProbability;
+  private volatile ScheduledExecutorService scheduler;
+
+  /**
+   * @param cluster name of the cluster.
+   * @return the switchboard shared by every in-memory member of the cluster.
+   */
+  public static Switchboard forCluster(String cluster) {
+    return switchboards.computeIfAbsent(cluster, k -> new Switchboard());
+  }
+
+  /**
+   * Forget a cluster's switchboard and stop its delivery threads. Members still attached keep
+   * sending into the old one, so call this after they are shut down.
+   *
+   * @param cluster name of the cluster.
+   */
+  public static void remove(String cluster) {
+    Switchboard switchboard = switchboards.remove(cluster);
+    if (switchboard != null && switchboard.scheduler != null) {
+      switchboard.scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Delay every message by {@code latencyMillis} plus a uniformly random {@code [0, jitterMillis]}.
+   * Any jitter lets later messages overtake earlier ones.
+   */
+  public void setLatency(long latencyMillis, long jitterMillis) {
+    if (latencyMillis < 0 || jitterMillis < 0) {
+      throw new IllegalArgumentException("latency and jitter must not be negative");
+    }
+    this.latencyMillis = latencyMillis;
+    this.jitterMillis = jitterMillis;
+  }
+
+  /** Drop each message independently with this probability. */
+  public void setLossProbability(double lossProbability) {
+    if (lossProbability < 0 || lossProbability > 1) {
+      throw new IllegalArgumentException("loss probability must be between 0 and 1");
+    }
+    this.lossProbability = lossProbability;
+  }
+
+  /**
+   * Split the cluster. Members in different groups can no longer reach each other; members left out
+   * of every group form one more group together.
+   *
+   * @param groups the endpoints of each side of the partition.
+   */
+  @SafeVarargs
+  public final void partition(Collection<URI>... groups) {
+    sides.clear();
+    for (int i = 0; i < groups.length; i++) {
+      for (URI uri : groups[i]) {
+        sides.put(uri, i + 1);
+      }
+    }
+  }
+
+  /** Remove all partitions. */
+  public void heal() {
+    sides.clear();
+  }
+
+  /**
+   * @return the number of messages handed to a receiving member.
+   */
+  public long getDelivered() {
+    return delivered.get();
+  }
+
+  /**
+   * @return the number of messages lost to loss, partitions or missing receivers.
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  void register(URI endpoint, MemoryTransportManager transport) {
+    if (endpoints.putIfAbsent(endpoint, transport) != null) {
+      throw new IllegalStateException(endpoint + " is already in use");
+    }
+  }
+
+  void unregister(URI endpoint, MemoryTransportManager transport) {
+    endpoints.remove(endpoint, transport);
+  }
+
+  void route(URI from, URI to, byte[] buf) {
+    if (!endpoints.containsKey(to)
+        || !sides.getOrDefault(from, 0).equals(sides.getOrDefault(to, 0))) {
+      dropped.incrementAndGet();
+      return;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    double loss = lossProbability;
+    if (loss > 0 && random.nextDouble() < loss) {
+      dropped.incrementAndGet();
+      return;
+    }
+    long jitter = jitterMillis;
+    long delay = latencyMillis + (jitter > 0 ? random.nextLong(jitter + 1) : 0);
+    if (delay == 0) {
+      deliver(to, buf);
+    } else {
+      scheduler().schedule(() -> deliver(to, buf), delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void deliver(URI to, byte[] buf) {
+    // looked up again, the receiver may have gone away while the message was in flight.
+    MemoryTransportManager target = endpoints.get(to);
+    if (target != null && target.deliver(buf)) {
+      delivered.incrementAndGet();
+    } else {
+      dropped.incrementAndGet();
+    }
+  }
+
+  private ScheduledExecutorService scheduler() {
+    ScheduledExecutorService result = scheduler;
+    if (result == null) {
+      synchronized (this) {
+        if (scheduler == null) {
+          scheduler =
+              Executors.newScheduledThreadPool(
+                  2,
+                  r -> {
+                    Thread t = new Thread(r, "gossip-switchboard");
+                    t.setDaemon(true);
+                    return t;
+                  });
+        }
+        result = scheduler;
+      }
+    }
+    return result;
+  }
+}
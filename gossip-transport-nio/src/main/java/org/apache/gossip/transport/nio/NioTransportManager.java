@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.transport.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.transport.AbstractTransportManager;
+import org.apache.gossip.transport.ByteBufferPool;
+
+/**
+ * This class is constructed by reflection in GossipManager. It manages transport (byte read/write)
+ * operations over UDP using a single non-blocking {@link DatagramChannel} that is shared by the
+ * receiving thread and every sender, so no socket is created per outbound message.
+ */
+@Slf4j
+public class NioTransportManager extends AbstractTransportManager implements Runnable {
+
+  /** The largest payload a UDP datagram can carry over IPv4. */
+  public static final int MAX_DATAGRAM_SIZE = 65507;
+
+  /** The channel used both for the passive thread and for outbound messages. */
+  private final DatagramChannel channel;
+
+  private final Selector selector;
+
+  /** Idle direct buffers kept for reuse; buffers wait in the receive queue while pooled. */
+  private static final int POOLED_BUFFERS = 64;
+
+  /** Direct receive buffers, so datagrams are never copied onto the heap. */
+  private final ByteBufferPool bufferPool = new ByteBufferPool(MAX_DATAGRAM_SIZE, POOLED_BUFFERS);
+
+  /** Resolved endpoints, so name resolution is paid once per member. */
+  private final ConcurrentHashMap<URI, InetSocketAddress> addresses = new ConcurrentHashMap<>();
+
+  private final Thread me;
+
+  private final AtomicBoolean keepRunning = new AtomicBoolean(true);
+
+  /** required for reflection to work! */
+  public NioTransportManager(GossipManager gossipManager, GossipCore gossipCore) {
+    super(gossipManager, gossipCore);
+    try {
+      SocketAddress socketAddress =
+          new InetSocketAddress(
+              gossipManager.getMyself().getUri().getHost(),
+              gossipManager.getMyself().getUri().getPort());
+      channel = DatagramChannel.open();
+      channel.bind(socketAddress);
+      channel.configureBlocking(false);
+      selector = Selector.open();
+      channel.register(selector, SelectionKey.OP_READ);
+    } catch (IOException ex) {
+      log.warn("Warn!", ex);
+      throw new RuntimeException(ex);
+    }
+    me = new Thread(this);
+  }
+
+  @Override
+  public void run() {
+    while (keepRunning.get()) {
+      try {
+        ByteBuffer buf = receive();
+        if (buf == null) {
+          continue;
+        }
+        receivePipeline.offer(buf, bufferPool);
+      } catch (ClosedChannelException | ClosedSelectorException e) {
+        // completely normal here because shutdown closes the channel under the reader.
+        keepRunning.set(false);
+      } catch (IOException e) {
+        if (keepRunning.get()) {
+          log.error("Error", e);
+        }
+        keepRunning.set(false);
+      }
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    keepRunning.set(false);
+    selector.wakeup();
+    try {
+      selector.close();
+      channel.close();
+    } catch (IOException e) {
+      log.debug("Issue during shutdown", e);
+    }
+    super.shutdown();
+    me.interrupt();
+  }
+
+  /**
+   * blocking read a message.
+   *
+   * @return buffer of message contents, or null if the channel was woken up without data.
+   * @throws IOException
+   */
+  @Override
+  public byte[] read() throws IOException {
+    ByteBuffer buffer = receive();
+    if (buffer == null) {
+      return null;
+    }
+    try {
+      byte[] buf = new byte[buffer.remaining()];
+      buffer.get(buf);
+      return buf;
+    } finally {
+      bufferPool.release(buffer);
+    }
+  }
+
+  /**
+   * blocking receive into a pooled buffer. The caller owns the returned buffer and must release it
+   * back to the pool once the message is decoded.
+   *
+   * @return a flipped buffer holding one datagram, or null if the channel was woken up without
+   *     data.
+   * @throws IOException
+   */
+  private ByteBuffer receive() throws IOException {
+    ByteBuffer buffer = bufferPool.acquire();
+    SocketAddress from;
+    try {
+      from = channel.receive(buffer);
+      while (from == null) {
+        selector.select();
+        if (!keepRunning.get()) {
+          bufferPool.release(buffer);
+          return null;
+        }
+        selector.selectedKeys().clear();
+        from = channel.receive(buffer);
+      }
+    } catch (IOException | RuntimeException e) {
+      bufferPool.release(buffer);
+      throw e;
+    }
+    buffer.flip();
+    log.debug("Received message ( bytes): {} from {}", buffer.remaining(), from);
+    return buffer;
+  }
+
+  @Override
+  public void send(URI endpoint, byte[] buf) throws IOException {
+    int sent = channel.send(ByteBuffer.wrap(buf), resolve(endpoint));
+    if (sent == 0) {
+      // a non-blocking channel reports a full socket send buffer by sending nothing.
+      throw new IOException("Send buffer full, dropped message to " + endpoint);
+    }
+  }
+
+  private InetSocketAddress resolve(URI endpoint) throws IOException {
+    InetSocketAddress address = addresses.get(endpoint);
+    if (address == null) {
+      address = new InetSocketAddress(endpoint.getHost(), endpoint.getPort());
+      if (address.isUnresolved()) {
+        throw new IOException("Unable to resolve " + endpoint);
+      }
+      addresses.putIfAbsent(endpoint, address);
+    }
+    return address;
+  }
+
+  @Override
+  public void startEndpoint() {
+    receivePipeline.start();
+    me.start();
+  }
+}
@@ -0,0 +1,466 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.gossip.transport.tcp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.gossip.manager.GossipCore;
+import org.apache.gossip.manager.GossipManager;
+import org.apache.gossip.transport.AbstractTransportManager;
+
+/**
+ * This class is constructed by reflection in GossipManager. It manages transport (byte read/write)
+ * operations over TCP, so a message is not limited to the size of a datagram and is not silently
+ * lost when a packet drops.
+ *
+ * <p>Every message travels as one frame: a four byte big-endian length followed by the payload. One
+ * outbound connection is kept open per peer; it is opened lazily on the first send and again on the
+ * first send after it fails. A single thread owns the selector and does all socket I/O. Senders
+ * only queue frames, and block for at most twice the gossip interval when a peer's queue is full,
+ * after which the message is refused with an {@link IOException}.
+ *
+ * <p>Received frames are queued for a receive thread, which waits for room in the receive pipeline
+ * rather than dropping them. While that queue is full the I/O thread stops reading the connections
+ * that delivered too much, so the backlog is held in the peers' socket buffers and TCP flow control
+ * slows the senders down; nothing the stream delivered is discarded.
+ */
+@Slf4j
+public class TcpTransportManager extends AbstractTransportManager implements Runnable {
+
+  /** Frames larger than this are refused on send and treated as corruption on receive. */
+  public static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+  /** Frames that may wait on a single connection before senders are made to wait. */
+  public static final int MAX_QUEUED_FRAMES = 1024;
+
+  /** Received frames that may wait for the receive thread before reading stops. */
+  public static final int MAX_RECEIVED_FRAMES = 1024;
+
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private final ServerSocketChannel server;
+
+  private final Selector selector;
+
+  /** Owned by the I/O thread; every read is drained into the connections' frames. */
+  private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+  private final ConcurrentHashMap<URI, Connection> outbound = new ConcurrentHashMap<>();
+
+  /** Work handed to the I/O thread by senders, since only it may touch the selector. */
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  /** Complete frames waiting for the receive thread. */
+  private final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(MAX_RECEIVED_FRAMES);
+
+  /** Connections not read from until their parked frames fit into {@link #received}. */
+  private final Set<Connection> stalled = ConcurrentHashMap.newKeySet();
+
+  private final AtomicBoolean resumeRequested = new AtomicBoolean();
+
+  private final long sendTimeoutMillis;
+
+  private final Thread me;
+
+  private final Thread receiver;
+
+  private final AtomicBoolean keepRunning = new AtomicBoolean(true);
+
+  /** required for reflection to work! */
+  public TcpTransportManager(GossipManager gossipManager, GossipCore gossipCore) {
+    super(gossipManager, gossipCore);
+    sendTimeoutMillis = gossipManager.getSettings().getGossipInterval() * 2L;
+    try {
+      selector = Selector.open();
+      server = ServerSocketChannel.open();
+      server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+      server.bind(
+          new InetSocketAddress(
+              gossipManager.getMyself().getUri().getHost(),
+              gossipManager.getMyself().getUri().getPort()));
+      server.configureBlocking(false);
+      server.register(selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException ex) {
+      log.warn("Warn!", ex);
+      throw new RuntimeException(ex);
+    }
+    me = new Thread(this);
+    receiver = new Thread(this::receive);
+  }
+
+  @Override
+  public void run() {
+    while (keepRunning.get()) {
+      try {
+        selector.select();
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+          task.run();
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          handle(key);
+        }
+      } catch (ClosedSelectorException e) {
+        // completely normal here because shutdown closes the selector under the I/O thread.
+        keepRunning.set(false);
+      } catch (IOException e) {
+        if (keepRunning.get()) {
+          log.error("Error", e);
+        }
+        keepRunning.set(false);
+      }
+    }
+  }
+
+  /** Hands received frames to the receive pipeline, waiting for room instead of dropping them. */
+  private void receive() {
+    while (keepRunning.get()) {
+      try {
+        byte[] frame = read();
+        if (frame != null && !receivePipeline.put(frame)) {
+          return;
+        }
+      } catch (IOException e) {
+        // interrupted by shutdown, completely normal.
+        if (keepRunning.get()) {
+          log.error("Error", e);
+        }
+        return;
+      }
+    }
+  }
+
+  private void handle(SelectionKey key) {
+    if (key.channel() == server) {
+      accept();
+      return;
+    }
+    Connection connection = (Connection) key.attachment();
+    try {
+      if (key.isConnectable()) {
+        connection.channel.finishConnect();
+        connection.updateInterest();
+      }
+      if (key.isReadable()) {
+        connection.read();
+      }
+      if (key.isValid() && key.isWritable()) {
+        connection.write();
+      }
+    } catch (IOException | CancelledKeyException e) {
+      log.debug("Closing connection to {}", connection.endpoint, e);
+      connection.close();
+    }
+  }
+
+  private void accept() {
+    try {
+      SocketChannel channel;
+      while ((channel = server.accept()) != null) {
+        channel.configureBlocking(false);
+        Connection connection = new Connection(null);
+        connection.channel = channel;
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+      }
+    } catch (IOException e) {
+      log.warn("Unable to accept connection", e);
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    keepRunning.set(false);
+    selector.wakeup();
+    try {
+      for (SelectionKey key : selector.keys()) {
+        key.channel().close();
+      }
+      selector.close();
+      server.close();
+    } catch (IOException e) {
+      log.debug("Issue during shutdown", e);
+    }
+    super.shutdown();
+    me.interrupt();
+    receiver.interrupt();
+    received.clear();
+  }
+
+  /**
+   * blocking read a message. Taking a frame makes room for the connections that stopped reading
+   * because the queue was full, so they are resumed.
+   *
+   * @return the next received frame, or null if none arrived within a short wait.
+   * @throws IOException
+   */
+  @Override
+  public byte[] read() throws IOException {
+    byte[] frame;
+    try {
+      frame = received.poll(100, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+    if (!stalled.isEmpty() && resumeRequested.compareAndSet(false, true)) {
+      submit(
+          () -> {
+            resumeRequested.set(false);
+            for (Connection connection : stalled) {
+              connection.resume();
+            }
+          });
+    }
+    return frame;
+  }
+
+  @Override
+  public void send(URI endpoint, byte[] buf) throws IOException {
+    if (!keepRunning.get()) {
+      throw new IOException("Transport is shut down");
+    }
+    if (buf.length > MAX_FRAME_SIZE) {
+      throw new IOException("Message of " + buf.length + " bytes exceeds " + MAX_FRAME_SIZE);
+    }
+    ByteBuffer frame = ByteBuffer.allocate(4 + buf.length);
+    frame.putInt(buf.length).put(buf).flip();
+    Connection connection = outbound.computeIfAbsent(endpoint, this::open);
+    try {
+      if (!connection.frames.offer(frame, sendTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new IOException("Send queue to " + endpoint + " is full, dropped message");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+    if (connection.closed) {
+      throw new IOException("Connection to " + endpoint + " closed");
+    }
+    connection.requestWrite();
+  }
+
+  private Connection open(URI endpoint) {
+    Connection connection = new Connection(endpoint);
+    submit(
+        () -> {
+          try {
+            InetSocketAddress address =
+                new InetSocketAddress(endpoint.getHost(), endpoint.getPort());
+            if (address.isUnresolved()) {
+              throw new IOException("Unable to resolve " + endpoint);
+            }
+            SocketChannel channel = SocketChannel.open();
+            connection.channel = channel;
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            boolean connected = channel.connect(address);
+            connection.key =
+                channel.register(
+                    selector,
+                    connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT,
+                    connection);
+            if (connected) {
+              connection.updateInterest();
+            }
+          } catch (IOException e) {
+            log.debug("Unable to connect to {}", endpoint, e);
+            connection.close();
+          }
+        });
+    return connection;
+  }
+
+  private void submit(Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  @Override
+  public void startEndpoint() {
+    receivePipeline.start();
+    receiver.start();
+    me.start();
+  }
+
+  /**
+   * One socket and its framing state. Outbound connections are keyed by endpoint in {@link
+   * #outbound}; accepted connections have no endpoint and are only read from.
+   */
+  private class Connection {
+    private final URI endpoint;
+    private final BlockingQueue<ByteBuffer> frames = new ArrayBlockingQueue<>(MAX_QUEUED_FRAMES);
+    private final AtomicBoolean writeRequested = new AtomicBoolean();
+    private final ByteBuffer header = ByteBuffer.allocate(4);
+    /** Frames completed after {@link #received} filled up; only touched by the I/O thread. */
+    private final Queue<byte[]> parked = new ArrayDeque<>();
+    private SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer body;
+    private volatile boolean closed;
+
+    Connection(URI endpoint) {
+      this.endpoint = endpoint;
+    }
+
+    /** Called by senders; schedules at most one pending write registration at a time. */
+    void requestWrite() {
+      if (writeRequested.compareAndSet(false, true)) {
+        submit(
+            () -> {
+              writeRequested.set(false);
+              if (!closed) {
+                updateInterest();
+              }
+            });
+      }
+    }
+
+    /** Only on the I/O thread. */
+    void updateInterest() {
+      if (key == null || !key.isValid() || !channel.isConnected()) {
+        return;
+      }
+      int ops = parked.isEmpty() ? SelectionKey.OP_READ : 0;
+      if (!frames.isEmpty()) {
+        ops |= SelectionKey.OP_WRITE;
+      }
+      key.interestOps(ops);
+    }
+
+    void write() throws IOException {
+      ByteBuffer frame;
+      while ((frame = frames.peek()) != null) {
+        channel.write(frame);
+        if (frame.hasRemaining()) {
+          // the socket buffer is full; OP_WRITE stays set until the peer catches up.
+          return;
+        }
+        frames.poll();
+      }
+      updateInterest();
+    }
+
+    void read() throws IOException {
+      while (true) {
+        readBuffer.clear();
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+          throw new IOException("Connection closed by peer");
+        }
+        if (read == 0) {
+          return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+          if (body == null) {
+            transfer(readBuffer, header);
+            if (header.hasRemaining()) {
+              break;
+            }
+            int length = header.flip().getInt();
+            header.clear();
+            if (length < 0 || length > MAX_FRAME_SIZE) {
+              throw new IOException("Invalid frame length " + length);
+            }
+            body = ByteBuffer.allocate(length);
+          }
+          transfer(readBuffer, body);
+          if (!body.hasRemaining()) {
+            if (!parked.isEmpty() || !received.offer(body.array())) {
+              parked.add(body.array());
+            }
+            body = null;
+          }
+        }
+        if (!parked.isEmpty()) {
+          // the rest stays in the socket until the receive thread catches up.
+          stalled.add(this);
+          updateInterest();
+          return;
+        }
+      }
+    }
+
+    /** Only on the I/O thread; reading starts again once every parked frame is queued. */
+    void resume() {
+      byte[] frame;
+      while ((frame = parked.peek()) != null && received.offer(frame)) {
+        parked.poll();
+      }
+      if (parked.isEmpty()) {
+        stalled.remove(this);
+        if (!closed) {
+          updateInterest();
+        }
+      }
+    }
+
+    void close() {
+      closed = true;
+      // parked frames were delivered in full, they stay stalled until the receive thread has them.
+      if (endpoint != null) {
+        outbound.remove(endpoint, this);
+      }
+      if (key != null) {
+        key.cancel();
+      }
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          log.debug("Issue closing connection", e);
+        }
+      }
+      if (!frames.isEmpty()) {
+        log.debug("Dropped {} queued messages to {}", frames.size(), endpoint);
+        frames.clear();
+      }
+    }
+  }
+
+  private static void transfer(ByteBuffer from, ByteBuffer to) {
+    int count = Math.min(from.remaining(), to.remaining());
+    int limit = from.limit();
+    from.limit(from.position() + count);
+    to.put(from);
+    from.limit(limit);
+  }
+}
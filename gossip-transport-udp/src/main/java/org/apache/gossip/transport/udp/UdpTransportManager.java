@@ -25,11 +25,11 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.gossip.manager.GossipCore;
 import org.apache.gossip.manager.GossipManager;
-import org.apache.gossip.model.Base;
 import org.apache.gossip.transport.AbstractTransportManager;
 
 /**
@@ -39,11 +39,18 @@ import org.apache.gossip.transport.AbstractTransportManager;
 @Slf4j
 public class UdpTransportManager extends AbstractTransportManager implements Runnable {
 
+  /** The largest payload a UDP datagram can carry over IPv4. */
+  public static final int MAX_DATAGRAM_SIZE = 65507;
+
   /** The socket used for the passive thread of the gossip service. */
   private final DatagramSocket server;
 
   private final int soTimeout;
 
+  /** Recycled by the receiving thread; only one thread may read at a time. */
+  private final DatagramPacket receivePacket =
+      new DatagramPacket(new byte[MAX_DATAGRAM_SIZE], MAX_DATAGRAM_SIZE);
+
   private final Thread me;
 
   private final AtomicBoolean keepRunning = new AtomicBoolean(true);
@@ -69,15 +76,7 @@ public class UdpTransportManager extends AbstractTransportManager implements Run
   public void run() {
     while (keepRunning.get()) {
       try {
-        byte[] buf = read();
-        try {
-          Base message = gossipManager.getProtocolManager().read(buf);
-          gossipCore.receive(message);
-          // TODO this is suspect
-          gossipManager.getMemberStateRefresher().run();
-        } catch (RuntimeException ex) { // TODO trap json exception
-          log.error("Unable to process message", ex);
-        }
+        receivePipeline.offer(read());
       } catch (IOException e) {
         // InterruptedException are completely normal here because of the blocking lifecycle.
         if (!(e.getCause() instanceof InterruptedException)) {
@@ -97,17 +96,25 @@ public class UdpTransportManager extends AbstractTransportManager implements Run
   }
 
   /**
-   * blocking read a message.
+   * blocking read a message. Only the bytes of the datagram are copied out of the recycled packet.
    *
    * @return buffer of message contents.
    * @throws IOException
    */
   public byte[] read() throws IOException {
-    byte[] buf = new byte[server.getReceiveBufferSize()];
-    DatagramPacket p = new DatagramPacket(buf, buf.length);
-    server.receive(p);
-    debug(p.getData());
-    return p.getData();
+    DatagramPacket p = receive();
+    return Arrays.copyOfRange(p.getData(), p.getOffset(), p.getOffset() + p.getLength());
+  }
+
+  /**
+   * blocking receive into the recycled packet. The returned packet is only valid until the next
+   * call, and only {@link DatagramPacket#getLength()} bytes of its data belong to the message.
+   */
+  private DatagramPacket receive() throws IOException {
+    receivePacket.setLength(MAX_DATAGRAM_SIZE);
+    server.receive(receivePacket);
+    debug(receivePacket);
+    return receivePacket;
   }
 
   @Override
@@ -122,12 +129,17 @@ public class UdpTransportManager extends AbstractTransportManager implements Run
     }
   }
 
-  private void debug(byte[] jsonBytes) {
-    log.debug("Received message ( bytes): {}", jsonBytes);
+  private void debug(DatagramPacket p) {
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "Received message ( bytes): {}",
+          Arrays.copyOfRange(p.getData(), p.getOffset(), p.getOffset() + p.getLength()));
+    }
   }
 
   @Override
   public void startEndpoint() {
+    receivePipeline.start();
     me.start();
   }
 }